@@ -0,0 +1,28 @@
+package com.clayplay.config;
+
+import com.clayplay.service.CheckoutStoreBackend;
+import com.clayplay.service.InMemoryCheckoutStoreBackend;
+import com.clayplay.service.JdbcCheckoutStoreBackend;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class CheckoutStoreConfig {
+
+    @Value("${checkout.store:memory}")
+    private String store;
+
+    @Value("${checkout.max-entries:10000}")
+    private int maxEntries;
+
+    @Bean
+    public CheckoutStoreBackend checkoutStoreBackend(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        if ("jdbc".equalsIgnoreCase(store)) {
+            return new JdbcCheckoutStoreBackend(jdbcTemplate, objectMapper);
+        }
+        return new InMemoryCheckoutStoreBackend(maxEntries);
+    }
+}
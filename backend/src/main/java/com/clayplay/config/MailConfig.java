@@ -1,5 +1,6 @@
 package com.clayplay.config;
 
+import com.clayplay.service.MailRateLimiter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +27,24 @@ public class MailConfig {
     @Value("${mail.from:}")
     private String from;
 
+    @Value("${mail.rate.per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${mail.rate.min-per-second:1}")
+    private double minRatePerSecond;
+
+    @Value("${mail.rate.max-per-second:50}")
+    private double maxRatePerSecond;
+
+    @Value("${mail.rate.burst:20}")
+    private int rateBurst;
+
+    @Value("${mail.rate.recovery-per-second:0.5}")
+    private double rateRecoveryPerSecond;
+
+    @Value("${mail.rate.max-wait-ms:10000}")
+    private long rateMaxWaitMs;
+
     @Bean
     public JavaMailSender javaMailSender() {
         JavaMailSenderImpl sender = new JavaMailSenderImpl();
@@ -48,6 +67,12 @@ public class MailConfig {
         return sender;
     }
 
+    @Bean
+    public MailRateLimiter mailRateLimiter() {
+        return new MailRateLimiter(ratePerSecond, minRatePerSecond, maxRatePerSecond, rateBurst,
+                rateRecoveryPerSecond, rateMaxWaitMs);
+    }
+
     @Bean(name = "mailFromAddress")
     public String mailFromAddress() {
         return from;
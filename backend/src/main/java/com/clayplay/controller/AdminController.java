@@ -7,6 +7,14 @@ import com.clayplay.repository.AdministratorRepository;
 import com.clayplay.repository.ClanarinaRepository;
 import com.clayplay.repository.KorisnikRepository;
 import com.clayplay.repository.OrganizatorRepository;
+import com.clayplay.service.CheckoutStore;
+import com.clayplay.service.BatchedMailTransport;
+import com.clayplay.service.ImageVariantService;
+import com.clayplay.service.MediaDedupeService;
+import com.clayplay.service.MediaLayoutMigrationService;
+import com.clayplay.service.NotificationOutboxDispatcher;
+import com.clayplay.service.SeatInventory;
+import com.clayplay.service.SellerRatingService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -23,17 +31,41 @@ public class AdminController {
     private final OrganizatorRepository organizatorRepository;
     private final AdministratorRepository administratorRepository;
     private final ClanarinaRepository clanarinaRepository;
+    private final SellerRatingService sellerRatingService;
+    private final CheckoutStore checkoutStore;
+    private final SeatInventory seatInventory;
+    private final NotificationOutboxDispatcher outboxDispatcher;
+    private final BatchedMailTransport mailTransport;
+    private final MediaDedupeService mediaDedupe;
+    private final MediaLayoutMigrationService mediaLayout;
+    private final ImageVariantService imageVariants;
 
     public AdminController(
             KorisnikRepository korisnikRepository,
             OrganizatorRepository organizatorRepository,
             AdministratorRepository administratorRepository,
-            ClanarinaRepository clanarinaRepository
+            ClanarinaRepository clanarinaRepository,
+            SellerRatingService sellerRatingService,
+            CheckoutStore checkoutStore,
+            SeatInventory seatInventory,
+            NotificationOutboxDispatcher outboxDispatcher,
+            BatchedMailTransport mailTransport,
+            MediaDedupeService mediaDedupe,
+            MediaLayoutMigrationService mediaLayout,
+            ImageVariantService imageVariants
     ) {
         this.korisnikRepository = korisnikRepository;
         this.organizatorRepository = organizatorRepository;
         this.administratorRepository = administratorRepository;
         this.clanarinaRepository = clanarinaRepository;
+        this.sellerRatingService = sellerRatingService;
+        this.checkoutStore = checkoutStore;
+        this.seatInventory = seatInventory;
+        this.outboxDispatcher = outboxDispatcher;
+        this.mailTransport = mailTransport;
+        this.mediaDedupe = mediaDedupe;
+        this.mediaLayout = mediaLayout;
+        this.imageVariants = imageVariants;
     }
 
     @GetMapping("/users")
@@ -166,6 +198,66 @@ public class AdminController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/ratings/rebuild")
+    public ResponseEntity<?> rebuildSellerRatings() {
+        try {
+            int sellers = sellerRatingService.rebuild();
+            return ResponseEntity.ok(Map.of("sellers", sellers));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @GetMapping("/checkout-store/stats")
+    public ResponseEntity<?> checkoutStoreStats() {
+        return ResponseEntity.ok(checkoutStore.stats());
+    }
+
+    @GetMapping("/seats/stats")
+    public ResponseEntity<?> seatInventoryStats() {
+        return ResponseEntity.ok(seatInventory.stats());
+    }
+
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<?> outboxStats() {
+        return ResponseEntity.ok(outboxDispatcher.stats());
+    }
+
+    @PostMapping("/outbox/dead/retry")
+    public ResponseEntity<?> retryDeadOutbox() {
+        return ResponseEntity.ok(Map.of("requeued", outboxDispatcher.retryDead()));
+    }
+
+    @GetMapping("/mail/stats")
+    public ResponseEntity<?> mailStats() {
+        return ResponseEntity.ok(mailTransport.stats());
+    }
+
+    @GetMapping("/media/variants/stats")
+    public ResponseEntity<?> imageVariantStats() {
+        return ResponseEntity.ok(imageVariants.stats());
+    }
+
+    // renames legacy UUID uploads to their content hash and merges duplicates; dryRun only reports
+    @PostMapping("/media/dedupe")
+    public ResponseEntity<?> dedupeMedia(@RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        try {
+            return ResponseEntity.ok(mediaDedupe.run(dryRun));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    // moves flat uploads into the sharded directory layout while media keeps being served; dryRun only reports
+    @PostMapping("/media/migrate-layout")
+    public ResponseEntity<?> migrateMediaLayout(@RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        try {
+            return ResponseEntity.ok(mediaLayout.run(dryRun));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
     private void upsertPrice(String type, BigDecimal amount) {
         Optional<Clanarina> existing = clanarinaRepository.findByTipClanarine(type);
         if (existing.isPresent()) {
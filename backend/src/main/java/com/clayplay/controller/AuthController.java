@@ -16,7 +16,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -100,17 +99,13 @@ public class AuthController {
             req.userType = userType;
             req.studyName = studyName;
 
-            byte[] bytes = null;
-            String contentType = null;
             if (image != null && !image.isEmpty()) {
                 System.out.println("[DEBUG_LOG] Received image: " + image.getOriginalFilename() + " (" + image.getSize() + " bytes)");
-                try { bytes = image.getBytes(); } catch (IOException ignored) {}
-                contentType = image.getContentType();
             } else {
                 System.out.println("[DEBUG_LOG] No image received in multipart request");
             }
 
-            Korisnik created = userService.register(req, bytes, contentType);
+            Korisnik created = userService.register(req, image);
             Map<String, Object> userMap = buildUserMap(created);
 
             Map<String, Object> resp = new HashMap<>();
@@ -329,8 +324,10 @@ public class AuthController {
         userMap.put("userType", isAdmin ? "admin" : isOrg ? "organizator" : "polaznik");
 
         if (!isAdmin && !isOrg) {
-            userService.findPolaznik(u.getIdKorisnik())
-                    .ifPresent(p -> userMap.put("zeliObavijesti", p.isZeliObavijesti()));
+            userService.findPolaznik(u.getIdKorisnik()).ifPresent(p -> {
+                userMap.put("zeliObavijesti", p.isZeliObavijesti());
+                userMap.put("nacinObavijesti", p.getNacinObavijesti());
+            });
         }
 
         if (isOrg) {
@@ -97,8 +97,15 @@ public class CartController {
         Object price = body.get("price"); if (price != null) item.setPrice(new java.math.BigDecimal(String.valueOf(price)));
         Object meta = body.get("meta"); if (meta != null) item.setMeta(String.valueOf(meta));
 
-        List<CartItem> items = cartService.addItem(userId, item);
-        return ResponseEntity.ok(Map.of("items", mapList(items)));
+        try {
+            List<CartItem> items = cartService.addItem(userId, item);
+            return ResponseEntity.ok(Map.of("items", mapList(items)));
+        } catch (IllegalStateException e) {
+            // no seat could be held for the workshop
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PatchMapping("/items/{itemId}")
@@ -115,6 +122,8 @@ public class CartController {
                 items = cartService.updateQtyByFriendlyId(userId, itemId, qty);
             }
             return ResponseEntity.ok(Map.of("items", mapList(items)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(400).body(Map.of("message", e.getMessage()));
         }
@@ -133,6 +142,8 @@ public class CartController {
                 items = cartService.removeItemByFriendlyId(userId, itemId);
             }
             return ResponseEntity.ok(Map.of("items", mapList(items)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(400).body(Map.of("message", e.getMessage()));
         }
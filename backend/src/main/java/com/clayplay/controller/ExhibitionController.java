@@ -1,7 +1,6 @@
 package com.clayplay.controller;
 
 import com.clayplay.dto.ExhibitionApplicationResponse;
-import com.clayplay.dto.ExhibitionResponse;
 import com.clayplay.model.Izlozba;
 import com.clayplay.model.Komentar;
 import com.clayplay.model.Korisnik;
@@ -46,8 +45,17 @@ public class ExhibitionController {
     }
 
     @GetMapping
-    public List<ExhibitionResponse> list() {
-        return exhibitions.listAll();
+    public ResponseEntity<?> list(@RequestParam(name = "cursor", required = false) String cursor,
+                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                  @RequestParam(name = "when", required = false) String when) {
+        if (cursor == null && limit == null && when == null) {
+            return ResponseEntity.ok(exhibitions.listAll());
+        }
+        try {
+            return ResponseEntity.ok(exhibitions.listPage(cursor, limit, when));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
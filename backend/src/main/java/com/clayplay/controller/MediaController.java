@@ -1,42 +1,161 @@
 package com.clayplay.controller;
 
-import com.clayplay.service.FileStorageService;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import com.clayplay.service.ImageVariantService;
+import com.clayplay.service.MediaIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 @RestController
 public class MediaController {
 
-    private final FileStorageService storage;
+    // Tomcat's sendfile contract: when the connector advertises support, it streams the file itself
+    // after the servlet returns, straight from the page cache to the socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // below this a plain write is cheaper than handing the socket over to the poller
+    private static final long SENDFILE_MIN = 48 * 1024;
 
-    public MediaController(FileStorageService storage) {
-        this.storage = storage;
+    private final ImageVariantService variants;
+    private final MediaIndex index;
+
+    public MediaController(ImageVariantService variants, MediaIndex index) {
+        this.variants = variants;
+        this.index = index;
     }
 
+    // ?w= picks the smallest pre-built variant at least that wide; while it is still being generated the
+    // original goes out with a short max-age so the ?w= URL is not pinned to the full-size file.
+    // Type, length and ETag come from MediaIndex, so a cached or revalidated hit never stats the disk
     @GetMapping("/media/{filename:.+}")
-    public ResponseEntity<Resource> get(@PathVariable String filename) {
-        Path path = storage.resolve(filename);
-        if (!Files.exists(path) || !Files.isRegularFile(path)) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
-        FileSystemResource resource = new FileSystemResource(path);
-        String ct = null;
-        try { ct = Files.probeContentType(path); } catch (IOException ignored) {}
-        if (ct == null || ct.isBlank()) ct = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, ct)
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
-                .body(resource);
+    public void get(@PathVariable String filename,
+                    @RequestParam(value = "w", required = false) Integer width,
+                    HttpServletRequest request,
+                    HttpServletResponse response) throws IOException {
+        MediaIndex.Entry entry = index.original(filename);
+        if (entry == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String cacheControl = "public, max-age=31536000, immutable";
+        Integer variantWidth = width != null && width > 0 ? variants.widthFor(filename, width) : null;
+        if (variantWidth != null) {
+            MediaIndex.Entry variant = index.variant(filename, variantWidth);
+            if (variant != null) {
+                entry = variant;
+            } else {
+                variants.request(filename);
+                cacheControl = "public, max-age=60";
+            }
+        }
+
+        response.setHeader(HttpHeaders.ETAG, entry.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, entry.getLastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.getEtag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = entry.getLength();
+        long start = 0;
+        long end = length - 1;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        long[] range = ifRange == null || ifRange.equals(entry.getEtag())
+                ? parseRange(request.getHeader(HttpHeaders.RANGE), length)
+                : null;
+        if (range != null && range.length == 0) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        if (range != null) {
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        long count = end - start + 1;
+        response.setContentType(entry.getContentType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) return;
+
+        if (count >= SENDFILE_MIN && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, entry.getPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(entry.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long stop = start + count;
+            while (position < stop) {
+                long n = channel.transferTo(position, stop - position, out);
+                if (n <= 0) break;
+                position += n;
+            }
+        } catch (NoSuchFileException e) {
+            // moved or removed since it was indexed (layout migration, dedupe); nothing has been written yet
+            index.evict(filename);
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    // If-None-Match uses the weak comparison: W/ prefixes are ignored, * matches anything
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*")) return true;
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    // a single byte range as {first, last}; null means serve the whole file (no header, malformed, or a
+    // multi-range request, which the spec lets us answer with 200), an empty array means 416
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return new long[0];
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (start >= length) return new long[0];
+            if (end < start) return null;
+            return new long[]{start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
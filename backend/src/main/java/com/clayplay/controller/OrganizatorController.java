@@ -10,10 +10,14 @@ import com.clayplay.repository.IzlozbaRepository;
 import com.clayplay.repository.OrganizatorRepository;
 import com.clayplay.repository.ProizvodRepository;
 import com.clayplay.repository.RadionicaRepository;
+import com.clayplay.service.FollowService;
+import com.clayplay.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -33,17 +37,23 @@ public class OrganizatorController {
     private final RadionicaRepository radionicaRepository;
     private final IzlozbaRepository izlozbaRepository;
     private final ProizvodRepository proizvodRepository;
+    private final FollowService followService;
+    private final UserService users;
 
     public OrganizatorController(
         OrganizatorRepository organizatorRepository,
         RadionicaRepository radionicaRepository,
         IzlozbaRepository izlozbaRepository,
-        ProizvodRepository proizvodRepository
+        ProizvodRepository proizvodRepository,
+        FollowService followService,
+        UserService users
     ) {
         this.organizatorRepository = organizatorRepository;
         this.radionicaRepository = radionicaRepository;
         this.izlozbaRepository = izlozbaRepository;
         this.proizvodRepository = proizvodRepository;
+        this.followService = followService;
+        this.users = users;
     }
 
     @GetMapping
@@ -176,4 +186,59 @@ public class OrganizatorController {
 
         return ResponseEntity.ok(payload);
     }
+
+    @PostMapping("/{organizatorId}/follow")
+    public ResponseEntity<?> follow(@PathVariable Long organizatorId, @RequestBody(required = false) Map<String, Object> body) {
+        try {
+            if (body == null || body.get("userId") == null) return ResponseEntity.badRequest().body("Missing userId");
+            Long userId = ((Number) body.get("userId")).longValue();
+            if (users.isBlocked(userId)) return ResponseEntity.status(403).body("User is blocked");
+            followService.follow(userId, organizatorId);
+            return ResponseEntity.ok(Map.of("following", true, "followers", followService.followerCount(organizatorId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @PostMapping("/{organizatorId}/unfollow")
+    public ResponseEntity<?> unfollow(@PathVariable Long organizatorId, @RequestBody(required = false) Map<String, Object> body) {
+        try {
+            if (body == null || body.get("userId") == null) return ResponseEntity.badRequest().body("Missing userId");
+            Long userId = ((Number) body.get("userId")).longValue();
+            followService.unfollow(userId, organizatorId);
+            return ResponseEntity.ok(Map.of("following", false, "followers", followService.followerCount(organizatorId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @GetMapping("/{organizatorId}/followers")
+    public ResponseEntity<?> followers(
+        @PathVariable Long organizatorId,
+        @RequestParam(name = "userId", required = false) Long userId
+    ) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "followers", followService.followerCount(organizatorId),
+                "following", followService.isFollowing(userId, organizatorId)
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @GetMapping("/following")
+    public ResponseEntity<?> following(@RequestParam("userId") Long userId) {
+        try {
+            return ResponseEntity.ok(followService.following(userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
 }
@@ -178,7 +178,7 @@ public class PaymentController {
             Map<String, Object> prepared = checkoutStore.get(checkoutId);
             if (prepared == null) return ResponseEntity.status(404).body(Map.of("message", "Checkout not found"));
             Long userId = ((Number) prepared.get("userId")).longValue();
-            Double total = (Double) prepared.get("total");
+            double total = ((Number) prepared.get("total")).doubleValue();
             long amount = Math.round(total * 100);
 
             PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
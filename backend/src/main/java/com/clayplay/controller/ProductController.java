@@ -1,11 +1,14 @@
 package com.clayplay.controller;
 
-import com.clayplay.dto.ProductResponse;
 import com.clayplay.model.Recenzija;
 import com.clayplay.repository.KupovinaRepository;
 import com.clayplay.repository.RecenzijaRepository;
+import com.clayplay.service.ProductCatalog;
+import com.clayplay.service.ProductSearchService;
 import com.clayplay.service.ProductService;
+import com.clayplay.service.SellerRatingService;
 import com.clayplay.service.UserService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,20 +27,53 @@ public class ProductController {
     private final UserService users;
     private final RecenzijaRepository recenzije;
     private final KupovinaRepository kupovine;
+    private final SellerRatingService ratings;
+    private final ProductSearchService search;
 
-    public ProductController(ProductService products, UserService users, RecenzijaRepository recenzije, KupovinaRepository kupovine) {
+    public ProductController(ProductService products, UserService users, RecenzijaRepository recenzije, KupovinaRepository kupovine, SellerRatingService ratings, ProductSearchService search) {
         this.products = products;
+        this.search = search;
         this.users = users;
         this.recenzije = recenzije;
         this.kupovine = kupovine;
+        this.ratings = ratings;
     }
 
     @GetMapping
-    public List<ProductResponse> list(@RequestParam(name = "sellerId", required = false) Long sellerId) {
+    public ResponseEntity<?> list(@RequestParam(name = "sellerId", required = false) Long sellerId,
+                                  @RequestParam(name = "cursor", required = false) String cursor,
+                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         if (sellerId != null) {
-            return products.listBySeller(sellerId);
+            return ResponseEntity.ok(products.listBySeller(sellerId));
+        }
+        if (cursor == null && limit == null) {
+            ProductCatalog.Snapshot snap = products.catalogSnapshot();
+            if (snap == null) return ResponseEntity.ok(products.listAll());
+            if (snap.getEtag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snap.getEtag()).build();
+            }
+            return ResponseEntity.ok().eTag(snap.getEtag()).body(snap.getItems());
+        }
+        try {
+            return ResponseEntity.ok(products.listPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam(name = "q", required = false) String q,
+                                    @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+                                    @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+                                    @RequestParam(name = "category", required = false) String category,
+                                    @RequestParam(name = "cursor", required = false) String cursor,
+                                    @RequestParam(name = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(search.search(q, minPrice, maxPrice, category, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        return products.listAll();
     }
 
     @GetMapping("/{id}")
@@ -117,7 +153,7 @@ public class ProductController {
             r.setIdKorisnik(userId);
             r.setOcjena(rating);
             r.setTextRecenzija(text);
-            Recenzija saved = recenzije.save(r);
+            Recenzija saved = ratings.saveReview(r);
 
             Map<String, Object> resp = new HashMap<>();
             resp.put("id", saved.getIdRecenzija());
@@ -147,13 +183,7 @@ public class ProductController {
             BigDecimal cijena;
             try { cijena = new BigDecimal(cijenaProizvod); } catch (Exception e) { return ResponseEntity.badRequest().body("Invalid price"); }
 
-            byte[] bytes = null; String contentType = null;
-            if (image != null && !image.isEmpty()) {
-                try { bytes = image.getBytes(); } catch (Exception ignored) {}
-                contentType = image.getContentType();
-            }
-
-            Long id = products.create(userId, opisProizvod, cijena, kategorijaProizvod, bytes, contentType);
+            Long id = products.create(userId, opisProizvod, cijena, kategorijaProizvod, image);
             Map<String, Object> resp = new HashMap<>();
             resp.put("proizvodId", id);
             return ResponseEntity.ok(resp);
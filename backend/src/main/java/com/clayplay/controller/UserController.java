@@ -55,9 +55,7 @@ public class UserController {
             if (image == null || image.isEmpty()) {
                 return ResponseEntity.badRequest().body("Image is required");
             }
-            byte[] bytes = image.getBytes();
-            String contentType = image.getContentType();
-            Korisnik updated = userService.updateProfileImage(id, bytes, contentType);
+            Korisnik updated = userService.updateProfileImage(id, image);
             return ResponseEntity.ok(buildUserMap(updated));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -82,14 +80,16 @@ public class UserController {
             if (userService.isBlocked(id)) return ResponseEntity.status(403).body("User is blocked");
             if (!userService.isPolaznik(id)) return ResponseEntity.status(403).body("Only polaznik can change notifications");
 
-            boolean enabled = false;
-            if (body != null && body.get("enabled") != null) {
-                enabled = Boolean.TRUE.equals(body.get("enabled")) || "true".equalsIgnoreCase(String.valueOf(body.get("enabled")));
-            } else {
+            if (body == null || (body.get("enabled") == null && body.get("mode") == null)) {
                 return ResponseEntity.badRequest().body("Missing enabled");
             }
-
-            userService.setPolaznikZeliObavijesti(id, enabled);
+            if (body.get("enabled") != null) {
+                boolean enabled = Boolean.TRUE.equals(body.get("enabled")) || "true".equalsIgnoreCase(String.valueOf(body.get("enabled")));
+                userService.setPolaznikZeliObavijesti(id, enabled);
+            }
+            if (body.get("mode") != null) {
+                userService.setPolaznikNacinObavijesti(id, String.valueOf(body.get("mode")));
+            }
             Korisnik updated = userService.findById(id).orElse(null);
             if (updated == null) return ResponseEntity.status(404).body("User not found");
 
@@ -132,8 +132,10 @@ public class UserController {
                     .orElse(null);
             userMap.put("studyName", orgStudyName);
         } else {
-            userService.findPolaznik(updated.getIdKorisnik())
-                    .ifPresent(p -> userMap.put("zeliObavijesti", p.isZeliObavijesti()));
+            userService.findPolaznik(updated.getIdKorisnik()).ifPresent(p -> {
+                userMap.put("zeliObavijesti", p.isZeliObavijesti());
+                userMap.put("nacinObavijesti", p.getNacinObavijesti());
+            });
         }
 
         return userMap;
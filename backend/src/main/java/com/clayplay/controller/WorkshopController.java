@@ -1,7 +1,6 @@
 package com.clayplay.controller;
 
 import com.clayplay.dto.WorkshopRequest;
-import com.clayplay.dto.WorkshopResponse;
 import com.clayplay.service.WorkshopService;
 import com.clayplay.service.ReservationService;
 import com.clayplay.service.UserService;
@@ -46,8 +45,16 @@ public class WorkshopController {
     }
 
     @GetMapping
-    public List<WorkshopResponse> list() {
-        return service.listRecent(100);
+    public ResponseEntity<?> list(@RequestParam(name = "cursor", required = false) String cursor,
+                                  @RequestParam(name = "limit", required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(service.listRecent(100));
+        }
+        try {
+            return ResponseEntity.ok(service.listPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}/photos")
@@ -113,6 +120,46 @@ public class WorkshopController {
         }
     }
 
+    @PostMapping("/{id}/waitlist")
+    public ResponseEntity<?> joinWaitlist(@PathVariable("id") Long workshopId, @RequestBody(required = false) Map<String, Object> body) {
+        try {
+            if (body == null || body.get("userId") == null) return ResponseEntity.badRequest().body("Missing userId");
+            Long userId = ((Number) body.get("userId")).longValue();
+            if (users.isBlocked(userId)) return ResponseEntity.status(403).body("User is blocked");
+            long position = reservations.joinWaitlist(userId, workshopId);
+            return ResponseEntity.ok(Map.of("position", position));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @GetMapping("/{id}/waitlist")
+    public ResponseEntity<?> waitlistPosition(@PathVariable("id") Long workshopId, @RequestParam("userId") Long userId) {
+        try {
+            return ResponseEntity.ok(Map.of("position", reservations.waitlistPosition(userId, workshopId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
+    @PostMapping("/{id}/waitlist/leave")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable("id") Long workshopId, @RequestBody(required = false) Map<String, Object> body) {
+        try {
+            if (body == null || body.get("userId") == null) return ResponseEntity.badRequest().body("Missing userId");
+            Long userId = ((Number) body.get("userId")).longValue();
+            reservations.leaveWaitlist(userId, workshopId);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Server error");
+        }
+    }
+
     @GetMapping("/reserved")
     public ResponseEntity<?> reservedForUser(@RequestParam("userId") Long userId) {
         try {
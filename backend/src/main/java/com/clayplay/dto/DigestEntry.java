@@ -0,0 +1,18 @@
+package com.clayplay.dto;
+
+public class DigestEntry {
+
+    private final String type;
+    private final Long objectId;
+    private final Long organizerId;
+
+    public DigestEntry(String type, Long objectId, Long organizerId) {
+        this.type = type;
+        this.objectId = objectId;
+        this.organizerId = organizerId;
+    }
+
+    public String getType() { return type; }
+    public Long getObjectId() { return objectId; }
+    public Long getOrganizerId() { return organizerId; }
+}
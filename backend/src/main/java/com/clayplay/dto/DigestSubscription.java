@@ -0,0 +1,22 @@
+package com.clayplay.dto;
+
+// one (recipient, organizer) pair; organizerId is null when the recipient takes every organizer's announcements
+public class DigestSubscription {
+
+    private final Long userId;
+    private final String email;
+    private final String firstName;
+    private final Long organizerId;
+
+    public DigestSubscription(Long userId, String email, String firstName, Long organizerId) {
+        this.userId = userId;
+        this.email = email;
+        this.firstName = firstName;
+        this.organizerId = organizerId;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public String getFirstName() { return firstName; }
+    public Long getOrganizerId() { return organizerId; }
+}
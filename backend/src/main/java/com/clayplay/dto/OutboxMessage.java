@@ -0,0 +1,21 @@
+package com.clayplay.dto;
+
+public class OutboxMessage {
+
+    private final Long id;
+    private final String type;
+    private final String payload;
+    private final int attempts;
+
+    public OutboxMessage(Long id, String type, String payload, int attempts) {
+        this.id = id;
+        this.type = type;
+        this.payload = payload;
+        this.attempts = attempts;
+    }
+
+    public Long getId() { return id; }
+    public String getType() { return type; }
+    public String getPayload() { return payload; }
+    public int getAttempts() { return attempts; }
+}
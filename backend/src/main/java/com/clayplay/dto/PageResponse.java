@@ -0,0 +1,15 @@
+package com.clayplay.dto;
+
+import java.util.List;
+
+public class PageResponse<T> {
+    public List<T> items;
+    public String nextCursor;
+
+    public PageResponse() {}
+
+    public PageResponse(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
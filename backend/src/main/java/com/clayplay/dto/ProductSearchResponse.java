@@ -0,0 +1,20 @@
+package com.clayplay.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductSearchResponse {
+    public List<ProductResponse> items;
+    public String nextCursor;
+    public long total;
+    public Map<String, Long> facets;
+
+    public ProductSearchResponse() {}
+
+    public ProductSearchResponse(List<ProductResponse> items, String nextCursor, long total, Map<String, Long> facets) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.facets = facets;
+    }
+}
@@ -13,6 +13,10 @@ public class Polaznik {
     @Column(name = "zeliobavijesti", nullable = false)
     private boolean zeliObavijesti = false;
 
+    // INSTANT or DIGEST
+    @Column(name = "nacinobavijesti", nullable = false)
+    private String nacinObavijesti = "INSTANT";
+
     @OneToOne(optional = false)
     @JoinColumn(name = "idkorisnik", referencedColumnName = "idkorisnik", insertable = false, updatable = false)
     private Korisnik korisnik;
@@ -23,6 +27,9 @@ public class Polaznik {
     public boolean isZeliObavijesti() { return zeliObavijesti; }
     public void setZeliObavijesti(boolean zeliObavijesti) { this.zeliObavijesti = zeliObavijesti; }
 
+    public String getNacinObavijesti() { return nacinObavijesti; }
+    public void setNacinObavijesti(String nacinObavijesti) { this.nacinObavijesti = nacinObavijesti; }
+
     public Korisnik getKorisnik() { return korisnik; }
     public void setKorisnik(Korisnik korisnik) { this.korisnik = korisnik; }
 }
@@ -1,7 +1,13 @@
 package com.clayplay.repository;
 
 import com.clayplay.model.CartItem;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +15,18 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByIdKorisnikOrderByCreatedAtAsc(Long idKorisnik);
     void deleteByIdKorisnik(Long idKorisnik);
 
+    // rows are [CartItem, Proizvod or null, Radionica or null]; read-only so view hydration never flushes back
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select c, p, r from CartItem c " +
+           "left join Proizvod p on p.proizvodId = c.productId " +
+           "left join Radionica r on r.idRadionica = c.idRadionica " +
+           "where c.idKorisnik = :uid order by c.createdAt asc")
+    List<Object[]> findWithTargetsByIdKorisnik(@Param("uid") Long idKorisnik);
+
+    @Modifying
+    @Query("update CartItem c set c.qty = :qty where c.idCartItem = :id and c.idKorisnik = :uid")
+    int updateQty(@Param("uid") Long idKorisnik, @Param("id") Long idCartItem, @Param("qty") int qty);
+
     Optional<CartItem> findByIdKorisnikAndProductId(Long idKorisnik, Long productId);
     Optional<CartItem> findByIdKorisnikAndIdRadionica(Long idKorisnik, Long idRadionica);
 
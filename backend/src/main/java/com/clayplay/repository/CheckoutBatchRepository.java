@@ -0,0 +1,77 @@
+package com.clayplay.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class CheckoutBatchRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // locks the rows in id order so overlapping baskets cannot deadlock; returns only the ids this call flipped
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Long> markSold(Collection<Long> proizvodIds) {
+        if (proizvodIds == null || proizvodIds.isEmpty()) return List.of();
+        List<Object> rows = em.createNativeQuery(
+                        "UPDATE PROIZVOD SET kupljen = TRUE " +
+                        "WHERE kupljen = FALSE AND proizvodid IN (" +
+                        "SELECT proizvodid FROM PROIZVOD WHERE proizvodid IN (:ids) AND kupljen = FALSE " +
+                        "ORDER BY proizvodid FOR UPDATE) " +
+                        "RETURNING proizvodid")
+                .setParameter("ids", proizvodIds)
+                .getResultList();
+        return toIds(rows);
+    }
+
+    @Transactional
+    public int insertPurchases(Long idKorisnik, Collection<Long> proizvodIds) {
+        if (proizvodIds == null || proizvodIds.isEmpty()) return 0;
+        return em.createNativeQuery(
+                        "INSERT INTO KUPOVINA (idkorisnik, proizvodid) " +
+                        "SELECT :uid, p.proizvodid FROM PROIZVOD p WHERE p.proizvodid IN (:ids) ORDER BY p.proizvodid")
+                .setParameter("uid", idKorisnik)
+                .setParameter("ids", proizvodIds)
+                .executeUpdate();
+    }
+
+    // seat accounting and the sold-out check happen in trig_broj_slobodnih_mjesta, row by row in id order
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Long> reserve(Long idKorisnik, Collection<Long> radionicaIds) {
+        if (radionicaIds == null || radionicaIds.isEmpty()) return List.of();
+        List<Long> reserved = new ArrayList<>(toIds(em.createNativeQuery(
+                        "UPDATE REZERVACIJA SET statusrez = 'reserved' " +
+                        "WHERE idkorisnik = :uid AND idradionica IN (:ids) AND statusrez <> 'reserved' " +
+                        "RETURNING idradionica")
+                .setParameter("uid", idKorisnik)
+                .setParameter("ids", radionicaIds)
+                .getResultList()));
+        reserved.addAll(toIds(em.createNativeQuery(
+                        "INSERT INTO REZERVACIJA (idkorisnik, idradionica, statusrez) " +
+                        "SELECT :uid, r.idradionica, 'reserved' FROM RADIONICA r " +
+                        "WHERE r.idradionica IN (:ids) AND NOT EXISTS (" +
+                        "SELECT 1 FROM REZERVACIJA z WHERE z.idkorisnik = :uid AND z.idradionica = r.idradionica) " +
+                        "ORDER BY r.idradionica " +
+                        "RETURNING idradionica")
+                .setParameter("uid", idKorisnik)
+                .setParameter("ids", radionicaIds)
+                .getResultList()));
+        return reserved;
+    }
+
+    private static List<Long> toIds(List<Object> rows) {
+        List<Long> out = new ArrayList<>(rows.size());
+        for (Object v : rows) {
+            if (v instanceof Number) out.add(((Number) v).longValue());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,46 @@
+package com.clayplay.repository;
+
+import com.clayplay.dto.DigestEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@Repository
+public class DigestObjavaRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // a re-delivered announcement job records the same item only once
+    @Transactional
+    public boolean record(String type, Long objectId, Long organizerId) {
+        return em.createNativeQuery(
+                        "INSERT INTO DIGEST_OBJAVA (tip, idobjekt, idorganizator) VALUES (:tip, :oid, :org) " +
+                        "ON CONFLICT (tip, idobjekt) DO NOTHING")
+                .setParameter("tip", type)
+                .setParameter("oid", objectId)
+                .setParameter("org", organizerId)
+                .executeUpdate() > 0;
+    }
+
+    // removes and returns everything published before the cutoff; concurrent instances never claim the same row
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<DigestEntry> claimBefore(Instant cutoff) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "DELETE FROM DIGEST_OBJAVA WHERE idobjava IN (" +
+                        "SELECT idobjava FROM DIGEST_OBJAVA WHERE createdat < :cutoff FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING tip, idobjekt, idorganizator")
+                .setParameter("cutoff", OffsetDateTime.ofInstant(cutoff, ZoneOffset.UTC))
+                .getResultList();
+        return rows.stream()
+                .map(r -> new DigestEntry((String) r[0], ((Number) r[1]).longValue(), ((Number) r[2]).longValue()))
+                .toList();
+    }
+}
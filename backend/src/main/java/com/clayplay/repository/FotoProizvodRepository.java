@@ -5,6 +5,11 @@ import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Repository
 public class FotoProizvodRepository {
 
@@ -13,23 +18,32 @@ public class FotoProizvodRepository {
 
     @Transactional
     public void link(Long proizvodId, Long fotoId) {
-        em.createNativeQuery("INSERT INTO fotoProizvod (proizvodId, fotoId) VALUES (:pid, :fid)")
+        em.createNativeQuery("INSERT INTO fotoProizvod (proizvodId, fotoId) VALUES (:pid, :fid) ON CONFLICT DO NOTHING")
                 .setParameter("pid", proizvodId)
                 .setParameter("fid", fotoId)
                 .executeUpdate();
     }
 
-    public String findFirstImageUrl(Long proizvodId) {
-        try {
-            Object res = em.createNativeQuery(
-                            "SELECT f.fotoURL FROM fotoProizvod fp " +
-                            "JOIN FOTOGRAFIJA f ON f.fotoId = fp.fotoId " +
-                            "WHERE fp.proizvodId = :pid ORDER BY f.fotoId ASC LIMIT 1")
-                    .setParameter("pid", proizvodId)
-                    .getSingleResult();
-            return res != null ? String.valueOf(res) : null;
-        } catch (Exception e) {
-            return null;
+    @SuppressWarnings("unchecked")
+    public Map<Long, String> findFirstImageUrls(Collection<Long> proizvodIds) {
+        Map<Long, String> out = new HashMap<>();
+        if (proizvodIds == null || proizvodIds.isEmpty()) return out;
+        for (List<Long> batch : IdBatches.of(proizvodIds)) {
+            try {
+                List<Object[]> rows = em.createNativeQuery(
+                                "SELECT fp.proizvodId, f.fotoURL FROM fotoProizvod fp " +
+                                "JOIN FOTOGRAFIJA f ON f.fotoId = fp.fotoId " +
+                                "WHERE fp.proizvodId IN (:pids) ORDER BY fp.proizvodId ASC, f.fotoId ASC")
+                        .setParameter("pids", batch)
+                        .getResultList();
+                for (Object[] row : rows) {
+                    if (row[0] == null || row[1] == null) continue;
+                    out.putIfAbsent(((Number) row[0]).longValue(), String.valueOf(row[1]));
+                }
+            } catch (Exception e) {
+                return out;
+            }
         }
+        return out;
     }
 }
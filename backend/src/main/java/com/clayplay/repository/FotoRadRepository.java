@@ -5,6 +5,12 @@ import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Repository
 public class FotoRadRepository {
 
@@ -13,9 +19,26 @@ public class FotoRadRepository {
 
 	@Transactional
 	public void insertLink(Long fotoId, Long idRadionica) {
-		em.createNativeQuery("INSERT INTO fotorad (fotoId, idRadionica) VALUES (:fotoId, :idRadionica)")
+		em.createNativeQuery("INSERT INTO fotorad (fotoId, idRadionica) VALUES (:fotoId, :idRadionica) ON CONFLICT DO NOTHING")
 				.setParameter("fotoId", fotoId)
 				.setParameter("idRadionica", idRadionica)
 				.executeUpdate();
 	}
+
+	@SuppressWarnings("unchecked")
+	public Map<Long, List<String>> findUrlsByRadionicaIds(Collection<Long> radionicaIds) {
+		Map<Long, List<String>> out = new HashMap<>();
+		if (radionicaIds == null || radionicaIds.isEmpty()) return out;
+		List<Object[]> rows = em.createNativeQuery(
+						"SELECT fr.idRadionica, f.fotoURL FROM fotorad fr " +
+						"JOIN FOTOGRAFIJA f ON f.fotoId = fr.fotoId " +
+						"WHERE fr.idRadionica IN (:ids) ORDER BY fr.idRadionica ASC, f.fotoId ASC")
+				.setParameter("ids", radionicaIds)
+				.getResultList();
+		for (Object[] row : rows) {
+			if (row[0] == null || row[1] == null) continue;
+			out.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(String.valueOf(row[1]));
+		}
+		return out;
+	}
 }
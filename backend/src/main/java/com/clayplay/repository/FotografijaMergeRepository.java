@@ -0,0 +1,67 @@
+package com.clayplay.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// re-points FOTOGRAFIJA rows when the media store renames or merges blobs
+@Repository
+public class FotografijaMergeRepository {
+
+    // every table with a fotoid foreign key, as (table, other key column)
+    private static final String[][] LINK_TABLES = {
+            {"fotoProizvod", "proizvodId"},
+            {"fotorad", "idRadionica"},
+            {"izlozeni", "idIzlozba"},
+            {"fotoKomentar", "idKomentar"},
+    };
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional
+    public int renameUrl(String oldUrl, String newUrl) {
+        return em.createNativeQuery("UPDATE FOTOGRAFIJA SET fotoURL = :newUrl WHERE fotoURL = :oldUrl")
+                .setParameter("newUrl", newUrl)
+                .setParameter("oldUrl", oldUrl)
+                .executeUpdate();
+    }
+
+    // moves every reference from the photo at oldUrl to the one at newUrl and drops the old row;
+    // false when either row is missing, in which case nothing is changed
+    @Transactional
+    public boolean merge(String oldUrl, String newUrl) {
+        Long oldId = idOf(oldUrl);
+        Long newId = idOf(newUrl);
+        if (oldId == null || newId == null || oldId.equals(newId)) return false;
+
+        em.createNativeQuery("UPDATE KORISNIK SET fotoId = :newId WHERE fotoId = :oldId")
+                .setParameter("newId", newId)
+                .setParameter("oldId", oldId)
+                .executeUpdate();
+        for (String[] link : LINK_TABLES) {
+            em.createNativeQuery("INSERT INTO " + link[0] + " (" + link[1] + ", fotoId) " +
+                            "SELECT " + link[1] + ", :newId FROM " + link[0] + " WHERE fotoId = :oldId " +
+                            "ON CONFLICT DO NOTHING")
+                    .setParameter("newId", newId)
+                    .setParameter("oldId", oldId)
+                    .executeUpdate();
+        }
+        // the old link rows go with it through ON DELETE CASCADE
+        em.createNativeQuery("DELETE FROM FOTOGRAFIJA WHERE fotoId = :oldId")
+                .setParameter("oldId", oldId)
+                .executeUpdate();
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Long idOf(String url) {
+        List<Object> rows = em.createNativeQuery("SELECT fotoId FROM FOTOGRAFIJA WHERE fotoURL = :url")
+                .setParameter("url", url)
+                .getResultList();
+        return rows.isEmpty() ? null : ((Number) rows.get(0)).longValue();
+    }
+}
@@ -2,9 +2,11 @@ package com.clayplay.repository;
 
 import com.clayplay.model.Fotografija;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.List;
@@ -13,6 +15,22 @@ import java.util.List;
 public interface FotografijaRepository extends JpaRepository<Fotografija, Long> {
     Optional<Fotografija> findByFotoURL(String fotoURL);
 
+    // content-addressed uploads hand out the same URL for the same bytes, and fotourl is UNIQUE. Two
+    // concurrent uploads of one image both miss the lookup, so the insert must tolerate the other one
+    // winning; ON CONFLICT waits for that transaction and the re-read then sees its row. No conflict
+    // target: fotourl is the only unique key an insert can hit, and H2 in tests accepts only this form
+    default Fotografija findOrCreate(String fotoURL) {
+        return findByFotoURL(fotoURL).orElseGet(() -> {
+            insertIfAbsent(fotoURL);
+            return findByFotoURL(fotoURL).orElseThrow();
+        });
+    }
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO FOTOGRAFIJA (fotourl) VALUES (:url) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("url") String fotoURL);
+
     @Query(value = "select f.fotourl from fotografija f join fotorad fr on fr.fotoid = f.fotoid where fr.idradionica = :id", nativeQuery = true)
     List<String> findUrlsByRadionicaId(@Param("id") Long id);
 }
@@ -0,0 +1,23 @@
+package com.clayplay.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// splits an id list for IN (:ids) queries; PostgreSQL caps a statement at 32767 bind parameters, and
+// pgjdbc expands a collection into one parameter per element
+public final class IdBatches {
+
+    public static final int SIZE = 1000;
+
+    private IdBatches() {}
+
+    public static <T> List<List<T>> of(Collection<T> ids) {
+        List<T> all = new ArrayList<>(ids);
+        List<List<T>> out = new ArrayList<>((all.size() + SIZE - 1) / SIZE);
+        for (int from = 0; from < all.size(); from += SIZE) {
+            out.add(all.subList(from, Math.min(all.size(), from + SIZE)));
+        }
+        return out;
+    }
+}
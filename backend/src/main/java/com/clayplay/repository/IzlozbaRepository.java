@@ -1,12 +1,32 @@
 package com.clayplay.repository;
 
 import com.clayplay.model.Izlozba;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface IzlozbaRepository extends JpaRepository<Izlozba, Long> {
+	List<Izlozba> findAllByOrderByDatVrIzlozbaAscIdIzlozbaAsc(Pageable pageable);
+
+	@Query("select i from Izlozba i where (i.datVrIzlozba, i.idIzlozba) > (:at, :id) order by i.datVrIzlozba asc, i.idIzlozba asc")
+	List<Izlozba> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") Long id, Pageable pageable);
+
+	@Query("select i from Izlozba i where i.datVrIzlozba >= :now order by i.datVrIzlozba asc, i.idIzlozba asc")
+	List<Izlozba> findUpcoming(@Param("now") OffsetDateTime now, Pageable pageable);
+
+	@Query("select i from Izlozba i where i.datVrIzlozba >= :now and (i.datVrIzlozba, i.idIzlozba) > (:at, :id) order by i.datVrIzlozba asc, i.idIzlozba asc")
+	List<Izlozba> findUpcomingAfter(@Param("now") OffsetDateTime now, @Param("at") OffsetDateTime at, @Param("id") Long id, Pageable pageable);
+
+	@Query("select i from Izlozba i where i.datVrIzlozba < :now order by i.datVrIzlozba desc, i.idIzlozba desc")
+	List<Izlozba> findPast(@Param("now") OffsetDateTime now, Pageable pageable);
+
+	@Query("select i from Izlozba i where i.datVrIzlozba < :now and (i.datVrIzlozba, i.idIzlozba) < (:at, :id) order by i.datVrIzlozba desc, i.idIzlozba desc")
+	List<Izlozba> findPastBefore(@Param("now") OffsetDateTime now, @Param("at") OffsetDateTime at, @Param("id") Long id, Pageable pageable);
+
 	List<Izlozba> findByIdKorisnikOrderByDatVrIzlozbaAsc(Long idKorisnik);
 
 	List<Izlozba> findByIdKorisnikAndDatVrIzlozbaBeforeOrderByDatVrIzlozbaDesc(
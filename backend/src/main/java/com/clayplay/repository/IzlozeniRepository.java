@@ -5,8 +5,11 @@ import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Repository
 public class IzlozeniRepository {
@@ -16,26 +19,32 @@ public class IzlozeniRepository {
 
     @Transactional
     public void link(Long idIzlozba, Long fotoId) {
-        em.createNativeQuery("INSERT INTO izlozeni (fotoId, idIzlozba) VALUES (:fid, :eid)")
+        em.createNativeQuery("INSERT INTO izlozeni (fotoId, idIzlozba) VALUES (:fid, :eid) ON CONFLICT DO NOTHING")
                 .setParameter("fid", fotoId)
                 .setParameter("eid", idIzlozba)
                 .executeUpdate();
     }
 
+    // chunked with IdBatches so the legacy unpaged list stays under the bind limit; a failing query
+    // propagates instead of silently dropping every image
     @SuppressWarnings("unchecked")
-    public List<String> findImageUrls(Long idIzlozba) {
-        try {
-            List<Object> res = em.createNativeQuery(
-                            "SELECT f.fotoURL FROM izlozeni i " +
+    public Map<Long, List<String>> findImageUrls(Collection<Long> idIzlozbe) {
+        Map<Long, List<String>> out = new HashMap<>();
+        if (idIzlozbe == null || idIzlozbe.isEmpty()) return out;
+        for (List<Long> batch : IdBatches.of(idIzlozbe)) {
+            List<Object[]> rows = em.createNativeQuery(
+                            "SELECT i.idIzlozba, f.fotoURL FROM izlozeni i " +
                             "JOIN FOTOGRAFIJA f ON f.fotoId = i.fotoId " +
-                            "WHERE i.idIzlozba = :eid ORDER BY f.fotoId ASC")
-                    .setParameter("eid", idIzlozba)
+                            "WHERE i.idIzlozba IN (:eids) ORDER BY i.idIzlozba ASC, f.fotoId ASC")
+                    .setParameter("eids", batch)
                     .getResultList();
-            return res.stream().map(v -> v != null ? String.valueOf(v) : null)
-                    .filter(v -> v != null && !v.isBlank())
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            return List.of();
+            for (Object[] row : rows) {
+                if (row[0] == null || row[1] == null) continue;
+                String url = String.valueOf(row[1]);
+                if (url.isBlank()) continue;
+                out.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(url);
+            }
         }
+        return out;
     }
 }
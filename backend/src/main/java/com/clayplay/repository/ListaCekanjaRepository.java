@@ -0,0 +1,67 @@
+package com.clayplay.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public class ListaCekanjaRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional
+    public boolean join(Long idKorisnik, Long idRadionica) {
+        return em.createNativeQuery(
+                        "INSERT INTO LISTA_CEKANJA (idradionica, idkorisnik) VALUES (:wid, :uid) " +
+                        "ON CONFLICT (idradionica, idkorisnik) DO NOTHING")
+                .setParameter("wid", idRadionica)
+                .setParameter("uid", idKorisnik)
+                .executeUpdate() > 0;
+    }
+
+    @Transactional
+    public boolean leave(Long idKorisnik, Long idRadionica) {
+        return em.createNativeQuery("DELETE FROM LISTA_CEKANJA WHERE idradionica = :wid AND idkorisnik = :uid")
+                .setParameter("wid", idRadionica)
+                .setParameter("uid", idKorisnik)
+                .executeUpdate() > 0;
+    }
+
+    // one probe of idx_lista_cekanja_radionica_red, however long the queue is
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Long popHead(Long idRadionica) {
+        List<Object> rows = em.createNativeQuery(
+                        "DELETE FROM LISTA_CEKANJA WHERE idcekanja = (" +
+                        "SELECT idcekanja FROM LISTA_CEKANJA WHERE idradionica = :wid " +
+                        "ORDER BY idcekanja LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING idkorisnik")
+                .setParameter("wid", idRadionica)
+                .getResultList();
+        return rows.isEmpty() ? null : ((Number) rows.get(0)).longValue();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasWaiting(Long idRadionica) {
+        return !em.createNativeQuery("SELECT 1 FROM LISTA_CEKANJA WHERE idradionica = :wid LIMIT 1")
+                .setParameter("wid", idRadionica)
+                .getResultList()
+                .isEmpty();
+    }
+
+    // 1-based; 0 when the user is not queued
+    @Transactional(readOnly = true)
+    public long position(Long idKorisnik, Long idRadionica) {
+        Object n = em.createNativeQuery(
+                        "SELECT COUNT(*) FROM LISTA_CEKANJA w WHERE w.idradionica = :wid AND w.idcekanja <= (" +
+                        "SELECT m.idcekanja FROM LISTA_CEKANJA m WHERE m.idradionica = :wid AND m.idkorisnik = :uid)")
+                .setParameter("wid", idRadionica)
+                .setParameter("uid", idKorisnik)
+                .getSingleResult();
+        return n == null ? 0 : ((Number) n).longValue();
+    }
+}
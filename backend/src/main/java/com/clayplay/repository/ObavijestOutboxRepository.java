@@ -0,0 +1,107 @@
+package com.clayplay.repository;
+
+import com.clayplay.dto.OutboxMessage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ObavijestOutboxRepository {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // joins the caller's transaction so the row commits or rolls back with the business change
+    @Transactional
+    public void enqueue(String tip, String payload) {
+        em.createNativeQuery("INSERT INTO OBAVIJEST_OUTBOX (tip, payload) VALUES (:tip, :payload)")
+                .setParameter("tip", tip)
+                .setParameter("payload", payload)
+                .executeUpdate();
+    }
+
+    // expired leases are reclaimed, so a worker that died mid-delivery does not strand its rows
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<OutboxMessage> claim(int limit, int leaseSeconds) {
+        if (limit <= 0) return List.of();
+        List<Object[]> rows = em.createNativeQuery(
+                        "UPDATE OBAVIJEST_OUTBOX SET status = 'PROCESSING', pokusaji = pokusaji + 1, " +
+                        "zakljucanodo = now() + (:lease * interval '1 second'), updatedat = now() " +
+                        "WHERE idobavijest IN (" +
+                        "SELECT idobavijest FROM OBAVIJEST_OUTBOX " +
+                        "WHERE (status = 'PENDING' AND sljedecipokusaj <= now()) " +
+                        "OR (status = 'PROCESSING' AND zakljucanodo < now()) " +
+                        "ORDER BY sljedecipokusaj, idobavijest LIMIT :n FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING idobavijest, tip, payload, pokusaji")
+                .setParameter("lease", leaseSeconds)
+                .setParameter("n", limit)
+                .getResultList();
+        List<OutboxMessage> out = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            out.add(new OutboxMessage(((Number) r[0]).longValue(), (String) r[1], (String) r[2], ((Number) r[3]).intValue()));
+        }
+        return out;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        em.createNativeQuery("DELETE FROM OBAVIJEST_OUTBOX WHERE idobavijest = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public void reschedule(Long id, Instant nextAttempt, String error) {
+        em.createNativeQuery(
+                        "UPDATE OBAVIJEST_OUTBOX SET status = 'PENDING', sljedecipokusaj = :next, zakljucanodo = NULL, " +
+                        "greska = :err, updatedat = now() WHERE idobavijest = :id")
+                .setParameter("next", OffsetDateTime.ofInstant(nextAttempt, ZoneOffset.UTC))
+                .setParameter("err", truncate(error))
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public void deadLetter(Long id, String error) {
+        em.createNativeQuery(
+                        "UPDATE OBAVIJEST_OUTBOX SET status = 'DEAD', zakljucanodo = NULL, greska = :err, updatedat = now() " +
+                        "WHERE idobavijest = :id")
+                .setParameter("err", truncate(error))
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public int retryDead() {
+        return em.createNativeQuery(
+                        "UPDATE OBAVIJEST_OUTBOX SET status = 'PENDING', pokusaji = 0, sljedecipokusaj = now(), updatedat = now() " +
+                        "WHERE status = 'DEAD'")
+                .executeUpdate();
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        List<Object[]> rows = em.createNativeQuery("SELECT status, COUNT(*) FROM OBAVIJEST_OUTBOX GROUP BY status").getResultList();
+        for (Object[] r : rows) out.put(String.valueOf(r[0]).toLowerCase(), ((Number) r[1]).longValue());
+        return out;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,92 @@
+package com.clayplay.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class OcjenaProdavacaRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public static final class Totals {
+        public final long sum;
+        public final long count;
+
+        public Totals(long sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+    }
+
+    @Transactional
+    public void addReview(Long sellerId, Long proizvodId, int ocjena) {
+        em.createNativeQuery(
+                        "INSERT INTO OCJENA_PROIZVODA (proizvodid, idkorisnik, zbrojocjena, brojrecenzija) " +
+                        "VALUES (:pid, :sid, :ocjena, 1) " +
+                        "ON CONFLICT (proizvodid) DO UPDATE SET " +
+                        "zbrojocjena = OCJENA_PROIZVODA.zbrojocjena + EXCLUDED.zbrojocjena, " +
+                        "brojrecenzija = OCJENA_PROIZVODA.brojrecenzija + 1")
+                .setParameter("pid", proizvodId)
+                .setParameter("sid", sellerId)
+                .setParameter("ocjena", ocjena)
+                .executeUpdate();
+        em.createNativeQuery(
+                        "INSERT INTO OCJENA_PRODAVACA (idkorisnik, zbrojocjena, brojrecenzija) " +
+                        "VALUES (:sid, :ocjena, 1) " +
+                        "ON CONFLICT (idkorisnik) DO UPDATE SET " +
+                        "zbrojocjena = OCJENA_PRODAVACA.zbrojocjena + EXCLUDED.zbrojocjena, " +
+                        "brojrecenzija = OCJENA_PRODAVACA.brojrecenzija + 1")
+                .setParameter("sid", sellerId)
+                .setParameter("ocjena", ocjena)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public int rebuildFromReviews() {
+        em.createNativeQuery("LOCK TABLE RECENZIJA IN SHARE MODE").executeUpdate();
+        em.createNativeQuery("DELETE FROM OCJENA_PROIZVODA").executeUpdate();
+        em.createNativeQuery("DELETE FROM OCJENA_PRODAVACA").executeUpdate();
+        em.createNativeQuery(
+                        "INSERT INTO OCJENA_PROIZVODA (proizvodid, idkorisnik, zbrojocjena, brojrecenzija) " +
+                        "SELECT r.proizvodid, p.idkorisnik, SUM(r.ocjena), COUNT(*) FROM RECENZIJA r " +
+                        "JOIN PROIZVOD p ON p.proizvodid = r.proizvodid " +
+                        "WHERE p.kupljen = TRUE GROUP BY r.proizvodid, p.idkorisnik")
+                .executeUpdate();
+        return em.createNativeQuery(
+                        "INSERT INTO OCJENA_PRODAVACA (idkorisnik, zbrojocjena, brojrecenzija) " +
+                        "SELECT idkorisnik, SUM(zbrojocjena), SUM(brojrecenzija) FROM OCJENA_PROIZVODA " +
+                        "GROUP BY idkorisnik")
+                .executeUpdate();
+    }
+
+    public Map<Long, Totals> findSellerTotals(Collection<Long> sellerIds) {
+        return totals("SELECT idkorisnik, zbrojocjena, brojrecenzija FROM OCJENA_PRODAVACA WHERE idkorisnik IN (:ids)", sellerIds);
+    }
+
+    public Map<Long, Totals> findProductTotals(Collection<Long> proizvodIds) {
+        return totals("SELECT proizvodid, zbrojocjena, brojrecenzija FROM OCJENA_PROIZVODA WHERE proizvodid IN (:ids)", proizvodIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Totals> totals(String sql, Collection<Long> ids) {
+        Map<Long, Totals> out = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return out;
+        for (List<Long> batch : IdBatches.of(ids)) {
+            List<Object[]> rows = em.createNativeQuery(sql)
+                    .setParameter("ids", batch)
+                    .getResultList();
+            for (Object[] row : rows) {
+                out.put(((Number) row[0]).longValue(), new Totals(((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+            }
+        }
+        return out;
+    }
+}
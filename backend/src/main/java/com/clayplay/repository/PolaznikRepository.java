@@ -1,12 +1,41 @@
 package com.clayplay.repository;
 
+import com.clayplay.dto.NotificationRecipient;
 import com.clayplay.model.Polaznik;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PolaznikRepository extends JpaRepository<Polaznik, Long> {
     boolean existsByIdKorisnik(Long idKorisnik);
 
     Optional<Polaznik> findByIdKorisnik(Long idKorisnik);
+
+    // scalar projection read through a server-side cursor, so nothing lands in the persistence context.
+    // digest-mode polaznici are left out; they get the window's announcements in one email instead
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new com.clayplay.dto.NotificationRecipient(k.idKorisnik, trim(k.email), k.ime) " +
+            "from Polaznik p join p.korisnik k " +
+            "where p.zeliObavijesti = true and p.nacinObavijesti <> 'DIGEST' and upper(k.status) <> 'BLOCKED' " +
+            "and k.email is not null and trim(k.email) <> '' " +
+            "order by k.idKorisnik")
+    Stream<NotificationRecipient> streamSubscribedRecipients();
+
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new com.clayplay.dto.NotificationRecipient(k.idKorisnik, trim(k.email), k.ime) " +
+            "from Polaznik p join p.korisnik k " +
+            "where p.zeliObavijesti = true and p.nacinObavijesti = 'DIGEST' and upper(k.status) <> 'BLOCKED' " +
+            "and k.email is not null and trim(k.email) <> '' " +
+            "order by k.idKorisnik")
+    Stream<NotificationRecipient> streamDigestRecipients();
 }
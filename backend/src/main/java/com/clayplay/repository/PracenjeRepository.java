@@ -0,0 +1,166 @@
+package com.clayplay.repository;
+
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.dto.NotificationRecipient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@Repository
+public class PracenjeRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional
+    public boolean follow(Long idKorisnik, Long idOrganizator) {
+        return em.createNativeQuery(
+                        "INSERT INTO PRACENJE (idorganizator, idkorisnik) VALUES (:oid, :uid) " +
+                        "ON CONFLICT (idorganizator, idkorisnik) DO NOTHING")
+                .setParameter("oid", idOrganizator)
+                .setParameter("uid", idKorisnik)
+                .executeUpdate() > 0;
+    }
+
+    @Transactional
+    public boolean unfollow(Long idKorisnik, Long idOrganizator) {
+        return em.createNativeQuery("DELETE FROM PRACENJE WHERE idorganizator = :oid AND idkorisnik = :uid")
+                .setParameter("oid", idOrganizator)
+                .setParameter("uid", idKorisnik)
+                .executeUpdate() > 0;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isFollowing(Long idKorisnik, Long idOrganizator) {
+        return !em.createNativeQuery("SELECT 1 FROM PRACENJE WHERE idorganizator = :oid AND idkorisnik = :uid")
+                .setParameter("oid", idOrganizator)
+                .setParameter("uid", idKorisnik)
+                .getResultList()
+                .isEmpty();
+    }
+
+    @Transactional(readOnly = true)
+    public long countFollowers(Long idOrganizator) {
+        Object n = em.createNativeQuery("SELECT COUNT(*) FROM PRACENJE WHERE idorganizator = :oid")
+                .setParameter("oid", idOrganizator)
+                .getSingleResult();
+        return n == null ? 0 : ((Number) n).longValue();
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<Long> followedOrganizers(Long idKorisnik) {
+        List<Object> rows = em.createNativeQuery(
+                        "SELECT idorganizator FROM PRACENJE WHERE idkorisnik = :uid ORDER BY createdat DESC")
+                .setParameter("uid", idKorisnik)
+                .getResultList();
+        return rows.stream().map(r -> ((Number) r).longValue()).toList();
+    }
+
+    // same shape and filters as PolaznikRepository.streamSubscribedRecipients, walking only this organizer's PK range
+    @SuppressWarnings("unchecked")
+    public Stream<NotificationRecipient> streamFollowerRecipients(Long idOrganizator) {
+        Stream<Object[]> rows = em.createNativeQuery(
+                        "SELECT k.idkorisnik, trim(k.email), k.ime FROM PRACENJE f " +
+                        "JOIN KORISNIK k ON k.idkorisnik = f.idkorisnik " +
+                        "JOIN POLAZNIK p ON p.idkorisnik = f.idkorisnik " +
+                        "WHERE f.idorganizator = :oid AND p.zeliobavijesti = true AND p.nacinobavijesti <> 'DIGEST' " +
+                        "AND upper(k.status) <> 'BLOCKED' " +
+                        "AND k.email IS NOT NULL AND trim(k.email) <> '' " +
+                        "ORDER BY f.idkorisnik")
+                .setParameter("oid", idOrganizator)
+                .setHint("org.hibernate.fetchSize", 500)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+        return rows.map(r -> new NotificationRecipient(((Number) r[0]).longValue(), (String) r[1], (String) r[2]));
+    }
+
+    // digest-mode followers of any of the given organizers, one row per (recipient, organizer), grouped by
+    // recipient. Each IdBatches chunk is its own query; the chunks are merged on the recipient id so a
+    // recipient following organizers from different chunks still arrives as one run of rows
+    public Stream<DigestSubscription> streamDigestFollowers(Collection<Long> organizerIds) {
+        if (organizerIds == null || organizerIds.isEmpty()) return Stream.empty();
+        List<List<Long>> chunks = IdBatches.of(organizerIds);
+        if (chunks.size() == 1) return streamDigestFollowerChunk(chunks.get(0));
+        List<Stream<DigestSubscription>> streams = new ArrayList<>(chunks.size());
+        try {
+            for (List<Long> chunk : chunks) streams.add(streamDigestFollowerChunk(chunk));
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        return mergeByUser(streams);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<DigestSubscription> streamDigestFollowerChunk(List<Long> organizerIds) {
+        Stream<Object[]> rows = em.createNativeQuery(
+                        "SELECT k.idkorisnik, trim(k.email), k.ime, f.idorganizator FROM PRACENJE f " +
+                        "JOIN KORISNIK k ON k.idkorisnik = f.idkorisnik " +
+                        "JOIN POLAZNIK p ON p.idkorisnik = f.idkorisnik " +
+                        "WHERE f.idorganizator IN (:oids) AND p.zeliobavijesti = true AND p.nacinobavijesti = 'DIGEST' " +
+                        "AND upper(k.status) <> 'BLOCKED' " +
+                        "AND k.email IS NOT NULL AND trim(k.email) <> '' " +
+                        "ORDER BY f.idkorisnik")
+                .setParameter("oids", organizerIds)
+                .setHint("org.hibernate.fetchSize", 500)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+        return rows.map(r -> new DigestSubscription(((Number) r[0]).longValue(), (String) r[1], (String) r[2],
+                ((Number) r[3]).longValue()));
+    }
+
+    // k-way merge of streams that are each ordered by user id; closing the result closes every input
+    static Stream<DigestSubscription> mergeByUser(List<Stream<DigestSubscription>> streams) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head h) -> h.row.getUserId()));
+        Iterator<DigestSubscription> merged = new Iterator<>() {
+            boolean started;
+
+            @Override
+            public boolean hasNext() {
+                if (!started) {
+                    started = true;
+                    for (Stream<DigestSubscription> s : streams) Head.push(heads, s.iterator());
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public DigestSubscription next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Head head = heads.poll();
+                Head.push(heads, head.rest);
+                return head.row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    private static final class Head {
+        final DigestSubscription row;
+        final Iterator<DigestSubscription> rest;
+
+        private Head(DigestSubscription row, Iterator<DigestSubscription> rest) {
+            this.row = row;
+            this.rest = rest;
+        }
+
+        static void push(PriorityQueue<Head> heads, Iterator<DigestSubscription> it) {
+            if (it.hasNext()) heads.add(new Head(it.next(), it));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.clayplay.repository;
 
 import com.clayplay.model.Proizvod;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,7 @@ import java.util.List;
 public interface ProizvodRepository extends JpaRepository<Proizvod, Long> {
 	List<Proizvod> findByIdKorisnikOrderByProizvodIdDesc(Long idKorisnik);
 	List<Proizvod> findByKupljenFalseOrderByProizvodIdDesc();
+	long countByKupljenFalse();
+	List<Proizvod> findByKupljenFalseOrderByProizvodIdDesc(Pageable pageable);
+	List<Proizvod> findByKupljenFalseAndProizvodIdLessThanOrderByProizvodIdDesc(Long proizvodId, Pageable pageable);
 }
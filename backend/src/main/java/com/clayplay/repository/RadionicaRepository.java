@@ -3,6 +3,8 @@ package com.clayplay.repository;
 import com.clayplay.model.Radionica;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -11,6 +13,11 @@ import java.util.Optional;
 public interface RadionicaRepository extends JpaRepository<Radionica, Long> {
     List<Radionica> findAllByOrderByDatVrRadionicaAsc(Pageable pageable);
 
+    List<Radionica> findAllByOrderByDatVrRadionicaAscIdRadionicaAsc(Pageable pageable);
+
+    @Query("select r from Radionica r where (r.datVrRadionica, r.idRadionica) > (:at, :id) order by r.datVrRadionica asc, r.idRadionica asc")
+    List<Radionica> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") Long id, Pageable pageable);
+
     List<Radionica> findByIdKorisnikOrderByDatVrRadionicaAsc(Long idKorisnik);
 
     List<Radionica> findByIdKorisnikAndDatVrRadionicaBeforeOrderByDatVrRadionicaDesc(
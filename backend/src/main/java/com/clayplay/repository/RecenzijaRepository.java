@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,12 +16,6 @@ public interface RecenzijaRepository extends JpaRepository<Recenzija, Long> {
     boolean existsByProizvodIdAndIdKorisnik(Long proizvodId, Long idKorisnik);
     Optional<Recenzija> findByProizvodIdAndIdKorisnik(Long proizvodId, Long idKorisnik);
 
-    @Query("select avg(r.ocjena) from Recenzija r join Proizvod p on p.proizvodId = r.proizvodId where p.idKorisnik = :sellerId and p.kupljen = true and p.proizvodId <> :excludeId")
-    Double avgRatingForSellerExcluding(@Param("sellerId") Long sellerId, @Param("excludeId") Long excludeId);
-
-    @Query("select count(r) from Recenzija r join Proizvod p on p.proizvodId = r.proizvodId where p.idKorisnik = :sellerId and p.kupljen = true and p.proizvodId <> :excludeId")
-    Long countReviewsForSellerExcluding(@Param("sellerId") Long sellerId, @Param("excludeId") Long excludeId);
-
-    @Query("select r.textRecenzija from Recenzija r join Proizvod p on p.proizvodId = r.proizvodId where p.idKorisnik = :sellerId and p.kupljen = true and p.proizvodId <> :excludeId and r.textRecenzija is not null and r.textRecenzija <> '' order by r.idRecenzija desc")
-    List<String> commentTextsForSellerExcluding(@Param("sellerId") Long sellerId, @Param("excludeId") Long excludeId);
+    @Query("select p.idKorisnik, p.proizvodId, r.textRecenzija from Recenzija r join Proizvod p on p.proizvodId = r.proizvodId where p.idKorisnik in :sellerIds and p.kupljen = true and r.textRecenzija is not null and r.textRecenzija <> '' order by r.idRecenzija desc")
+    List<Object[]> commentTextsForSellers(@Param("sellerIds") Collection<Long> sellerIds);
 }
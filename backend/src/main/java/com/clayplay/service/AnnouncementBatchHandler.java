@@ -0,0 +1,129 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.ProizvodRepository;
+import com.clayplay.repository.RadionicaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// one transport batch of a product or workshop announcement. The fan-out only writes these rows, so it
+// finishes in one short transaction; each row is then sent on its own, well inside the outbox lease,
+// without a database transaction or cursor open. A retried row re-sends at most its own batch
+@Component
+public class AnnouncementBatchHandler implements OutboxHandler {
+
+    public static final String TYPE = "ANNOUNCEMENT_BATCH";
+
+    private static final Logger log = LoggerFactory.getLogger(AnnouncementBatchHandler.class);
+
+    private final BatchedMailTransport mailTransport;
+    private final ProizvodRepository proizvodRepository;
+    private final RadionicaRepository radionicaRepository;
+    private final NotificationOutbox outbox;
+    private final NotificationRenderer renderer;
+    private final TransactionTemplate readOnly;
+
+    public AnnouncementBatchHandler(
+            BatchedMailTransport mailTransport,
+            ProizvodRepository proizvodRepository,
+            RadionicaRepository radionicaRepository,
+            NotificationOutbox outbox,
+            NotificationRenderer renderer,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.mailTransport = mailTransport;
+        this.proizvodRepository = proizvodRepository;
+        this.radionicaRepository = radionicaRepository;
+        this.outbox = outbox;
+        this.renderer = renderer;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    // kind is NotificationDigestService.PRODUCT or WORKSHOP
+    public static Map<String, Object> payload(String kind, Long organizerId, Long targetId,
+                                              List<NotificationRecipient> recipients) {
+        List<Map<String, Object>> rows = new ArrayList<>(recipients.size());
+        for (NotificationRecipient r : recipients) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("userId", r.getUserId());
+            row.put("email", r.getEmail());
+            if (r.getFirstName() != null) row.put("firstName", r.getFirstName());
+            rows.add(row);
+        }
+        return Map.of("kind", kind, "organizerId", organizerId, "targetId", targetId, "recipients", rows);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Map<String, Object> payload) {
+        String kind = String.valueOf(payload.get("kind"));
+        Long organizerId = ((Number) payload.get("organizerId")).longValue();
+        Long targetId = ((Number) payload.get("targetId")).longValue();
+        // the target and organizer are read in a short transaction that is closed before anything is sent
+        NotificationRenderer.Announcement announcement = readOnly.execute(status -> announcement(kind, organizerId, targetId));
+        if (announcement == null) return;
+
+        List<SimpleMailMessage> batch = new ArrayList<>();
+        // one bad recipient is logged and skipped; it must not cost the rest of the batch their email
+        for (Map<String, Object> row : (List<Map<String, Object>>) payload.getOrDefault("recipients", List.of())) {
+            try {
+                Object userId = row.get("userId");
+                NotificationRecipient recipient = new NotificationRecipient(
+                        userId instanceof Number n ? n.longValue() : null,
+                        (String) row.get("email"),
+                        (String) row.get("firstName"));
+                batch.add(announcement.render(recipient));
+            } catch (RuntimeException e) {
+                log.warn("Skipping {} notification recipient {}: {}", kind, row.get("userId"), e.getMessage());
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        BatchedMailTransport.Result result = mailTransport.send(batch);
+        // the batch is already out, so a failure here only loses that one retry instead of re-sending everyone
+        result.getDeferred().forEach((msg, e) -> {
+            try {
+                outbox.enqueue(EmailOutboxHandler.TYPE, EmailOutboxHandler.payload(msg));
+            } catch (RuntimeException ex) {
+                log.warn("Could not queue retry of {} notification email to {}: {}", kind, msg.getTo()[0], ex.getMessage());
+            }
+        });
+        if (!result.getDeferred().isEmpty()) {
+            log.warn("Deferred {} {} notification emails to outbox: {}", result.getDeferred().size(), kind,
+                    result.getDeferred().values().iterator().next().getMessage());
+        }
+        result.getFailed().forEach((msg, e) ->
+                log.warn("{} notification email to {} refused: {}", kind, msg.getTo()[0], e.getMessage()));
+        log.info("Announcement batch finished. kind={}, targetId={}, sent={}, deferred={}, failed={}",
+                kind, targetId, result.getSent(), result.getDeferred().size(), result.getFailed().size());
+    }
+
+    private NotificationRenderer.Announcement announcement(String kind, Long organizerId, Long targetId) {
+        if (NotificationDigestService.PRODUCT.equals(kind)) {
+            Proizvod p = proizvodRepository.findById(targetId).orElse(null);
+            return p == null ? null : renderer.product(organizerId, p);
+        }
+        if (NotificationDigestService.WORKSHOP.equals(kind)) {
+            Radionica r = radionicaRepository.findById(targetId).orElse(null);
+            return r == null ? null : renderer.workshop(organizerId, r);
+        }
+        throw new IllegalArgumentException("Unknown announcement kind " + kind);
+    }
+}
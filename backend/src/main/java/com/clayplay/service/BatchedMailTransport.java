@@ -0,0 +1,268 @@
+package com.clayplay.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+// keeps a few authenticated SMTP connections open between fan-outs instead of one handshake per message
+@Service
+public class BatchedMailTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchedMailTransport.class);
+
+    // deferred = transient (4xx, dropped connection, rate wait exceeded) and worth re-queuing; failed = refused for good
+    public static final class Result {
+        private int sent;
+        private final Map<SimpleMailMessage, Exception> deferred = new LinkedHashMap<>();
+        private final Map<SimpleMailMessage, Exception> failed = new LinkedHashMap<>();
+
+        public int getSent() { return sent; }
+        public Map<SimpleMailMessage, Exception> getDeferred() { return deferred; }
+        public Map<SimpleMailMessage, Exception> getFailed() { return failed; }
+    }
+
+    private final class Connection {
+        final Transport transport;
+        boolean open;
+        long lastUsed;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        // Transport.isConnected() costs a NOOP round trip, so it is only asked after a failure
+        void ensureOpen() throws MessagingException {
+            if (open) return;
+            String user = sender.getUsername();
+            transport.connect(sender.getHost(), sender.getPort(),
+                    user == null || user.isBlank() ? null : user,
+                    user == null || user.isBlank() ? null : sender.getPassword());
+            open = true;
+            opened.increment();
+        }
+
+        void close() {
+            open = false;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+            }
+        }
+    }
+
+    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl sender;
+    private final MailRateLimiter limiter;
+    private final int batchSize;
+    private final long idleMillis;
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    private final LongAdder sentTotal = new LongAdder();
+    private final LongAdder deferredTotal = new LongAdder();
+    private final LongAdder failedTotal = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    @Autowired
+    public BatchedMailTransport(JavaMailSender mailSender,
+                                MailRateLimiter limiter,
+                                @Value("${mail.batch-size:50}") int batchSize,
+                                @Value("${mail.pool-size:2}") int poolSize,
+                                @Value("${mail.idle-timeout-ms:30000}") long idleMillis) {
+        this.mailSender = mailSender;
+        this.sender = mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.limiter = limiter;
+        this.batchSize = Math.max(1, batchSize);
+        this.permits = new Semaphore(Math.max(1, poolSize));
+        this.idleMillis = Math.max(1000, idleMillis);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Result send(List<SimpleMailMessage> messages) {
+        Result result = new Result();
+        if (messages == null || messages.isEmpty()) return result;
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<SimpleMailMessage> chunk = messages.subList(from, Math.min(messages.size(), from + batchSize));
+            if (sender == null) sendViaTemplate(chunk, result);
+            else sendPooled(chunk, result);
+        }
+        sentTotal.add(result.sent);
+        deferredTotal.add(result.deferred.size());
+        failedTotal.add(result.failed.size());
+        return result;
+    }
+
+    private void sendPooled(List<SimpleMailMessage> chunk, Result result) {
+        Connection c = borrow();
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                if (deliver(c, chunk.get(i), result)) continue;
+                // the server stayed unreachable after a reconnect, so the rest of the chunk would only time out too
+                Exception cause = result.deferred.get(chunk.get(i));
+                for (SimpleMailMessage rest : chunk.subList(i + 1, chunk.size())) result.deferred.put(rest, cause);
+                break;
+            }
+        } finally {
+            giveBack(c);
+        }
+    }
+
+    // a dropped connection is reopened and the message retried once; on a live connection the reply code
+    // decides between throttled (4xx) and refused. returns false only when the connection could not be brought back
+    private boolean deliver(Connection c, SimpleMailMessage msg, Result result) {
+        MimeMessage mime;
+        try {
+            mime = sender.createMimeMessage();
+            if (msg instanceof NotificationMail nm && nm.getHtml() != null) {
+                // multipart/alternative: clients without HTML support show the plain-text part
+                MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
+                msg.copyTo(new MimeMailMessage(helper));
+                helper.setText(nm.getText(), nm.getHtml());
+            } else {
+                msg.copyTo(new MimeMailMessage(mime));
+            }
+            mime.saveChanges();
+        } catch (MessagingException | MailException e) {
+            result.failed.put(msg, e);
+            return true;
+        }
+        if (!limiter.acquire()) {
+            result.deferred.put(msg, new MailSendException("Send rate limit wait exceeded"));
+            return true;
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                c.ensureOpen();
+                c.transport.sendMessage(mime, mime.getAllRecipients());
+                result.sent++;
+                return true;
+            } catch (MessagingException e) {
+                boolean dropped = !isConnected(c);
+                if (!dropped) {
+                    int code = replyCode(e);
+                    if (code >= 500) {
+                        result.failed.put(msg, e);
+                    } else {
+                        if (code >= 400) limiter.onThrottled();
+                        result.deferred.put(msg, e);
+                    }
+                    return true;
+                }
+                if (attempt > 0) {
+                    result.deferred.put(msg, e);
+                    c.close();
+                    return false;
+                }
+                reconnects.increment();
+                c.close();
+            }
+        }
+    }
+
+    private void sendViaTemplate(List<SimpleMailMessage> chunk, Result result) {
+        try {
+            mailSender.send(chunk.toArray(new SimpleMailMessage[0]));
+            result.sent += chunk.size();
+        } catch (MailException e) {
+            for (SimpleMailMessage msg : chunk) result.deferred.put(msg, e);
+        }
+    }
+
+    static int replyCode(Exception e) {
+        for (Exception cur = e; cur != null; ) {
+            if (cur instanceof SMTPSendFailedException sf) return sf.getReturnCode();
+            if (cur instanceof SMTPAddressFailedException af) return af.getReturnCode();
+            cur = cur instanceof MessagingException me ? me.getNextException() : null;
+        }
+        return -1;
+    }
+
+    private static boolean isConnected(Connection c) {
+        try {
+            return c.transport.isConnected();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Connection borrow() {
+        permits.acquireUninterruptibly();
+        try {
+            Connection c = idle.pollFirst();
+            return c != null ? c : new Connection(sender.getSession().getTransport(protocol()));
+        } catch (MessagingException e) {
+            permits.release();
+            throw new IllegalStateException("SMTP transport unavailable", e);
+        }
+    }
+
+    private void giveBack(Connection c) {
+        c.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(c);
+        permits.release();
+    }
+
+    private String protocol() {
+        String p = sender.getProtocol();
+        return p == null || p.isBlank() ? "smtp" : p;
+    }
+
+    @Scheduled(fixedDelayString = "${mail.idle-check-ms:15000}")
+    public void closeIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        Iterator<Connection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            Connection c = it.next();
+            if (c.lastUsed < cutoff && idle.removeLastOccurrence(c)) c.close();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sent", sentTotal.sum());
+        out.put("deferred", deferredTotal.sum());
+        out.put("failed", failedTotal.sum());
+        out.put("connectionsOpened", opened.sum());
+        out.put("reconnects", reconnects.sum());
+        out.put("idleConnections", (long) idle.size());
+        out.putAll(limiter.stats());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Connection> all = new ArrayList<>();
+        idle.drainTo(all);
+        all.forEach(Connection::close);
+        if (!all.isEmpty()) log.info("Closed {} pooled SMTP connections", all.size());
+    }
+}
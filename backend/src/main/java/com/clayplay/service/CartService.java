@@ -1,15 +1,14 @@
 package com.clayplay.service;
 
 import com.clayplay.model.CartItem;
-import com.clayplay.model.Kupovina;
 import com.clayplay.model.Proizvod;
 import com.clayplay.model.Radionica;
-import com.clayplay.model.Rezervacija;
 import com.clayplay.repository.CartItemRepository;
-import com.clayplay.repository.KupovinaRepository;
+import com.clayplay.repository.CheckoutBatchRepository;
 import com.clayplay.repository.ProizvodRepository;
 import com.clayplay.repository.RadionicaRepository;
-import com.clayplay.repository.RezervacijaRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,10 +16,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 @Service
 public class CartService {
@@ -30,61 +32,76 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final ProizvodRepository proizvodRepository;
     private final RadionicaRepository radionicaRepository;
-    private final KupovinaRepository kupovinaRepository;
-    private final RezervacijaRepository rezervacijaRepository;
+    private final CheckoutBatchRepository checkoutBatchRepository;
+    private final SeatHolds seatHolds;
+    private final ApplicationEventPublisher events;
 
     public CartService(CartItemRepository cartItemRepository,
                        ProizvodRepository proizvodRepository,
                        RadionicaRepository radionicaRepository,
-                       KupovinaRepository kupovinaRepository,
-                       RezervacijaRepository rezervacijaRepository) {
+                       CheckoutBatchRepository checkoutBatchRepository,
+                       SeatHolds seatHolds,
+                       ApplicationEventPublisher events) {
         this.cartItemRepository = cartItemRepository;
         this.proizvodRepository = proizvodRepository;
         this.radionicaRepository = radionicaRepository;
-        this.kupovinaRepository = kupovinaRepository;
-        this.rezervacijaRepository = rezervacijaRepository;
+        this.checkoutBatchRepository = checkoutBatchRepository;
+        this.seatHolds = seatHolds;
+        this.events = events;
     }
 
-    @Transactional(readOnly = true)
-    public List<CartItem> getCartForUser(Long userId) {
-        if (userId == null) return List.of();
-        List<CartItem> items = cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+    private static final class LoadedItem {
+        final CartItem item;
+        final Proizvod product;
+        final Radionica workshop;
 
-        if (items != null && !items.isEmpty()) {
-            for (CartItem item : items) {
-                try {
-                    if (item.getProductId() != null) {
-                        Optional<Proizvod> pOpt = proizvodRepository.findById(item.getProductId());
-                        if (pOpt.isPresent()) {
-                            Proizvod p = pOpt.get();
-                            if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(p.getOpisProizvod());
-                            if (item.getPrice() == null) item.setPrice(p.getCijenaProizvod());
-                            if (item.getMeta() == null) {
-                                item.setMeta(String.format("{\"productId\":%d,\"category\":\"%s\"}",
-                                        p.getProizvodId(), p.getKategorijaProizvod()));
-                            }
-                        }
-                    } else if (item.getIdRadionica() != null) {
-                        Optional<Radionica> rOpt = radionicaRepository.findById(item.getIdRadionica());
-                        if (rOpt.isPresent()) {
-                            Radionica r = rOpt.get();
-                            if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(r.getNazivRadionica());
-                            if (item.getPrice() == null && r.getCijenaRadionica() != null) item.setPrice(r.getCijenaRadionica());
-                            if (item.getMeta() == null) {
-                                item.setMeta(String.format("{\"dateISO\":\"%s\",\"location\":\"%s\"}",
-                                        r.getDatVrRadionica() == null ? "" : r.getDatVrRadionica().toString(),
-                                        r.getLokacijaRadionica() == null ? "" : r.getLokacijaRadionica()));
-                            }
-                        }
-                    }
-                } catch (Exception ignored) {
-                }
+        LoadedItem(CartItem item, Proizvod product, Radionica workshop) {
+            this.item = item;
+            this.product = product;
+            this.workshop = workshop;
+        }
+    }
 
-                if (item.getPrice() == null) item.setPrice(new BigDecimal("0.00"));
+    private List<LoadedItem> loadCart(Long userId) {
+        List<LoadedItem> out = new ArrayList<>();
+        for (Object[] row : cartItemRepository.findWithTargetsByIdKorisnik(userId)) {
+            LoadedItem loaded = new LoadedItem((CartItem) row[0], (Proizvod) row[1], (Radionica) row[2]);
+            hydrate(loaded.item, loaded.product, loaded.workshop);
+            out.add(loaded);
+        }
+        return out;
+    }
+
+    private static List<CartItem> items(List<LoadedItem> cart) {
+        List<CartItem> out = new ArrayList<>(cart.size());
+        for (LoadedItem loaded : cart) out.add(loaded.item);
+        return out;
+    }
+
+    private static void hydrate(CartItem item, Proizvod p, Radionica r) {
+        if (p != null) {
+            if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(p.getOpisProizvod());
+            if (item.getPrice() == null) item.setPrice(p.getCijenaProizvod());
+            if (item.getMeta() == null) {
+                item.setMeta(String.format("{\"productId\":%d,\"category\":\"%s\"}",
+                        p.getProizvodId(), p.getKategorijaProizvod()));
+            }
+        } else if (r != null) {
+            if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(r.getNazivRadionica());
+            if (item.getPrice() == null && r.getCijenaRadionica() != null) item.setPrice(r.getCijenaRadionica());
+            if (item.getMeta() == null) {
+                item.setMeta(String.format("{\"dateISO\":\"%s\",\"location\":\"%s\"}",
+                        r.getDatVrRadionica() == null ? "" : r.getDatVrRadionica().toString(),
+                        r.getLokacijaRadionica() == null ? "" : r.getLokacijaRadionica()));
             }
         }
+        if (item.getPrice() == null) item.setPrice(new BigDecimal("0.00"));
+    }
 
-        return items;
+    @Transactional(readOnly = true)
+    public List<CartItem> getCartForUser(Long userId) {
+        if (userId == null) return List.of();
+        return items(loadCart(userId));
     }
 
     @Transactional
@@ -92,53 +109,52 @@ public class CartService {
         if (userId == null) throw new IllegalArgumentException("Missing userId");
         if (item == null) throw new IllegalArgumentException("Missing item");
 
+        List<LoadedItem> cart = loadCart(userId);
         item.setIdKorisnik(userId);
 
+        Proizvod p = null;
+        Radionica r = null;
         try {
             if (item.getProductId() != null) {
-                Optional<Proizvod> pOpt = proizvodRepository.findById(item.getProductId());
-                if (pOpt.isPresent()) {
-                    Proizvod p = pOpt.get();
-                    if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(p.getOpisProizvod());
-                    if (item.getPrice() == null) item.setPrice(p.getCijenaProizvod());
-                    if (item.getMeta() == null) item.setMeta(String.format("{\"productId\":%d,\"category\":\"%s\"}", p.getProizvodId(), p.getKategorijaProizvod()));
-                } else {
-                }
+                p = proizvodRepository.findById(item.getProductId()).orElse(null);
             } else if (item.getIdRadionica() != null) {
-                Optional<Radionica> rOpt = radionicaRepository.findById(item.getIdRadionica());
-                if (rOpt.isPresent()) {
-                    Radionica r = rOpt.get();
-                    if (item.getTitle() == null || item.getTitle().isBlank()) item.setTitle(r.getNazivRadionica());
-                    if (item.getPrice() == null && r.getCijenaRadionica() != null) item.setPrice(r.getCijenaRadionica());
-                    if (item.getMeta() == null) item.setMeta(String.format("{\"dateISO\":\"%s\",\"location\":\"%s\"}",
-                            r.getDatVrRadionica() == null ? "" : r.getDatVrRadionica().toString(),
-                            r.getLokacijaRadionica() == null ? "" : r.getLokacijaRadionica()));
-                }
+                r = radionicaRepository.findById(item.getIdRadionica()).orElse(null);
             }
         } catch (Exception ignored) {}
+        hydrate(item, p, r);
 
-        if (item.getPrice() == null) item.setPrice(new BigDecimal("0.00"));
-
-        cartItemRepository.save(item);
-        return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+        int heldBefore = r == null ? 0 : seatsInCart(cart, r.getIdRadionica());
+        if (r != null && !seatHolds.hold(userId, r.getIdRadionica(), heldBefore + seats(item))) {
+            throw new IllegalStateException("Nema slobodnih mjesta za ovu radionicu.");
+        }
+        CartItem saved;
+        try {
+            saved = cartItemRepository.save(item);
+        } catch (RuntimeException e) {
+            if (r != null) seatHolds.releaseTo(userId, r.getIdRadionica(), heldBefore);
+            throw e;
+        }
+        cart.add(new LoadedItem(saved, p, r));
+        return items(cart);
     }
 
     @Transactional
     public List<CartItem> removeItem(Long userId, Long cartItemId) {
         if (userId == null) throw new IllegalArgumentException("Missing userId");
         if (cartItemId == null) throw new IllegalArgumentException("Missing cartItemId");
-        cartItemRepository.deleteById(cartItemId);
-        return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+        List<LoadedItem> cart = loadCart(userId);
+        remove(cart, find(cart, l -> cartItemId.equals(l.item.getIdCartItem())));
+        return items(cart);
     }
 
     @Transactional
     public List<CartItem> updateQty(Long userId, Long cartItemId, int qty) {
         if (userId == null) throw new IllegalArgumentException("Missing userId");
-        CartItem item = cartItemRepository.findById(cartItemId).orElseThrow(() -> new IllegalArgumentException("Item not found"));
-        if (!userId.equals(item.getIdKorisnik())) throw new IllegalArgumentException("Not your item");
-        item.setQty(Math.max(1, qty));
-        cartItemRepository.save(item);
-        return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+        List<LoadedItem> cart = loadCart(userId);
+        LoadedItem loaded = find(cart, l -> l.item.getIdCartItem() != null && l.item.getIdCartItem().equals(cartItemId));
+        if (loaded == null) throw new IllegalArgumentException("Item not found");
+        setQty(userId, cart, loaded, qty);
+        return items(cart);
     }
 
     @Transactional
@@ -152,18 +168,18 @@ public class CartService {
             try {
                 if ("product".equalsIgnoreCase(prefix)) {
                     Long pid = Long.valueOf(val);
-                    CartItem item = cartItemRepository.findByIdKorisnikAndProductId(userId, pid)
-                            .orElseThrow(() -> new IllegalArgumentException("Item not found"));
-                    item.setQty(Math.max(1, qty));
-                    cartItemRepository.save(item);
-                    return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+                    List<LoadedItem> cart = loadCart(userId);
+                    LoadedItem loaded = find(cart, l -> pid.equals(l.item.getProductId()));
+                    if (loaded == null) throw new IllegalArgumentException("Item not found");
+                    setQty(userId, cart, loaded, qty);
+                    return items(cart);
                 } else if ("workshop".equalsIgnoreCase(prefix)) {
                     Long wid = Long.valueOf(val);
-                    CartItem item = cartItemRepository.findByIdKorisnikAndIdRadionica(userId, wid)
-                            .orElseThrow(() -> new IllegalArgumentException("Item not found"));
-                    item.setQty(Math.max(1, qty));
-                    cartItemRepository.save(item);
-                    return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+                    List<LoadedItem> cart = loadCart(userId);
+                    LoadedItem loaded = find(cart, l -> wid.equals(l.item.getIdRadionica()));
+                    if (loaded == null) throw new IllegalArgumentException("Item not found");
+                    setQty(userId, cart, loaded, qty);
+                    return items(cart);
                 } else if ("cart".equalsIgnoreCase(prefix)) {
                     Long cid = Long.valueOf(val);
                     return updateQty(userId, cid, qty);
@@ -186,12 +202,14 @@ public class CartService {
             try {
                 if ("product".equalsIgnoreCase(prefix)) {
                     Long pid = Long.valueOf(val);
-                    cartItemRepository.deleteByIdKorisnikAndProductId(userId, pid);
-                    return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+                    List<LoadedItem> cart = loadCart(userId);
+                    while (remove(cart, find(cart, l -> pid.equals(l.item.getProductId())))) { }
+                    return items(cart);
                 } else if ("workshop".equalsIgnoreCase(prefix)) {
                     Long wid = Long.valueOf(val);
-                    cartItemRepository.deleteByIdKorisnikAndIdRadionica(userId, wid);
-                    return cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
+                    List<LoadedItem> cart = loadCart(userId);
+                    while (remove(cart, find(cart, l -> wid.equals(l.item.getIdRadionica())))) { }
+                    return items(cart);
                 } else if ("cart".equalsIgnoreCase(prefix)) {
                     Long cid = Long.valueOf(val);
                     return removeItem(userId, cid);
@@ -203,10 +221,54 @@ public class CartService {
         throw new IllegalArgumentException("Unknown item id format");
     }
 
+    private static LoadedItem find(List<LoadedItem> cart, Predicate<LoadedItem> match) {
+        for (LoadedItem loaded : cart) {
+            if (match.test(loaded)) return loaded;
+        }
+        return null;
+    }
+
+    private boolean remove(List<LoadedItem> cart, LoadedItem loaded) {
+        if (loaded == null) return false;
+        cartItemRepository.delete(loaded.item);
+        cart.remove(loaded);
+        Long wid = loaded.item.getIdRadionica();
+        // other lines for the same workshop keep their seats
+        if (wid != null) seatHolds.releaseTo(loaded.item.getIdKorisnik(), wid, seatsInCart(cart, wid));
+        return true;
+    }
+
+    // cart rows are loaded read-only, so the new quantity is written with an explicit update
+    private void setQty(Long userId, List<LoadedItem> cart, LoadedItem loaded, int qty) {
+        int value = Math.max(1, qty);
+        Long wid = loaded.item.getIdRadionica();
+        if (wid != null) {
+            int others = seatsInCart(cart, wid) - seats(loaded.item);
+            if (!seatHolds.hold(userId, wid, others + value)) {
+                throw new IllegalStateException("Nema slobodnih mjesta za ovu radionicu.");
+            }
+        }
+        cartItemRepository.updateQty(userId, loaded.item.getIdCartItem(), value);
+        loaded.item.setQty(value);
+    }
+
+    private static int seatsInCart(List<LoadedItem> cart, Long workshopId) {
+        int seats = 0;
+        for (LoadedItem loaded : cart) {
+            if (workshopId.equals(loaded.item.getIdRadionica())) seats += seats(loaded.item);
+        }
+        return seats;
+    }
+
+    private static int seats(CartItem item) {
+        return item.getQty() == null ? 1 : Math.max(1, item.getQty());
+    }
+
     @Transactional
     public List<CartItem> clearCart(Long userId) {
         if (userId == null) throw new IllegalArgumentException("Missing userId");
         cartItemRepository.deleteByIdKorisnik(userId);
+        seatHolds.releaseAll(userId);
         return List.of();
     }
 
@@ -220,6 +282,7 @@ public class CartService {
             List<CartItem> items = cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
             final int before = items == null ? 0 : items.size();
             cartItemRepository.deleteByIdKorisnik(userId);
+            seatHolds.releaseAll(userId);
             log.info("clearCartForUser: cleared cart for userId={}, removedCount={}", userId, before);
         } catch (Exception e) {
             log.error("clearCartForUser: error clearing cart for userId={}", userId, e);
@@ -233,87 +296,50 @@ public class CartService {
         List<CartItem> items = cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
         if (items == null || items.isEmpty()) return;
 
+        Set<Long> productIds = new TreeSet<>();
+        Set<Long> workshopIds = new TreeSet<>();
         for (CartItem item : items) {
-            try {
-                if (item.getProductId() != null) {
-                    Long prodId = item.getProductId();
-                    Proizvod p = proizvodRepository.findById(prodId).orElseThrow(() -> new IllegalArgumentException("Proizvod ne postoji: " + prodId));
-                    if (Boolean.TRUE.equals(p.getKupljen())) {
-                        cartItemRepository.deleteByIdKorisnik(userId);
-                        throw new IllegalArgumentException("Proizvod više nije dostupan: " + prodId);
-                    }
-                    if (kupovinaRepository.existsByIdKorisnikAndProizvodId(userId, prodId)) {
-                    } else {
-                        Kupovina k = new Kupovina();
-                        k.setIdKorisnik(userId);
-                        k.setProizvodId(prodId);
-                        kupovinaRepository.save(k);
-                        p.setKupljen(true);
-                        proizvodRepository.save(p);
-                    }
-                } else if (item.getIdRadionica() != null) {
-                    Long wid = item.getIdRadionica();
-                    Radionica r = radionicaRepository.findById(wid).orElseThrow(() -> new IllegalArgumentException("Radionica ne postoji: " + wid));
-                    if (r.getBrSlobMjesta() == null || r.getBrSlobMjesta() <= 0) {
-                        cartItemRepository.deleteByIdKorisnik(userId);
-                        throw new IllegalArgumentException("Nema slobodnih mjesta za radionicu: " + wid);
-                    }
-
-                    Optional<Rezervacija> existingRez = rezervacijaRepository.findByIdKorisnikAndIdRadionica(userId, wid);
-                    if (existingRez.isEmpty()) {
-                        Rezervacija rez = new Rezervacija();
-                        rez.setIdKorisnik(userId);
-                        rez.setIdRadionica(wid);
-                        rez.setStatusRez("reserved");
-                        rezervacijaRepository.save(rez);
-                        r.setBrSlobMjesta(r.getBrSlobMjesta() - 1);
-                        radionicaRepository.save(r);
-                    } else {
-                        Rezervacija rez = existingRez.get();
-                        if (!"reserved".equalsIgnoreCase(rez.getStatusRez())) {
-                            rez.setStatusRez("reserved");
-                            rezervacijaRepository.save(rez);
-                            r.setBrSlobMjesta(r.getBrSlobMjesta() - 1);
-                            radionicaRepository.save(r);
-                        }
-                    }
-                }
-            } catch (IllegalArgumentException e) {
-                throw e;
-            } catch (Exception e) {
-                cartItemRepository.deleteByIdKorisnik(userId);
-                throw new IllegalArgumentException("Ne mogu obraditi kupnju: " + e.getMessage());
-            }
+            if (item.getProductId() != null) productIds.add(item.getProductId());
+            else if (item.getIdRadionica() != null) workshopIds.add(item.getIdRadionica());
         }
 
+        List<Long> purchased = finalizeItems(userId, productIds, workshopIds);
         cartItemRepository.deleteByIdKorisnik(userId);
+        if (!purchased.isEmpty()) events.publishEvent(ProductCatalogChangedEvent.ofProducts(purchased));
     }
 
+    // the cart's seat holds are pinned for as long as the checkout can still be paid and finalized
     @Transactional(readOnly = true)
     public Map<String, Object> prepareCheckout(Long userId) {
         if (userId == null) throw new IllegalArgumentException("Missing userId");
-        List<CartItem> items = cartItemRepository.findByIdKorisnikOrderByCreatedAtAsc(userId);
-        if (items == null || items.isEmpty()) throw new IllegalArgumentException("Košarica je prazna.");
+        List<LoadedItem> cart = loadCart(userId);
+        if (cart.isEmpty()) throw new IllegalArgumentException("Košarica je prazna.");
+        List<CartItem> items = items(cart);
 
         BigDecimal total = BigDecimal.ZERO;
-        for (CartItem item : items) {
+        for (LoadedItem loaded : cart) {
+            CartItem item = loaded.item;
             if (item.getProductId() != null) {
-                Proizvod p = proizvodRepository.findById(item.getProductId()).orElse(null);
+                Proizvod p = loaded.product;
                 if (p == null || Boolean.TRUE.equals(p.getKupljen())) {
                     cartItemRepository.deleteByIdKorisnik(userId);
+                    seatHolds.releaseAll(userId);
                     throw new IllegalArgumentException("Neki produkti više nisu dostupni. Molimo očistite košaricu.");
                 }
                 total = total.add(item.getPrice() == null ? BigDecimal.ZERO : item.getPrice().multiply(new BigDecimal(item.getQty())));
             } else if (item.getIdRadionica() != null) {
-                Radionica r = radionicaRepository.findById(item.getIdRadionica()).orElse(null);
+                Radionica r = loaded.workshop;
                 if (r == null || r.getBrSlobMjesta() == null || r.getBrSlobMjesta() <= 0) {
                     cartItemRepository.deleteByIdKorisnik(userId);
+                    seatHolds.releaseAll(userId);
                     throw new IllegalArgumentException("Neki produkti više nisu dostupni. Molimo očistite košaricu.");
                 }
                 total = total.add(item.getPrice() == null ? BigDecimal.ZERO : item.getPrice().multiply(new BigDecimal(item.getQty())));
             }
         }
 
+        seatHolds.pin(userId);
+
         Map<String, Object> out = new HashMap<>();
         out.put("userId", userId);
         out.put("total", total.doubleValue());
@@ -349,49 +375,39 @@ public class CartService {
         }
         if (snapshotItems == null || snapshotItems.isEmpty()) return;
 
+        Set<Long> productIds = new TreeSet<>();
+        Set<Long> workshopIds = new TreeSet<>();
         for (Map<String, Object> snap : snapshotItems) {
-            Long prodId = snap.get("productId") instanceof Number ? ((Number) snap.get("productId")).longValue() : null;
-            Long wid = snap.get("idRadionica") instanceof Number ? ((Number) snap.get("idRadionica")).longValue() : null;
-
-            if (prodId != null) {
-                Proizvod p = proizvodRepository.findById(prodId)
-                        .orElseThrow(() -> new IllegalArgumentException("Proizvod ne postoji: " + prodId));
-                if (Boolean.TRUE.equals(p.getKupljen())) {
-                    throw new IllegalArgumentException("Proizvod je već kupljen: " + prodId);
-                }
-                Kupovina kup = new Kupovina();
-                kup.setIdKorisnik(userId);
-                kup.setProizvodId(prodId);
-                kupovinaRepository.save(kup);
-                p.setKupljen(true);
-                proizvodRepository.save(p);
-                continue;
+            if (snap.get("productId") instanceof Number) {
+                productIds.add(((Number) snap.get("productId")).longValue());
+            } else if (snap.get("idRadionica") instanceof Number) {
+                workshopIds.add(((Number) snap.get("idRadionica")).longValue());
             }
+        }
 
-            if (wid != null) {
-                Radionica r = radionicaRepository.findById(wid)
-                        .orElseThrow(() -> new IllegalArgumentException("Radionica ne postoji: " + wid));
-                if (r.getBrSlobMjesta() == null || r.getBrSlobMjesta() <= 0) {
-                    throw new IllegalArgumentException("Radionica nema slobodnih mjesta: " + wid);
-                }
+        List<Long> purchased = finalizeItems(userId, productIds, workshopIds);
+        cartItemRepository.deleteByIdKorisnik(userId);
+        if (!purchased.isEmpty()) events.publishEvent(ProductCatalogChangedEvent.ofProducts(purchased));
+    }
 
-                Optional<Rezervacija> existingRez = rezervacijaRepository.findByIdKorisnikAndIdRadionica(userId, wid);
-                if (existingRez.isEmpty()) {
-                    Rezervacija rez = new Rezervacija();
-                    rez.setIdKorisnik(userId);
-                    rez.setIdRadionica(wid);
-                    rez.setStatusRez("reserved");
-                    rezervacijaRepository.save(rez);
-                } else {
-                    Rezervacija rez = existingRez.get();
-                    if (!"reserved".equalsIgnoreCase(rez.getStatusRez())) {
-                        rez.setStatusRez("reserved");
-                        rezervacijaRepository.save(rez);
-                    }
-                }
-            }
+    // a few set-based statements per basket; conflicts show up as missing rows in the RETURNING sets
+    private List<Long> finalizeItems(Long userId, Set<Long> productIds, Set<Long> workshopIds) {
+        List<Long> sold = checkoutBatchRepository.markSold(productIds);
+        if (sold.size() != productIds.size()) {
+            Set<Long> unavailable = new TreeSet<>(productIds);
+            sold.forEach(unavailable::remove);
+            throw new IllegalArgumentException("Proizvod je već kupljen: " + unavailable);
         }
+        checkoutBatchRepository.insertPurchases(userId, sold);
 
-        cartItemRepository.deleteByIdKorisnik(userId);
+        seatHolds.claim(userId, workshopIds);
+        try {
+            checkoutBatchRepository.reserve(userId, workshopIds);
+        } catch (DataAccessException e) {
+            log.warn("Reservation batch failed for userId={}, workshops={}: {}", userId, workshopIds, e.getMessage());
+            throw new IllegalArgumentException("Radionica nema slobodnih mjesta: " + workshopIds);
+        }
+        if (!workshopIds.isEmpty()) events.publishEvent(new WorkshopSeatsChangedEvent(workshopIds));
+        return sold;
     }
 }
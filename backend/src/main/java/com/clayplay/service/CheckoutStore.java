@@ -1,28 +1,92 @@
 package com.clayplay.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class CheckoutStore {
-    private final ConcurrentHashMap<String, Map<String,Object>> store = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutStore.class);
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(60);
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final CheckoutStoreBackend backend;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CheckoutStore() {
+        this(new InMemoryCheckoutStoreBackend(DEFAULT_MAX_ENTRIES), DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    @Autowired
+    public CheckoutStore(CheckoutStoreBackend backend,
+                         @Value("${checkout.ttl-minutes:60}") long ttlMinutes,
+                         @Value("${checkout.max-entries:10000}") int maxEntries) {
+        this(backend, Duration.ofMinutes(Math.max(1, ttlMinutes)), maxEntries);
+    }
+
+    public CheckoutStore(CheckoutStoreBackend backend, Duration ttl, int maxEntries) {
+        this.backend = backend;
+        this.ttl = ttl;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
 
     public String save(Map<String,Object> payload) {
         String id = UUID.randomUUID().toString();
-        store.put(id, payload);
+        backend.put(id, payload, Instant.now().plus(ttl));
         return id;
     }
 
     public Map<String,Object> get(String id) {
         if (id == null) return null;
-        return store.get(id);
+        return count(backend.get(id, Instant.now()));
     }
 
     public Map<String,Object> remove(String id) {
         if (id == null) return null;
-        return store.remove(id);
+        return count(backend.remove(id, Instant.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.purge-interval-ms:60000}")
+    public void purge() {
+        try {
+            int dropped = backend.purge(Instant.now(), maxEntries);
+            if (dropped > 0) log.info("CheckoutStore purged {} expired or overflowing checkouts", dropped);
+        } catch (Exception e) {
+            log.warn("CheckoutStore purge failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put("hits", hits.sum());
+        out.put("misses", misses.sum());
+        out.put("evictions", backend.evictions());
+        try {
+            out.put("size", backend.size());
+        } catch (Exception e) {
+            out.put("size", -1L);
+        }
+        return out;
+    }
+
+    private Map<String, Object> count(Map<String, Object> payload) {
+        if (payload == null) misses.increment();
+        else hits.increment();
+        return payload;
     }
 }
@@ -0,0 +1,21 @@
+package com.clayplay.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+public interface CheckoutStoreBackend {
+
+    void put(String id, Map<String, Object> payload, Instant expiresAt);
+
+    Map<String, Object> get(String id, Instant now);
+
+    // only one caller wins a given id, even across instances
+    Map<String, Object> remove(String id, Instant now);
+
+    // drops expired entries and the oldest entries beyond maxEntries, returns how many were dropped
+    int purge(Instant now, int maxEntries);
+
+    long size();
+
+    long evictions();
+}
@@ -0,0 +1,175 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.ProizvodRepository;
+import com.clayplay.repository.RadionicaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// one transport batch of a digest window: the claimed item ids plus each recipient's organizers. The
+// DIGEST job only writes these rows; each one is rendered and sent on its own, without a database
+// transaction or cursor open, the same way AnnouncementBatchHandler sends announcements
+@Component
+public class DigestBatchHandler implements OutboxHandler {
+
+    public static final String TYPE = "DIGEST_BATCH";
+
+    private static final Logger log = LoggerFactory.getLogger(DigestBatchHandler.class);
+
+    private final BatchedMailTransport mailTransport;
+    private final ProizvodRepository proizvodRepository;
+    private final RadionicaRepository radionicaRepository;
+    private final NotificationOutbox outbox;
+    private final NotificationRenderer renderer;
+    private final TransactionTemplate readOnly;
+
+    public DigestBatchHandler(
+            BatchedMailTransport mailTransport,
+            ProizvodRepository proizvodRepository,
+            RadionicaRepository radionicaRepository,
+            NotificationOutbox outbox,
+            NotificationRenderer renderer,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.mailTransport = mailTransport;
+        this.proizvodRepository = proizvodRepository;
+        this.radionicaRepository = radionicaRepository;
+        this.outbox = outbox;
+        this.renderer = renderer;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    // organizers is null when the recipient takes every organizer's announcements
+    public static Map<String, Object> recipient(DigestSubscription who, Collection<Long> organizers) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("userId", who.getUserId());
+        row.put("email", who.getEmail());
+        if (who.getFirstName() != null) row.put("firstName", who.getFirstName());
+        if (organizers != null) row.put("organizers", new ArrayList<>(organizers));
+        return row;
+    }
+
+    public static Map<String, Object> payload(List<Map<String, Object>> items, List<Map<String, Object>> recipients) {
+        return Map.of("items", items, "recipients", recipients);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Map<String, Object> payload) {
+        List<Map<String, Object>> items = (List<Map<String, Object>>) payload.getOrDefault("items", List.of());
+        // the items are read and their sections rendered in a short transaction that is closed before sending
+        Map<Long, NotificationRenderer.DigestSection> sections = readOnly.execute(status -> sections(items));
+        if (sections == null || sections.isEmpty()) return;
+
+        List<SimpleMailMessage> batch = new ArrayList<>();
+        // one bad recipient is logged and skipped; it must not cost the rest of the batch their digest
+        for (Map<String, Object> row : (List<Map<String, Object>>) payload.getOrDefault("recipients", List.of())) {
+            try {
+                SimpleMailMessage msg = render(row, sections);
+                if (msg != null) batch.add(msg);
+            } catch (RuntimeException e) {
+                log.warn("Skipping digest recipient {}: {}", row.get("userId"), e.getMessage());
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        BatchedMailTransport.Result result = mailTransport.send(batch);
+        // the batch is already out, so a failure here only loses that one retry instead of re-sending everyone
+        result.getDeferred().forEach((msg, e) -> {
+            try {
+                outbox.enqueue(EmailOutboxHandler.TYPE, EmailOutboxHandler.payload(msg));
+            } catch (RuntimeException ex) {
+                log.warn("Could not queue retry of digest email to {}: {}", msg.getTo()[0], ex.getMessage());
+            }
+        });
+        if (!result.getDeferred().isEmpty()) {
+            log.warn("Deferred {} digest emails to outbox: {}", result.getDeferred().size(),
+                    result.getDeferred().values().iterator().next().getMessage());
+        }
+        result.getFailed().forEach((msg, e) ->
+                log.warn("Digest email to {} refused: {}", msg.getTo()[0], e.getMessage()));
+        log.info("Digest batch finished. announcements={}, sent={}, deferred={}, failed={}",
+                items.size(), result.getSent(), result.getDeferred().size(), result.getFailed().size());
+    }
+
+    // one block per organizer, rendered once and shared by every recipient following them
+    private Map<Long, NotificationRenderer.DigestSection> sections(List<Map<String, Object>> items) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> workshopIds = new HashSet<>();
+        for (Map<String, Object> item : items) {
+            Long id = ((Number) item.get("id")).longValue();
+            if (NotificationDigestService.PRODUCT.equals(item.get("type"))) productIds.add(id);
+            else if (NotificationDigestService.WORKSHOP.equals(item.get("type"))) workshopIds.add(id);
+        }
+        Map<Long, Proizvod> products = proizvodRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Proizvod::getProizvodId, Function.identity()));
+        Map<Long, Radionica> workshops = radionicaRepository.findAllById(workshopIds).stream()
+                .collect(Collectors.toMap(Radionica::getIdRadionica, Function.identity()));
+
+        Map<Long, NotificationRenderer.DigestSection> out = new LinkedHashMap<>();
+        for (Map<String, Object> item : items) {
+            Long id = ((Number) item.get("id")).longValue();
+            Long organizerId = ((Number) item.get("organizerId")).longValue();
+            if (NotificationDigestService.PRODUCT.equals(item.get("type"))) {
+                Proizvod p = products.get(id);
+                if (p != null) out.computeIfAbsent(organizerId, renderer::digestSection).add(p);
+            } else {
+                Radionica r = workshops.get(id);
+                if (r != null) out.computeIfAbsent(organizerId, renderer::digestSection).add(r);
+            }
+        }
+        // text and html are built here, so nothing touches an entity once the transaction is gone
+        out.values().forEach(s -> { s.text(); s.html(); });
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SimpleMailMessage render(Map<String, Object> row, Map<Long, NotificationRenderer.DigestSection> sections) {
+        Object userId = row.get("userId");
+        DigestSubscription recipient = new DigestSubscription(
+                userId instanceof Number n ? n.longValue() : null,
+                (String) row.get("email"),
+                (String) row.get("firstName"),
+                null);
+        Set<Long> organizers = null;
+        if (row.get("organizers") != null) {
+            organizers = new HashSet<>();
+            for (Object id : (List<Object>) row.get("organizers")) organizers.add(((Number) id).longValue());
+        }
+
+        StringBuilder text = new StringBuilder();
+        StringBuilder html = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<Long, NotificationRenderer.DigestSection> e : sections.entrySet()) {
+            if (organizers != null && !organizers.contains(e.getKey())) continue;
+            text.append(e.getValue().text());
+            html.append(e.getValue().html());
+            count += e.getValue().getCount();
+        }
+        if (count == 0) return null;
+        return renderer.digest(recipient, text.toString(), html.toString(), count);
+    }
+}
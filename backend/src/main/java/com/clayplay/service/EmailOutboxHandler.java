@@ -0,0 +1,68 @@
+package com.clayplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// single rendered message, used for recipients whose send failed during a fan-out
+@Component
+public class EmailOutboxHandler implements OutboxHandler {
+
+    public static final String TYPE = "EMAIL";
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxHandler.class);
+
+    private final BatchedMailTransport mailTransport;
+    private final String fromAddress;
+
+    public EmailOutboxHandler(BatchedMailTransport mailTransport, @Qualifier("mailFromAddress") String fromAddress) {
+        this.mailTransport = mailTransport;
+        this.fromAddress = fromAddress;
+    }
+
+    public static Map<String, Object> payload(String to, String subject, String text) {
+        return Map.of("to", to, "subject", subject, "text", text);
+    }
+
+    public static Map<String, Object> payload(SimpleMailMessage msg) {
+        Map<String, Object> out = new HashMap<>(payload(msg.getTo()[0], msg.getSubject(), msg.getText()));
+        if (msg instanceof NotificationMail nm && nm.getHtml() != null) {
+            out.put("html", nm.getHtml());
+        }
+        return out;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(Map<String, Object> payload) {
+        Object html = payload.get("html");
+        NotificationMail msg = new NotificationMail();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            msg.setFrom(fromAddress);
+        }
+        msg.setTo(String.valueOf(payload.get("to")));
+        msg.setSubject(String.valueOf(payload.get("subject")));
+        msg.setText(String.valueOf(payload.get("text")));
+        if (html != null) msg.setHtml(String.valueOf(html));
+        BatchedMailTransport.Result result = mailTransport.send(List.of(msg));
+        Exception deferred = result.getDeferred().get(msg);
+        if (deferred != null) {
+            throw new MailSendException(deferred.getMessage(), deferred);
+        }
+        Exception refused = result.getFailed().get(msg);
+        if (refused != null) {
+            log.warn("Outbox email to {} refused, dropping: {}", msg.getTo()[0], refused.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.clayplay.service;
 
 import com.clayplay.dto.ExhibitionResponse;
+import com.clayplay.dto.PageResponse;
 import com.clayplay.model.Fotografija;
 import com.clayplay.model.Izlozba;
 import com.clayplay.repository.FotografijaRepository;
@@ -8,6 +9,7 @@ import com.clayplay.repository.IzlozbaRepository;
 import com.clayplay.repository.IzlozeniRepository;
 import com.clayplay.repository.OrganizatorRepository;
 import com.clayplay.repository.PlacaRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,6 +17,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -65,17 +68,13 @@ public class ExhibitionService {
         List<MultipartFile> imgs = images == null ? new ArrayList<>() : images;
         for (MultipartFile f : imgs) {
             if (f == null || f.isEmpty()) continue;
-            byte[] bytes;
+            String url;
             try {
-                bytes = f.getBytes();
-            } catch (Exception e) {
+                url = storage.save(f);
+            } catch (IllegalArgumentException e) {
                 continue;
             }
-            if (bytes.length == 0) continue;
-            String url = storage.save(bytes, f.getContentType());
-            Fotografija photo = new Fotografija();
-            photo.setFotoURL(url);
-            Fotografija savedFoto = fotografijaRepository.save(photo);
+            Fotografija savedFoto = fotografijaRepository.findOrCreate(url);
             izlozeniRepository.link(saved.getIdIzlozba(), savedFoto.getFotoId());
         }
 
@@ -84,10 +83,52 @@ public class ExhibitionService {
 
     @Transactional(readOnly = true)
     public List<ExhibitionResponse> listAll() {
-        return izlozbaRepository.findAll().stream().map(this::toDto).collect(Collectors.toList());
+        return toDtos(izlozbaRepository.findAll());
     }
 
-    private ExhibitionResponse toDto(Izlozba iz) {
+    @Transactional(readOnly = true)
+    public PageResponse<ExhibitionResponse> listPage(String cursor, Integer limit, String when) {
+        int size = PageCursor.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        if (after != null && after.getAt() == null) throw new IllegalArgumentException("Invalid cursor");
+        PageRequest page = PageRequest.of(0, size + 1);
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Izlozba> rows;
+        if (when == null || when.isBlank()) {
+            rows = after == null
+                    ? izlozbaRepository.findAllByOrderByDatVrIzlozbaAscIdIzlozbaAsc(page)
+                    : izlozbaRepository.findPageAfter(after.getAt(), after.getId(), page);
+        } else if ("upcoming".equalsIgnoreCase(when)) {
+            rows = after == null
+                    ? izlozbaRepository.findUpcoming(now, page)
+                    : izlozbaRepository.findUpcomingAfter(now, after.getAt(), after.getId(), page);
+        } else if ("past".equalsIgnoreCase(when)) {
+            rows = after == null
+                    ? izlozbaRepository.findPast(now, page)
+                    : izlozbaRepository.findPastBefore(now, after.getAt(), after.getId(), page);
+        } else {
+            throw new IllegalArgumentException("Invalid filter");
+        }
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Izlozba last = rows.get(size - 1);
+            next = PageCursor.encode(last.getDatVrIzlozba(), last.getIdIzlozba());
+        }
+        return new PageResponse<>(toDtos(rows), next);
+    }
+
+    private List<ExhibitionResponse> toDtos(List<Izlozba> rows) {
+        if (rows == null || rows.isEmpty()) return new ArrayList<>();
+        List<Long> ids = rows.stream().map(Izlozba::getIdIzlozba).collect(Collectors.toList());
+        Map<Long, List<String>> images = izlozeniRepository.findImageUrls(ids);
+        return rows.stream()
+                .map(iz -> toDto(iz, images.getOrDefault(iz.getIdIzlozba(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private ExhibitionResponse toDto(Izlozba iz, List<String> imageUrls) {
         ExhibitionResponse r = new ExhibitionResponse();
         r.id = iz.getIdIzlozba();
         r.title = iz.getNazivIzlozba();
@@ -95,7 +136,7 @@ public class ExhibitionService {
         r.location = iz.getLokacijaIzlozba();
         r.startDateTime = iz.getDatVrIzlozba();
         r.organizerId = iz.getIdKorisnik();
-        r.imageUrls = izlozeniRepository.findImageUrls(iz.getIdIzlozba());
+        r.imageUrls = imageUrls;
         return r;
     }
 }
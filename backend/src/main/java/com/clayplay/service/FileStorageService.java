@@ -1,49 +1,350 @@
 package com.clayplay.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
 
+    // enough for every magic number we recognise (RIFF....WEBP is the longest)
+    private static final int SNIFF_BYTES = 16;
+    private static final long TRANSFER_CHUNK = 1L << 20;
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final long MB = 1024L * 1024;
+    private static final Pattern HEX4 = Pattern.compile("[0-9a-f]{4}");
+
     @Value("${app.upload-dir:uploads}")
     private String uploadDir;
 
+    // name blobs by the SHA-256 of their content, so identical uploads share one file and one URL
+    @Value("${app.storage.content-addressed:true}")
+    private boolean contentAddressed;
+
+    // more disks for media, comma separated, each optionally "path=weight"; app.upload-dir is always the
+    // first volume. Without a weight a volume counts with its total size in GB
+    @Value("${app.storage.extra-volumes:}")
+    private String extraVolumes;
+
+    // a volume with less free space than this is skipped when placing a new file
+    @Value("${app.storage.min-free-mb:1024}")
+    private long minFreeMb;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
     private Path root;
+    private Path[] volumes;
+    private double[] weights;
 
     @PostConstruct
     public void init() {
         this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(this.root);
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to create upload directory", e);
+        List<Path> paths = new ArrayList<>(List.of(this.root));
+        List<Double> configured = new ArrayList<>(Arrays.asList((Double) null));
+        if (extraVolumes != null) {
+            for (String spec : extraVolumes.split(",")) {
+                String s = spec.trim();
+                if (s.isEmpty()) continue;
+                int eq = s.lastIndexOf('=');
+                Path p = Paths.get(eq > 0 ? s.substring(0, eq).trim() : s).toAbsolutePath().normalize();
+                if (paths.contains(p)) continue;
+                paths.add(p);
+                configured.add(eq > 0 ? Double.parseDouble(s.substring(eq + 1).trim()) : null);
+            }
+        }
+        this.volumes = paths.toArray(new Path[0]);
+        this.weights = new double[volumes.length];
+        for (int i = 0; i < volumes.length; i++) {
+            try {
+                Files.createDirectories(volumes[i]);
+                Double w = configured.get(i);
+                weights[i] = w != null ? w : Math.max(1, Files.getFileStore(volumes[i]).getTotalSpace() / (1024 * MB));
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to create upload directory " + volumes[i], e);
+            }
         }
     }
 
     public String save(byte[] data, String contentType) {
         if (data == null || data.length == 0) throw new IllegalArgumentException("Empty file");
-        String ext = extensionFromContentType(contentType);
-        String filename = UUID.randomUUID().toString().replace("-", "") + ext;
-        Path target = this.root.resolve(filename);
+        return save(new ByteArrayInputStream(data), contentType);
+    }
+
+    public String save(MultipartFile file) {
+        if (file == null || file.isEmpty()) throw new IllegalArgumentException("Empty file");
+        try (InputStream in = file.getInputStream()) {
+            return save(in, file.getContentType());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid image");
+        }
+    }
+
+    // streams the upload into a temp file next to its final place and renames it in, so readers never
+    // see a partial file and the heap only ever holds the sniffed header plus the channel copy buffer
+    public String save(InputStream in, String contentType) {
+        Path tmp = null;
         try {
-            Files.write(target, data);
+            byte[] header = in.readNBytes(SNIFF_BYTES);
+            if (header.length == 0) throw new IllegalArgumentException("Empty file");
+            String ext = extension(header, contentType);
+
+            tmp = Files.createTempFile(this.root, ".upload-", ".tmp");
+            long size;
+            String name;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                out.write(ByteBuffer.wrap(header));
+                if (contentAddressed) {
+                    MessageDigest sha = sha256();
+                    sha.update(header);
+                    copyHashing(in, out, sha);
+                    name = HexFormat.of().formatHex(sha.digest());
+                } else {
+                    copy(in, out);
+                    name = UUID.randomUUID().toString().replace("-", "");
+                }
+                size = out.size();
+            }
+
+            String filename = name + ext;
+            // same hash means same bytes: keep the blob that is already there (and may be cached by clients)
+            if (!contentAddressed || locate(filename) == null) {
+                moveInto(tmp, place(filename, size));
+                tmp = null;
+            }
+            if (events != null) events.publishEvent(new MediaStoredEvent(filename));
+            return "/media/" + filename;
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file", e);
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
         }
-        return "/media/" + filename;
     }
 
+    // disk-backed multipart parts come in as file streams and go kernel-to-kernel; anything else is
+    // pulled through the channel's fixed-size transfer buffer
+    private static void copy(InputStream in, FileChannel out) throws IOException {
+        if (in instanceof FileInputStream fin) {
+            FileChannel src = fin.getChannel();
+            long pos = src.position();
+            long size = src.size();
+            while (pos < size) {
+                long n = src.transferTo(pos, size - pos, out);
+                if (n <= 0) break;
+                pos += n;
+            }
+            return;
+        }
+        ReadableByteChannel src = Channels.newChannel(in);
+        long pos = out.position();
+        while (true) {
+            long n = out.transferFrom(src, pos, TRANSFER_CHUNK);
+            if (n <= 0) break;
+            pos += n;
+        }
+    }
+
+    // hashing has to see every byte, so this path reads through one fixed buffer instead of transferTo
+    private static void copyHashing(InputStream in, FileChannel out, MessageDigest sha) throws IOException {
+        byte[] buf = new byte[COPY_BUFFER];
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        int n;
+        while ((n = in.read(buf)) >= 0) {
+            sha.update(buf, 0, n);
+            view.clear().limit(n);
+            while (view.hasRemaining()) out.write(view);
+        }
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public List<Path> volumes() {
+        return List.of(volumes);
+    }
+
+    // files fan out as <volume>/ab/cd/<filename> on the volume that ranks first for the name; pure
+    // arithmetic, no disk access. A file that had to spill to another volume, or a flat one from before
+    // the sharded layout, is found by locate()
     public Path resolve(String filename) {
-        return this.root.resolve(filename).normalize();
+        return volumes[order(filename)[0]].resolve(shard(filename)).resolve(filename);
+    }
+
+    // where the file actually is: its resolve() path, else the same shard on the next volumes in its
+    // order, else the flat pre-sharding location; null when it exists nowhere
+    public Path locate(String filename) {
+        Path primary = resolve(filename);
+        if (Files.isRegularFile(primary)) return primary;
+        int[] order = order(filename);
+        for (int i = 1; i < order.length; i++) {
+            Path p = volumes[order[i]].resolve(shard(filename)).resolve(filename);
+            if (Files.isRegularFile(p)) return p;
+        }
+        for (int i : order) {
+            Path p = volumes[i].resolve(filename);
+            if (Files.isRegularFile(p)) return p;
+        }
+        // a migration may have moved it between the first check and the flat one
+        return Files.isRegularFile(primary) ? primary : null;
+    }
+
+    // resized copies live as variants/<width>/ab/cd/<filename> on the volume that holds the original, so a
+    // spilled original's variants do not land on the disk it was kept off, and a variant that is the original
+    // itself can be a hard link; the first-ranked volume when the original is missing
+    public Path variantPath(String filename, int width) {
+        Path original = locate(filename);
+        return original != null ? variantPath(original, width) : variantPath(volumes[order(filename)[0]], filename, width);
+    }
+
+    // same, for an original the caller has already located
+    public Path variantPath(Path original, int width) {
+        String filename = original.getFileName().toString();
+        for (Path volume : volumes) {
+            if (original.startsWith(volume)) return variantPath(volume, filename, width);
+        }
+        throw new IllegalArgumentException("Not on any upload volume: " + original);
+    }
+
+    private static Path variantPath(Path volume, String filename, int width) {
+        return volume.resolve("variants").resolve(Integer.toString(width)).resolve(shard(filename)).resolve(filename);
+    }
+
+    // where a new file of this size goes: the first volume in its order with room to spare; the first one
+    // when all are short, so a full disk fails the write instead of scattering files
+    Path place(String filename, long size) {
+        int[] order = order(filename);
+        int chosen = order[0];
+        for (int i : order) {
+            try {
+                if (Files.getFileStore(volumes[i]).getUsableSpace() - size > minFreeMb * MB) {
+                    chosen = i;
+                    break;
+                }
+            } catch (IOException e) {
+                // unreadable volume: try the next one
+            }
+        }
+        return volumes[chosen].resolve(shard(filename)).resolve(filename);
+    }
+
+    // two levels of 256 directories from the leading hex of the name (the content hash or the UUID);
+    // other legacy names use the hash of the name itself
+    public static String shard(String filename) {
+        if (!isValidName(filename)) throw new IllegalArgumentException("Invalid filename");
+        String key = filename.toLowerCase(Locale.ROOT);
+        if (key.length() < 4 || !HEX4.matcher(key).lookingAt()) {
+            key = HexFormat.of().formatHex(sha256().digest(filename.getBytes(StandardCharsets.UTF_8)));
+        }
+        return key.substring(0, 2) + "/" + key.substring(2, 4);
+    }
+
+    public static boolean isValidName(String filename) {
+        return filename != null && !filename.isEmpty() && !filename.contains("/") && !filename.contains("\\")
+                && !filename.startsWith(".");
+    }
+
+    // weighted rendezvous hashing: every name ranks the volumes the same way on every start, weights bias
+    // the first pick towards bigger disks, and adding a volume only re-ranks the names it wins
+    int[] order(String filename) {
+        if (!isValidName(filename)) throw new IllegalArgumentException("Invalid filename");
+        int n = volumes.length;
+        if (n == 1) return new int[]{0};
+        Integer[] idx = new Integer[n];
+        double[] score = new double[n];
+        long h = filename.hashCode();
+        for (int i = 0; i < n; i++) {
+            idx[i] = i;
+            long x = mix(h * 0x9E3779B97F4A7C15L + i);
+            double u = ((x >>> 11) + 0.5) / (1L << 53);
+            score[i] = -weights[i] / Math.log(u);
+        }
+        Arrays.sort(idx, (a, b) -> Double.compare(score[b], score[a]));
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = idx[i];
+        return out;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9f34e0c1eb9L;
+        return z ^ (z >>> 33);
+    }
+
+    // rename when source and target share a filesystem; otherwise copy next to the target and rename
+    // that in, so the target never appears half-written
+    static void moveInto(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            try {
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            Files.delete(source);
+        }
+    }
+
+    // the declared type comes from the client; the magic number wins when we recognise it
+    static String extension(byte[] header, String contentType) {
+        String sniffed = sniff(header);
+        return extensionFromContentType(sniffed != null ? sniffed : contentType);
+    }
+
+    static String sniff(byte[] h) {
+        if (h.length >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF) return "image/jpeg";
+        if (h.length >= 8 && (h[0] & 0xFF) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G'
+                && h[4] == '\r' && h[5] == '\n' && h[6] == 0x1A && h[7] == '\n') return "image/png";
+        if (h.length >= 4 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8') return "image/gif";
+        if (h.length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') return "image/webp";
+        return null;
     }
 
     private static String extensionFromContentType(String ct) {
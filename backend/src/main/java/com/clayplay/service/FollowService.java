@@ -0,0 +1,59 @@
+package com.clayplay.service;
+
+import com.clayplay.repository.OrganizatorRepository;
+import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.PracenjeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class FollowService {
+
+    private final PracenjeRepository pracenjeRepository;
+    private final PolaznikRepository polaznikRepository;
+    private final OrganizatorRepository organizatorRepository;
+
+    public FollowService(
+            PracenjeRepository pracenjeRepository,
+            PolaznikRepository polaznikRepository,
+            OrganizatorRepository organizatorRepository
+    ) {
+        this.pracenjeRepository = pracenjeRepository;
+        this.polaznikRepository = polaznikRepository;
+        this.organizatorRepository = organizatorRepository;
+    }
+
+    @Transactional
+    public void follow(Long userId, Long organizerId) {
+        if (userId == null || organizerId == null) throw new IllegalArgumentException("Nedostaje korisnik ili organizator.");
+        if (!polaznikRepository.existsByIdKorisnik(userId)) {
+            throw new IllegalArgumentException("Samo polaznici mogu pratiti organizatore.");
+        }
+        if (!organizatorRepository.existsById(organizerId)) {
+            throw new IllegalArgumentException("Organizator ne postoji.");
+        }
+        pracenjeRepository.follow(userId, organizerId);
+    }
+
+    @Transactional
+    public void unfollow(Long userId, Long organizerId) {
+        if (userId == null || organizerId == null) throw new IllegalArgumentException("Nedostaje korisnik ili organizator.");
+        pracenjeRepository.unfollow(userId, organizerId);
+    }
+
+    public boolean isFollowing(Long userId, Long organizerId) {
+        if (userId == null || organizerId == null) return false;
+        return pracenjeRepository.isFollowing(userId, organizerId);
+    }
+
+    public long followerCount(Long organizerId) {
+        return pracenjeRepository.countFollowers(organizerId);
+    }
+
+    public List<Long> following(Long userId) {
+        if (userId == null) throw new IllegalArgumentException("Nedostaje korisnik.");
+        return pracenjeRepository.followedOrganizers(userId);
+    }
+}
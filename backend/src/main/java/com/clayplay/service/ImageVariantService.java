@@ -0,0 +1,274 @@
+package com.clayplay.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// downscaled copies of uploaded JPEG/PNG images for list pages and mobile clients. Built off the request
+// path on a small bounded pool; until a variant exists MediaController keeps serving the original
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final FileStorageService storage;
+    private final int[] widths;
+    private final ThreadPoolExecutor pool;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // originals that could not be decoded (CMYK JPEG, truncated file, a reader that throws); until restart
+    // their ?w= requests get the original as-is instead of a disk lookup and another full decode
+    private final Set<String> unrenderable = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Autowired(required = false)
+    private MediaIndex index;
+
+    public ImageVariantService(FileStorageService storage,
+                               @Value("${media.variants.widths:200,600,1200}") String widths,
+                               @Value("${media.variants.workers:2}") int workers,
+                               @Value("${media.variants.queue:500}") int queue) {
+        this.storage = storage;
+        this.widths = Arrays.stream(widths.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .filter(w -> w > 0)
+                .sorted()
+                .distinct()
+                .toArray();
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+            Thread t = new Thread(r, "image-variants-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStored(MediaStoredEvent event) {
+        request(event.getFilename());
+    }
+
+    // queues generation unless it is already queued; a full queue drops the job, the next ?w= request retries it
+    public void request(String filename) {
+        if (!supported(filename) || unrenderable.contains(filename) || !pending.add(filename)) return;
+        try {
+            pool.execute(() -> {
+                try {
+                    build(filename);
+                } finally {
+                    pending.remove(filename);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(filename);
+            dropped.increment();
+        }
+    }
+
+    void build(String filename) {
+        try {
+            generate(filename);
+        } catch (Exception e) {
+            failed.increment();
+            unrenderable.add(filename);
+            log.warn("Image variants failed for {}, serving the original from now on: {}", filename, e.getMessage());
+        }
+    }
+
+    // the configured width that answers this ?w=, or null when the original does
+    public Integer widthFor(String filename, int requestedWidth) {
+        return supported(filename) && !unrenderable.contains(filename) ? pickWidth(requestedWidth) : null;
+    }
+
+    // smallest configured width that still covers the request
+    Integer pickWidth(int requested) {
+        for (int w : widths) {
+            if (w >= requested) return w;
+        }
+        return null;
+    }
+
+    static boolean supported(String filename) {
+        String f = filename.toLowerCase(Locale.ROOT);
+        return f.endsWith(".jpg") || f.endsWith(".png");
+    }
+
+    void generate(String filename) throws IOException {
+        Path source = storage.locate(filename);
+        if (source == null) return;
+        List<Integer> missing = new ArrayList<>();
+        for (int w : widths) {
+            if (!Files.exists(storage.variantPath(source, w))) missing.add(w);
+        }
+        if (missing.isEmpty()) return;
+
+        BufferedImage image;
+        int sourceWidth;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                unrenderable.add(filename);
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                sourceWidth = reader.getWidth(0);
+                int largest = 0;
+                for (int w : missing) if (w < sourceWidth) largest = Math.max(largest, w);
+                if (largest == 0) {
+                    for (int w : missing) {
+                        linkOriginal(source, storage.variantPath(source, w));
+                        published(filename, w);
+                    }
+                    return;
+                }
+                // decode at no more than twice the largest target; keeps a 6000px photo from filling the heap
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (largest * 2));
+                if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        boolean png = filename.toLowerCase(Locale.ROOT).endsWith(".png");
+        // largest first, each one scaled down from the previous
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            int w = missing.get(i);
+            Path target = storage.variantPath(source, w);
+            if (w >= sourceWidth) {
+                linkOriginal(source, target);
+                published(filename, w);
+                continue;
+            }
+            image = scale(image, w, png);
+            write(image, png, target);
+            published(filename, w);
+            generated.increment();
+        }
+    }
+
+    // halve with bilinear filtering until close, then one final step; cheaper than bicubic, far less aliasing than one jump
+    static BufferedImage scale(BufferedImage src, int width, boolean alpha) {
+        BufferedImage current = src;
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        while (true) {
+            int w = current.getWidth() / 2 >= width ? current.getWidth() / 2 : width;
+            int h = Math.max(1, (int) Math.round((double) current.getHeight() * w / current.getWidth()));
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+            if (w == width) return current;
+        }
+    }
+
+    private static void write(BufferedImage image, boolean png, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (!png) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // an image already narrower than the variant is its own variant
+    private static void linkOriginal(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            if (!Files.exists(target)) Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void published(String filename, int width) {
+        if (index != null) index.refreshVariant(filename, width);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("widths", widths);
+        out.put("queued", pool.getQueue().size());
+        out.put("active", pool.getActiveCount());
+        out.put("generated", generated.sum());
+        out.put("dropped", dropped.sum());
+        out.put("failed", failed.sum());
+        out.put("unrenderable", unrenderable.size());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
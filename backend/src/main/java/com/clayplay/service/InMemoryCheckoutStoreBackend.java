@@ -0,0 +1,89 @@
+package com.clayplay.service;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class InMemoryCheckoutStoreBackend implements CheckoutStoreBackend {
+
+    private static final class Entry {
+        final Map<String, Object> payload;
+        final Instant expiresAt;
+
+        Entry(Map<String, Object> payload, Instant expiresAt) {
+            this.payload = payload;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final LongAdder evictions = new LongAdder();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public InMemoryCheckoutStoreBackend(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean full = size() > InMemoryCheckoutStoreBackend.this.maxEntries;
+                if (full) evictions.increment();
+                return full;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void put(String id, Map<String, Object> payload, Instant expiresAt) {
+        entries.put(id, new Entry(payload, expiresAt));
+    }
+
+    @Override
+    public synchronized Map<String, Object> get(String id, Instant now) {
+        Entry e = entries.get(id);
+        if (e == null) return null;
+        if (!e.expiresAt.isAfter(now)) {
+            entries.remove(id);
+            evictions.increment();
+            return null;
+        }
+        return e.payload;
+    }
+
+    @Override
+    public synchronized Map<String, Object> remove(String id, Instant now) {
+        Entry e = entries.remove(id);
+        if (e == null) return null;
+        if (!e.expiresAt.isAfter(now)) {
+            evictions.increment();
+            return null;
+        }
+        return e.payload;
+    }
+
+    @Override
+    public synchronized int purge(Instant now, int maxEntries) {
+        int dropped = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!e.expiresAt.isAfter(now) || entries.size() > maxEntries) {
+                it.remove();
+                dropped++;
+            }
+        }
+        evictions.add(dropped);
+        return dropped;
+    }
+
+    @Override
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    @Override
+    public long evictions() {
+        return evictions.sum();
+    }
+}
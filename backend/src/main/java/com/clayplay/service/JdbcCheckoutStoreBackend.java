@@ -0,0 +1,89 @@
+package com.clayplay.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class JdbcCheckoutStoreBackend implements CheckoutStoreBackend {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper mapper;
+    private final LongAdder evictions = new LongAdder();
+
+    public JdbcCheckoutStoreBackend(JdbcTemplate jdbc, ObjectMapper mapper) {
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void put(String id, Map<String, Object> payload, Instant expiresAt) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Checkout payload is not serializable");
+        }
+        jdbc.update("INSERT INTO CHECKOUT_SESSION (idcheckout, payload, createdat, expiresat) VALUES (?, ?, ?, ?)",
+                id, json, Timestamp.from(Instant.now()), Timestamp.from(expiresAt));
+    }
+
+    @Override
+    public Map<String, Object> get(String id, Instant now) {
+        List<String> rows = jdbc.queryForList(
+                "SELECT payload FROM CHECKOUT_SESSION WHERE idcheckout = ? AND expiresat > ?",
+                String.class, id, Timestamp.from(now));
+        return rows.isEmpty() ? null : read(rows.get(0));
+    }
+
+    @Override
+    public Map<String, Object> remove(String id, Instant now) {
+        List<String> rows = jdbc.queryForList(
+                "SELECT payload FROM CHECKOUT_SESSION WHERE idcheckout = ? AND expiresat > ?",
+                String.class, id, Timestamp.from(now));
+        if (rows.isEmpty()) return null;
+        // the delete count decides the winner when two instances race on the same checkout
+        int deleted = jdbc.update("DELETE FROM CHECKOUT_SESSION WHERE idcheckout = ?", id);
+        return deleted == 1 ? read(rows.get(0)) : null;
+    }
+
+    @Override
+    public int purge(Instant now, int maxEntries) {
+        int dropped = jdbc.update("DELETE FROM CHECKOUT_SESSION WHERE expiresat <= ?", Timestamp.from(now));
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM CHECKOUT_SESSION", Long.class);
+        long overflow = count == null ? 0 : count - maxEntries;
+        if (overflow > 0) {
+            dropped += jdbc.update(
+                    "DELETE FROM CHECKOUT_SESSION WHERE idcheckout IN " +
+                    "(SELECT idcheckout FROM CHECKOUT_SESSION ORDER BY createdat ASC LIMIT ?)", overflow);
+        }
+        evictions.add(dropped);
+        return dropped;
+    }
+
+    @Override
+    public long size() {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM CHECKOUT_SESSION", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Map<String, Object> read(String json) {
+        try {
+            return mapper.readValue(json, PAYLOAD);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
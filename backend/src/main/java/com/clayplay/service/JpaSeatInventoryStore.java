@@ -0,0 +1,69 @@
+package com.clayplay.service;
+
+import com.clayplay.model.Radionica;
+import com.clayplay.model.Rezervacija;
+import com.clayplay.repository.RadionicaRepository;
+import com.clayplay.repository.RezervacijaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class JpaSeatInventoryStore implements SeatInventoryStore {
+
+    private final RadionicaRepository radionicaRepository;
+    private final RezervacijaRepository rezervacijaRepository;
+    private final TransactionTemplate tx;
+
+    public JpaSeatInventoryStore(RadionicaRepository radionicaRepository,
+                                 RezervacijaRepository rezervacijaRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.radionicaRepository = radionicaRepository;
+        this.rezervacijaRepository = rezervacijaRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Map<Long, Integer> loadAvailable(Collection<Long> workshopIds) {
+        Map<Long, Integer> out = new HashMap<>();
+        if (workshopIds == null || workshopIds.isEmpty()) return out;
+        for (Radionica r : radionicaRepository.findAllById(workshopIds)) {
+            out.put(r.getIdRadionica(), r.getBrSlobMjesta() == null ? 0 : r.getBrSlobMjesta());
+        }
+        return out;
+    }
+
+    // the RADIONICA row lock taken by trig_broj_slobodnih_mjesta is held once per batch instead of once per seat
+    @Override
+    public List<Long> reserveAll(List<Request> requests) {
+        return tx.execute(status -> {
+            List<Long> ids = new ArrayList<>(requests.size());
+            for (Request req : requests) {
+                Optional<Rezervacija> existing = rezervacijaRepository.findByIdKorisnikAndIdRadionica(req.getUserId(), req.getWorkshopId());
+                Rezervacija r;
+                if (existing.isPresent()) {
+                    r = existing.get();
+                    if ("reserved".equalsIgnoreCase(r.getStatusRez())) {
+                        ids.add(null);
+                        continue;
+                    }
+                } else {
+                    r = new Rezervacija();
+                    r.setIdKorisnik(req.getUserId());
+                    r.setIdRadionica(req.getWorkshopId());
+                }
+                r.setStatusRez("reserved");
+                ids.add(rezervacijaRepository.save(r).getIdRezervacija());
+            }
+            rezervacijaRepository.flush();
+            return ids;
+        });
+    }
+}
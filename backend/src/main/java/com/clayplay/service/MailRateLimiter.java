@@ -0,0 +1,112 @@
+package com.clayplay.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// token bucket shared by every pooled SMTP connection. A 4xx throttling reply halves the rate and
+// pauses sending for a second so the relay's window can reset; the rate then climbs back linearly (AIMD)
+public class MailRateLimiter {
+
+    private static final long THROTTLE_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double recoveryPerSecond;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+
+    public MailRateLimiter(double initialRate, double minRate, double maxRate, int burst,
+                           double recoveryPerSecond, long maxWaitMillis) {
+        this(initialRate, minRate, maxRate, burst, recoveryPerSecond, maxWaitMillis, System::nanoTime);
+    }
+
+    MailRateLimiter(double initialRate, double minRate, double maxRate, int burst,
+                    double recoveryPerSecond, long maxWaitMillis, LongSupplier clock) {
+        this.minRate = Math.max(0.1, minRate);
+        this.maxRate = Math.max(this.minRate, maxRate);
+        this.rate = Math.min(this.maxRate, Math.max(this.minRate, initialRate));
+        this.burst = Math.max(1, burst);
+        this.recoveryPerSecond = Math.max(0, recoveryPerSecond);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.clock = clock;
+        this.tokens = this.burst;
+        this.lastRefill = clock.getAsLong();
+        this.pausedUntil = lastRefill;
+    }
+
+    public static MailRateLimiter unlimited() {
+        return new MailRateLimiter(1_000_000, 1_000_000, 1_000_000, 1_000_000, 0, 0);
+    }
+
+    // blocks until the next send may go out; false when that would take longer than the max wait
+    public boolean acquire() {
+        long wait = reserve();
+        if (wait < 0) return false;
+        if (wait > 0) {
+            waitedNanos.add(wait);
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // takes a token, possibly on credit; returns nanos the caller has to wait, or -1 if too long
+    synchronized long reserve() {
+        refill();
+        double after = tokens - 1;
+        long wait = after >= 0 ? 0 : (long) (-after / rate * 1e9);
+        if (wait > maxWaitNanos) return -1;
+        tokens = after;
+        return wait;
+    }
+
+    public synchronized void onThrottled() {
+        throttled.increment();
+        long now = clock.getAsLong();
+        refill();
+        // replies to sends already in flight when the pause started count as the same signal
+        if (now < pausedUntil) return;
+        pausedUntil = now + THROTTLE_PAUSE_NANOS;
+        rate = Math.max(minRate, rate / 2);
+        tokens = Math.min(tokens, 0) - rate * THROTTLE_PAUSE_NANOS / 1e9;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        double seconds = (now - lastRefill) / 1e9;
+        if (seconds <= 0) return;
+        lastRefill = now;
+        rate = Math.min(maxRate, rate + recoveryPerSecond * seconds);
+        tokens = Math.min(burst, tokens + rate * seconds);
+    }
+
+    public synchronized double currentRate() {
+        refill();
+        return rate;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("ratePerSecond", Math.round(currentRate() * 100) / 100.0);
+        out.put("maxRatePerSecond", maxRate);
+        out.put("throttled", throttled.sum());
+        out.put("waitedMillis", TimeUnit.NANOSECONDS.toMillis(waitedNanos.sum()));
+        return out;
+    }
+}
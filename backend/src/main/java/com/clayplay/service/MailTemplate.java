@@ -0,0 +1,152 @@
+package com.clayplay.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// {{name}} inserts a value (HTML-escaped in HTML templates), {{{name}}} inserts it raw and
+// {{#name}}...{{/name}} keeps the block only when the value is not blank. Compiled once into a flat
+// op array; rendering is index lookups into a String[] laid out by the variable list given to compile()
+public final class MailTemplate {
+
+    private static final int LITERAL = 0;
+    private static final int VALUE = 1;
+    private static final int RAW = 2;
+    private static final int SECTION = 3;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final int[] ops;
+    // value slot for VALUE, RAW and SECTION ops
+    private final int[] args;
+    private final String[] literals;
+    // op index just past the matching {{/name}}, for SECTION ops
+    private final int[] jumps;
+    private final boolean html;
+
+    private MailTemplate(int[] ops, int[] args, String[] literals, int[] jumps, boolean html) {
+        this.ops = ops;
+        this.args = args;
+        this.literals = literals;
+        this.jumps = jumps;
+        this.html = html;
+    }
+
+    public static MailTemplate compile(String source, boolean html, List<String> variables) {
+        List<Integer> ops = new ArrayList<>();
+        List<Integer> args = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        List<Integer> jumps = new ArrayList<>();
+        Deque<Integer> open = new ArrayDeque<>();
+        Deque<String> openNames = new ArrayDeque<>();
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int start = source.indexOf("{{", pos);
+            if (start < 0) start = source.length();
+            if (start > pos) {
+                ops.add(LITERAL);
+                args.add(-1);
+                literals.add(source.substring(pos, start));
+                jumps.add(-1);
+            }
+            if (start >= source.length()) break;
+
+            boolean raw = source.startsWith("{{{", start);
+            String close = raw ? "}}}" : "}}";
+            int end = source.indexOf(close, start);
+            if (end < 0) throw new IllegalStateException("Unclosed tag at " + start);
+            String tag = source.substring(start + (raw ? 3 : 2), end).trim();
+            pos = end + close.length();
+
+            if (tag.startsWith("#")) {
+                String name = tag.substring(1).trim();
+                open.push(ops.size());
+                openNames.push(name);
+                ops.add(SECTION);
+                args.add(slot(variables, name));
+                literals.add(null);
+                jumps.add(-1);
+            } else if (tag.startsWith("/")) {
+                String name = tag.substring(1).trim();
+                if (open.isEmpty() || !openNames.peek().equals(name)) {
+                    throw new IllegalStateException("Unexpected {{/" + name + "}}");
+                }
+                openNames.pop();
+                jumps.set(open.pop(), ops.size());
+            } else {
+                ops.add(raw ? RAW : VALUE);
+                args.add(slot(variables, tag));
+                literals.add(null);
+                jumps.add(-1);
+            }
+        }
+        if (!open.isEmpty()) throw new IllegalStateException("Unclosed {{#" + openNames.peek() + "}}");
+
+        return new MailTemplate(
+                ops.stream().mapToInt(Integer::intValue).toArray(),
+                args.stream().mapToInt(Integer::intValue).toArray(),
+                literals.toArray(new String[0]),
+                jumps.stream().mapToInt(Integer::intValue).toArray(),
+                html
+        );
+    }
+
+    private static int slot(List<String> variables, String name) {
+        int i = variables.indexOf(name);
+        if (i < 0) throw new IllegalStateException("Unknown template variable: " + name);
+        return i;
+    }
+
+    public String render(String[] values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(values, out);
+        return out.toString();
+    }
+
+    public void renderTo(String[] values, StringBuilder out) {
+        int i = 0;
+        while (i < ops.length) {
+            switch (ops[i]) {
+                case LITERAL -> out.append(literals[i]);
+                case RAW -> {
+                    String v = values[args[i]];
+                    if (v != null) out.append(v);
+                }
+                case VALUE -> {
+                    String v = values[args[i]];
+                    if (v != null) {
+                        if (html) escape(v, out);
+                        else out.append(v);
+                    }
+                }
+                case SECTION -> {
+                    String v = values[args[i]];
+                    if (v == null || v.isBlank()) {
+                        i = jumps[i];
+                        continue;
+                    }
+                }
+                default -> throw new IllegalStateException("Bad op " + ops[i]);
+            }
+            i++;
+        }
+    }
+
+    private static void escape(String v, StringBuilder out) {
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                case '\n' -> out.append("<br>");
+                default -> out.append(c);
+            }
+        }
+    }
+}
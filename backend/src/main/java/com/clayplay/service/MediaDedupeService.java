@@ -0,0 +1,185 @@
+package com.clayplay.service;
+
+import com.clayplay.repository.FotografijaMergeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// one-off migration of UUID-named uploads into the content-addressed layout, on every volume. Safe to run
+// while serving: the hash-named copy exists before FOTOGRAFIJA is re-pointed, and the old file is removed
+// only afterwards
+@Service
+public class MediaDedupeService {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaDedupeService.class);
+    private static final Pattern HASHED = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    private final FileStorageService storage;
+    private final FotografijaMergeRepository mergeRepository;
+
+    @Autowired(required = false)
+    private MediaIndex index;
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
+    public MediaDedupeService(FileStorageService storage, FotografijaMergeRepository mergeRepository) {
+        this.storage = storage;
+        this.mergeRepository = mergeRepository;
+    }
+
+    public Map<String, Object> run(boolean dryRun) {
+        if (!storage.isContentAddressed()) {
+            throw new IllegalArgumentException("Content-addressed storage is disabled");
+        }
+        List<Path> legacy = new ArrayList<>();
+        for (Path volume : storage.volumes()) {
+            try (Stream<Path> files = Files.walk(volume)) {
+                files.filter(p -> !volume.relativize(p).startsWith("variants"))
+                        .filter(Files::isRegularFile)
+                        .filter(p -> FileStorageService.isValidName(p.getFileName().toString()))
+                        .filter(p -> !HASHED.matcher(p.getFileName().toString()).matches())
+                        .forEach(legacy::add);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to list upload directory " + volume, e);
+            }
+        }
+        legacy.sort(Comparator.comparing(p -> p.getFileName().toString()));
+
+        int renamed = 0;
+        int duplicates = 0;
+        int mergedRows = 0;
+        int errors = 0;
+        long bytesFreed = 0;
+        // hashes claimed earlier in a dry run, where nothing is written to disk
+        Set<String> planned = new HashSet<>();
+
+        for (Path file : legacy) {
+            try {
+                String oldName = file.getFileName().toString();
+                String newName = hashedName(file);
+                Path existing = storage.locate(newName);
+                Path target = existing != null ? existing : storage.resolve(newName);
+                long size = Files.size(file);
+                boolean duplicate = existing != null || !planned.add(newName);
+
+                if (dryRun) {
+                    if (duplicate) { duplicates++; bytesFreed += size; } else renamed++;
+                    continue;
+                }
+
+                if (!duplicate) {
+                    Files.createDirectories(target.getParent());
+                    link(file, target);
+                }
+                String oldUrl = "/media/" + oldName;
+                String newUrl = "/media/" + newName;
+                if (mergeRepository.merge(oldUrl, newUrl)) mergedRows++;
+                else mergeRepository.renameUrl(oldUrl, newUrl);
+                Files.delete(file);
+                dropVariants(oldName);
+                if (index != null) {
+                    index.evict(oldName);
+                    index.refresh(newName);
+                }
+
+                if (duplicate) { duplicates++; bytesFreed += size; } else renamed++;
+            } catch (IOException | RuntimeException e) {
+                errors++;
+                log.warn("Media dedupe skipped {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("dryRun", dryRun);
+        out.put("scanned", legacy.size());
+        out.put("renamed", renamed);
+        out.put("duplicates", duplicates);
+        out.put("mergedRows", mergedRows);
+        out.put("bytesFreed", bytesFreed);
+        out.put("errors", errors);
+        log.info("Media dedupe finished: {}", out);
+        // photo URLs in the cached catalog and search index now point at names that are gone
+        if (!dryRun && renamed + duplicates > 0 && events != null) {
+            events.publishEvent(ProductCatalogChangedEvent.everything());
+        }
+        return out;
+    }
+
+    // resized copies of the old name would never be asked for again, flat or sharded
+    private void dropVariants(String oldName) {
+        String shard = FileStorageService.shard(oldName);
+        for (Path volume : storage.volumes()) {
+            Path variants = volume.resolve("variants");
+            if (!Files.isDirectory(variants)) continue;
+            try (Stream<Path> dirs = Files.list(variants)) {
+                for (Path dir : dirs.toList()) {
+                    Files.deleteIfExists(dir.resolve(oldName));
+                    Files.deleteIfExists(dir.resolve(shard).resolve(oldName));
+                }
+            } catch (IOException e) {
+                log.debug("Could not drop variants of {}: {}", oldName, e.getMessage());
+            }
+        }
+    }
+
+    // same naming as FileStorageService.save: SHA-256 of the content, extension from the magic number
+    // when recognised, otherwise the one the file already has
+    private static String hashedName(Path file) throws IOException {
+        MessageDigest sha = FileStorageService.sha256();
+        byte[] buf = new byte[64 * 1024];
+        byte[] header = null;
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) >= 0) {
+                if (header == null) header = Arrays.copyOf(buf, Math.min(n, 16));
+                sha.update(buf, 0, n);
+            }
+        }
+        String sniffed = header == null ? null : FileStorageService.sniff(header);
+        String ext;
+        if (sniffed != null) {
+            ext = FileStorageService.extension(header, sniffed);
+        } else {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            ext = dot >= 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : ".bin";
+        }
+        return HexFormat.of().formatHex(sha.digest()) + ext;
+    }
+
+    // hard link where the filesystem allows it, so the new name costs no extra space until the old one goes
+    private static void link(Path file, Path target) throws IOException {
+        try {
+            Files.createLink(target, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            Path tmp = Files.createTempFile(target.getParent(), ".dedupe-", ".tmp");
+            try {
+                Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.clayplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// what MediaController needs to answer a request without touching the filesystem: where the file is, its
+// type, length and a strong ETag, keyed by filename (and width for variants). Filled at startup, on save,
+// and lazily on first request for anything written behind our back
+@Component
+public class MediaIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaIndex.class);
+    private static final Pattern HASHED = Pattern.compile("[0-9a-f]{64}");
+
+    public static final class Entry {
+        private final Path path;
+        private final String contentType;
+        private final long length;
+        private final long lastModified;
+        private final String etag;
+
+        Entry(Path path, String contentType, long length, long lastModified, String etag) {
+            this.path = path;
+            this.contentType = contentType;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = etag;
+        }
+
+        public Path getPath() { return path; }
+        public String getContentType() { return contentType; }
+        public long getLength() { return length; }
+        public long getLastModified() { return lastModified; }
+        public String getEtag() { return etag; }
+    }
+
+    private final FileStorageService storage;
+    private final Map<String, Entry> originals = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Entry>> variants = new ConcurrentHashMap<>();
+
+    public MediaIndex(FileStorageService storage) {
+        this.storage = storage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        long started = System.nanoTime();
+        for (Path volume : storage.volumes()) {
+            try (Stream<Path> files = Files.walk(volume)) {
+                files.filter(p -> FileStorageService.isValidName(p.getFileName().toString()))
+                        .forEach(p -> index(volume, p));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Media index could not scan {}: {}", volume, e.getMessage());
+            }
+        }
+        log.info("Media index loaded. files={}, ms={}", size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // a file found twice (flat and sharded while a layout migration runs) keeps the resolve() copy
+    private void index(Path volume, Path file) {
+        Path rel = volume.relativize(file);
+        String filename = file.getFileName().toString();
+        Integer width = null;
+        if (rel.getNameCount() > 2 && rel.getName(0).toString().equals("variants")) {
+            try {
+                width = Integer.parseInt(rel.getName(1).toString());
+            } catch (NumberFormatException e) {
+                return;
+            }
+        }
+        Entry e = stat(file, filename, width);
+        if (e == null) return;
+        if (width == null) {
+            Entry existing = originals.putIfAbsent(filename, e);
+            if (existing != null && file.equals(storage.resolve(filename))) originals.put(filename, e);
+        } else {
+            Entry existing = variants.computeIfAbsent(filename, k -> new ConcurrentHashMap<>()).putIfAbsent(width, e);
+            if (existing != null && file.equals(storage.variantPath(filename, width))) variants.get(filename).put(width, e);
+        }
+    }
+
+    @EventListener
+    public void onStored(MediaStoredEvent event) {
+        refresh(event.getFilename());
+    }
+
+    // null when there is no such file; anything not yet indexed is located on disk once and remembered
+    public Entry original(String filename) {
+        if (!FileStorageService.isValidName(filename)) return null;
+        Entry e = originals.get(filename);
+        return e != null ? e : refresh(filename);
+    }
+
+    public Entry variant(String filename, int width) {
+        if (!FileStorageService.isValidName(filename)) return null;
+        Map<Integer, Entry> byWidth = variants.get(filename);
+        Entry e = byWidth != null ? byWidth.get(width) : null;
+        return e != null ? e : refreshVariant(filename, width);
+    }
+
+    public Entry refresh(String filename) {
+        if (!FileStorageService.isValidName(filename)) return null;
+        Path path = storage.locate(filename);
+        Entry e = path != null ? stat(path, filename, null) : null;
+        if (e != null) originals.put(filename, e);
+        else originals.remove(filename);
+        return e;
+    }
+
+    public Entry refreshVariant(String filename, int width) {
+        if (!FileStorageService.isValidName(filename)) return null;
+        Entry e = stat(storage.variantPath(filename, width), filename, width);
+        if (e != null) {
+            variants.computeIfAbsent(filename, k -> new ConcurrentHashMap<>()).put(width, e);
+        } else {
+            Map<Integer, Entry> byWidth = variants.get(filename);
+            if (byWidth != null) byWidth.remove(width);
+        }
+        return e;
+    }
+
+    // the file and all of its variants
+    public void evict(String filename) {
+        originals.remove(filename);
+        variants.remove(filename);
+    }
+
+    public int size() {
+        int n = originals.size();
+        for (Map<Integer, Entry> byWidth : variants.values()) n += byWidth.size();
+        return n;
+    }
+
+    private static Entry stat(Path path, String filename, Integer width) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) return null;
+            long modified = attrs.lastModifiedTime().toMillis();
+            return new Entry(path, contentType(filename), attrs.size(), modified, etag(filename, width, attrs.size(), modified));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Media index could not stat {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    // content-addressed names carry the hash, so the ETag is exact; legacy UUID files are never rewritten,
+    // which makes mtime+size stable for them
+    static String etag(String filename, Integer width, long size, long modified) {
+        int dot = filename.lastIndexOf('.');
+        String base = dot >= 0 ? filename.substring(0, dot) : filename;
+        String variant = width != null ? "-w" + width : "";
+        if (HASHED.matcher(base).matches()) return "\"" + base + variant + "\"";
+        return "\"" + Long.toHexString(modified) + "-" + Long.toHexString(size) + variant + "\"";
+    }
+
+    static String contentType(String filename) {
+        String k = filename.toLowerCase(Locale.ROOT);
+        if (k.endsWith(".jpg") || k.endsWith(".jpeg")) return "image/jpeg";
+        if (k.endsWith(".png")) return "image/png";
+        if (k.endsWith(".webp")) return "image/webp";
+        if (k.endsWith(".gif")) return "image/gif";
+        if (k.endsWith(".svg")) return "image/svg+xml";
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,138 @@
+package com.clayplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// moves uploads from the old flat layout (<upload-dir>/<file>, variants/<w>/<file>) into the sharded
+// one. Safe to run while serving: the new name is linked (or copied and renamed in) before the old one
+// is removed, and FileStorageService.locate checks both places, so a request never finds neither.
+// URLs do not change, nothing in the database is touched
+@Service
+public class MediaLayoutMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaLayoutMigrationService.class);
+
+    private final FileStorageService storage;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired(required = false)
+    private MediaIndex index;
+
+    public MediaLayoutMigrationService(FileStorageService storage) {
+        this.storage = storage;
+    }
+
+    public Map<String, Object> run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("Media layout migration is already running");
+        }
+        try {
+            return migrate(dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> migrate(boolean dryRun) {
+        int scanned = 0;
+        int moved = 0;
+        int duplicates = 0;
+        int errors = 0;
+        long bytes = 0;
+
+        for (Path volume : storage.volumes()) {
+            List<Path> flat = new ArrayList<>(list(volume));
+            Path variantsDir = volume.resolve("variants");
+            if (Files.isDirectory(variantsDir)) {
+                for (Path widthDir : list(variantsDir)) {
+                    if (Files.isDirectory(widthDir)) flat.addAll(list(widthDir));
+                }
+            }
+            for (Path file : flat) {
+                if (!Files.isRegularFile(file)) continue;
+                String filename = file.getFileName().toString();
+                if (!FileStorageService.isValidName(filename)) continue;
+                scanned++;
+                try {
+                    Integer width = widthOf(volume, file);
+                    long size = Files.size(file);
+                    Path target = width != null ? storage.variantPath(filename, width) : storage.locate(filename);
+                    boolean duplicate = target != null && !target.equals(file) && Files.exists(target);
+                    if (target == null || target.equals(file)) target = storage.place(filename, size);
+                    if (dryRun) {
+                        if (duplicate) duplicates++; else { moved++; bytes += size; }
+                        continue;
+                    }
+                    // a duplicate is the same file already in place: same content hash, or a UUID never reused
+                    if (!duplicate) copyTo(file, target);
+                    // re-point the index before the old name disappears
+                    if (index != null) {
+                        if (width != null) index.refreshVariant(filename, width);
+                        else index.refresh(filename);
+                    }
+                    Files.delete(file);
+                    if (duplicate) duplicates++; else { moved++; bytes += size; }
+                } catch (IOException | RuntimeException e) {
+                    errors++;
+                    log.warn("Media layout migration skipped {}: {}", file, e.getMessage());
+                }
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("dryRun", dryRun);
+        out.put("volumes", storage.volumes().stream().map(Path::toString).toList());
+        out.put("scanned", scanned);
+        out.put("moved", moved);
+        out.put("duplicates", duplicates);
+        out.put("bytesMoved", bytes);
+        out.put("errors", errors);
+        log.info("Media layout migration finished: {}", out);
+        return out;
+    }
+
+    // null for an original, the width for variants/<w>/<file>
+    private static Integer widthOf(Path volume, Path file) {
+        Path rel = volume.relativize(file);
+        if (rel.getNameCount() != 3) return null;
+        return Integer.parseInt(rel.getName(1).toString());
+    }
+
+    private static List<Path> list(Path dir) {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.sorted().toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list " + dir, e);
+        }
+    }
+
+    // a hard link keeps the file reachable under both names until the old one goes; across volumes the
+    // copy is renamed into place only once complete
+    private static void copyTo(Path file, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            Path tmp = Files.createTempFile(target.getParent(), ".migrate-", ".tmp");
+            try {
+                Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+}
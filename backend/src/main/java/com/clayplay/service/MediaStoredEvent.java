@@ -0,0 +1,12 @@
+package com.clayplay.service;
+
+public class MediaStoredEvent {
+
+    private final String filename;
+
+    public MediaStoredEvent(String filename) {
+        this.filename = filename;
+    }
+
+    public String getFilename() { return filename; }
+}
@@ -0,0 +1,53 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.PracenjeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+// who hears about an organizer's new product or workshop: its followers, or with
+// notifications.audience=all every polaznik who opted into global announcements
+@Component
+public class NotificationAudience {
+
+    public static final String FOLLOWERS = "followers";
+    public static final String ALL = "all";
+
+    private final PracenjeRepository pracenjeRepository;
+    private final PolaznikRepository polaznikRepository;
+    private final boolean broadcast;
+
+    public NotificationAudience(
+            PracenjeRepository pracenjeRepository,
+            PolaznikRepository polaznikRepository,
+            @Value("${notifications.audience:followers}") String mode
+    ) {
+        this.pracenjeRepository = pracenjeRepository;
+        this.polaznikRepository = polaznikRepository;
+        this.broadcast = ALL.equalsIgnoreCase(mode == null ? "" : mode.trim());
+    }
+
+    public String mode() {
+        return broadcast ? ALL : FOLLOWERS;
+    }
+
+    // instant-mode recipients only; caller closes the stream, it holds a database cursor
+    public Stream<NotificationRecipient> recipients(Long organizerId) {
+        return broadcast
+                ? polaznikRepository.streamSubscribedRecipients()
+                : pracenjeRepository.streamFollowerRecipients(organizerId);
+    }
+
+    // digest-mode recipients of any of the organizers, in recipient order
+    public Stream<DigestSubscription> digestRecipients(Collection<Long> organizerIds) {
+        return broadcast
+                ? polaznikRepository.streamDigestRecipients()
+                        .map(r -> new DigestSubscription(r.getUserId(), r.getEmail(), r.getFirstName(), null))
+                : pracenjeRepository.streamDigestFollowers(organizerIds);
+    }
+}
@@ -0,0 +1,126 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestEntry;
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.repository.DigestObjavaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// digest-mode polaznici get one email per window listing everything their organizers published in it.
+// Items are kept once per announcement; the per-recipient cross product only exists while a
+// DigestBatchHandler row is rendered
+@Service
+public class NotificationDigestService implements OutboxHandler {
+
+    public static final String OUTBOX_TYPE = "DIGEST";
+    public static final String PRODUCT = "PRODUCT";
+    public static final String WORKSHOP = "WORKSHOP";
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDigestService.class);
+
+    private final DigestObjavaRepository digestRepository;
+    private final NotificationAudience audience;
+    private final BatchedMailTransport mailTransport;
+    private final NotificationOutbox outbox;
+
+    public NotificationDigestService(
+            DigestObjavaRepository digestRepository,
+            NotificationAudience audience,
+            BatchedMailTransport mailTransport,
+            NotificationOutbox outbox
+    ) {
+        this.digestRepository = digestRepository;
+        this.audience = audience;
+        this.mailTransport = mailTransport;
+        this.outbox = outbox;
+    }
+
+    @Override
+    public String type() {
+        return OUTBOX_TYPE;
+    }
+
+    public void record(String type, Long objectId, Long organizerId) {
+        if (type == null || objectId == null || organizerId == null) return;
+        digestRepository.record(type, objectId, organizerId);
+    }
+
+    // the claimed items travel in the outbox payload, so a failed send is retried without re-reading DIGEST_OBJAVA
+    @Scheduled(fixedDelayString = "${notifications.digest.window-ms:3600000}",
+            initialDelayString = "${notifications.digest.window-ms:3600000}")
+    @Transactional
+    public void closeWindow() {
+        List<DigestEntry> entries = digestRepository.claimBefore(Instant.now());
+        if (entries.isEmpty()) return;
+        List<Map<String, Object>> items = entries.stream()
+                .map(e -> Map.<String, Object>of("type", e.getType(), "id", e.getObjectId(), "organizerId", e.getOrganizerId()))
+                .toList();
+        outbox.enqueue(OUTBOX_TYPE, Map.of("items", items));
+        log.info("Digest window closed with {} announcements", items.size());
+    }
+
+    // splits the window's audience into DIGEST_BATCH outbox rows, one per transport batch, each carrying the
+    // item ids and every recipient's organizers. The rows commit together with this handler, so a retry
+    // never leaves half the audience queued twice. Nothing is read for rendering or sent from here
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public void handle(Map<String, Object> payload) {
+        List<Map<String, Object>> items = (List<Map<String, Object>>) payload.getOrDefault("items", List.of());
+        Set<Long> organizerIds = new LinkedHashSet<>();
+        for (Map<String, Object> item : items) organizerIds.add(((Number) item.get("organizerId")).longValue());
+        if (organizerIds.isEmpty()) return;
+
+        int recipients = 0;
+        int batches = 0;
+        int batchSize = mailTransport.getBatchSize();
+        List<Map<String, Object>> batch = new ArrayList<>();
+
+        try (Stream<DigestSubscription> rows = audience.digestRecipients(organizerIds)) {
+            Iterator<DigestSubscription> it = rows.iterator();
+            DigestSubscription current = null;
+            Set<Long> organizers = new LinkedHashSet<>();
+            boolean everyOrganizer = false;
+            while (true) {
+                DigestSubscription row = it.hasNext() ? it.next() : null;
+                if (current != null && (row == null || !row.getUserId().equals(current.getUserId()))) {
+                    batch.add(DigestBatchHandler.recipient(current, everyOrganizer ? null : organizers));
+                    recipients++;
+                    organizers.clear();
+                    everyOrganizer = false;
+                    if (batch.size() >= batchSize) {
+                        enqueue(items, batch);
+                        batches++;
+                    }
+                }
+                if (row == null) break;
+                current = row;
+                if (row.getOrganizerId() == null) everyOrganizer = true;
+                else organizers.add(row.getOrganizerId());
+            }
+        }
+        if (!batch.isEmpty()) {
+            enqueue(items, batch);
+            batches++;
+        }
+
+        log.info("Digest queued. announcements={}, recipients={}, batches={}", items.size(), recipients, batches);
+    }
+
+    private void enqueue(List<Map<String, Object>> items, List<Map<String, Object>> batch) {
+        outbox.enqueue(DigestBatchHandler.TYPE, DigestBatchHandler.payload(items, new ArrayList<>(batch)));
+        batch.clear();
+    }
+}
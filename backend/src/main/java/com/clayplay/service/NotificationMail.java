@@ -0,0 +1,12 @@
+package com.clayplay.service;
+
+import org.springframework.mail.SimpleMailMessage;
+
+// plain-text message with an optional HTML alternative; BatchedMailTransport sends it as multipart/alternative
+public class NotificationMail extends SimpleMailMessage {
+
+    private String html;
+
+    public String getHtml() { return html; }
+    public void setHtml(String html) { this.html = html; }
+}
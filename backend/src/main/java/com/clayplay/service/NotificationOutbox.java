@@ -0,0 +1,29 @@
+package com.clayplay.service;
+
+import com.clayplay.repository.ObavijestOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@Service
+public class NotificationOutbox {
+
+    private final ObavijestOutboxRepository repository;
+    private final ObjectMapper mapper;
+
+    public NotificationOutbox(ObavijestOutboxRepository repository, ObjectMapper mapper) {
+        this.repository = repository;
+        this.mapper = mapper;
+    }
+
+    public void enqueue(String type, Map<String, Object> payload) {
+        if (type == null || type.isBlank()) throw new IllegalArgumentException("Missing outbox type");
+        try {
+            repository.enqueue(type, mapper.writeValueAsString(payload == null ? Map.of() : payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+    }
+}
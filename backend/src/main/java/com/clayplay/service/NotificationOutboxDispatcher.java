@@ -0,0 +1,172 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.OutboxMessage;
+import com.clayplay.repository.ObavijestOutboxRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class NotificationOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {};
+
+    private final ObavijestOutboxRepository repository;
+    private final ObjectMapper mapper;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final int leaseSeconds;
+    private final ExecutorService pool;
+    private final Semaphore slots;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public NotificationOutboxDispatcher(ObavijestOutboxRepository repository,
+                                        ObjectMapper mapper,
+                                        List<OutboxHandler> handlers,
+                                        @Value("${outbox.workers:4}") int workers,
+                                        @Value("${outbox.batch-size:20}") int batchSize,
+                                        @Value("${outbox.max-attempts:6}") int maxAttempts,
+                                        @Value("${outbox.backoff-ms:30000}") long backoffMs,
+                                        @Value("${outbox.max-backoff-ms:3600000}") long maxBackoffMs,
+                                        @Value("${outbox.lease-seconds:600}") int leaseSeconds) {
+        this.repository = repository;
+        this.mapper = mapper;
+        for (OutboxHandler h : handlers) this.handlers.put(h.type(), h);
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoff = Duration.ofMillis(Math.max(1, backoffMs));
+        this.maxBackoff = Duration.ofMillis(Math.max(backoffMs, maxBackoffMs));
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "outbox-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.slots = new Semaphore(this.workers);
+    }
+
+    // claims only as many rows as there are idle workers so nothing sits leased in a local queue
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int idle = slots.availablePermits();
+        if (idle == 0) return;
+        List<OutboxMessage> claimed;
+        try {
+            claimed = repository.claim(Math.min(idle, batchSize), leaseSeconds);
+        } catch (Exception e) {
+            log.warn("Outbox claim failed: {}", e.getMessage());
+            return;
+        }
+        for (OutboxMessage m : claimed) {
+            slots.acquireUninterruptibly();
+            try {
+                pool.execute(() -> {
+                    try {
+                        process(m);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+        }
+    }
+
+    void process(OutboxMessage m) {
+        try {
+            OutboxHandler handler = handlers.get(m.getType());
+            if (handler == null) throw new IllegalStateException("No outbox handler for type " + m.getType());
+            handler.handle(mapper.readValue(m.getPayload(), PAYLOAD));
+            repository.delete(m.getId());
+            delivered.increment();
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (m.getAttempts() >= maxAttempts) {
+                log.error("Outbox message {} ({}) dead-lettered after {} attempts: {}", m.getId(), m.getType(), m.getAttempts(), error);
+                repository.deadLetter(m.getId(), error);
+                deadLettered.increment();
+            } else {
+                Duration wait = backoff(m.getAttempts(), baseBackoff, maxBackoff);
+                long jitter = ThreadLocalRandom.current().nextLong(wait.toMillis() / 5 + 1);
+                log.warn("Outbox message {} ({}) failed attempt {}, retrying in {} ms: {}", m.getId(), m.getType(), m.getAttempts(), wait.toMillis() + jitter, error);
+                repository.reschedule(m.getId(), Instant.now().plus(wait).plusMillis(jitter), error);
+                retried.increment();
+            }
+        }
+    }
+
+    static Duration backoff(int attempt, Duration base, Duration max) {
+        int shift = Math.max(0, Math.min(attempt - 1, 30));
+        long millis = base.toMillis() << shift;
+        if (millis <= 0 || millis > max.toMillis()) return max;
+        return Duration.ofMillis(millis);
+    }
+
+    boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        if (!slots.tryAcquire(workers, timeoutMillis, TimeUnit.MILLISECONDS)) return false;
+        slots.release(workers);
+        return true;
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put("delivered", delivered.sum());
+        out.put("retried", retried.sum());
+        out.put("deadLettered", deadLettered.sum());
+        out.put("busyWorkers", (long) (workers - slots.availablePermits()));
+        try {
+            Map<String, Long> rows = repository.countByStatus();
+            out.put("pending", rows.getOrDefault("pending", 0L));
+            out.put("processing", rows.getOrDefault("processing", 0L));
+            out.put("dead", rows.getOrDefault("dead", 0L));
+        } catch (Exception e) {
+            out.put("pending", -1L);
+        }
+        return out;
+    }
+
+    public int retryDead() {
+        return repository.retryDead();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.model.Korisnik;
+import com.clayplay.model.Organizator;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.OrganizatorRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// announcement and digest emails from the templates in resources/mail, compiled once at startup.
+// Everything that is the same for every recipient is resolved once per announcement
+@Component
+public class NotificationRenderer {
+
+    static final List<String> ANNOUNCEMENT_VARS =
+            List.of("firstName", "organizer", "title", "category", "price", "when", "location", "description");
+    static final List<String> DIGEST_VARS = List.of("firstName", "sections");
+    static final List<String> DIGEST_SECTION_VARS = List.of("organizer", "items");
+    static final List<String> DIGEST_ITEM_VARS = List.of("kind", "title", "details");
+
+    private static final DateTimeFormatter WHEN = DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm");
+
+    private final OrganizatorRepository organizatorRepository;
+    private final String fromAddress;
+
+    private final MailTemplate productText;
+    private final MailTemplate productHtml;
+    private final MailTemplate workshopText;
+    private final MailTemplate workshopHtml;
+    private final MailTemplate digestText;
+    private final MailTemplate digestHtml;
+    private final MailTemplate sectionText;
+    private final MailTemplate sectionHtml;
+    private final MailTemplate itemText;
+    private final MailTemplate itemHtml;
+
+    public NotificationRenderer(
+            OrganizatorRepository organizatorRepository,
+            @Qualifier("mailFromAddress") String fromAddress
+    ) {
+        this.organizatorRepository = organizatorRepository;
+        this.fromAddress = fromAddress;
+        this.productText = load("product-created.txt", false, ANNOUNCEMENT_VARS);
+        this.productHtml = load("product-created.html", true, ANNOUNCEMENT_VARS);
+        this.workshopText = load("workshop-created.txt", false, ANNOUNCEMENT_VARS);
+        this.workshopHtml = load("workshop-created.html", true, ANNOUNCEMENT_VARS);
+        this.digestText = load("digest.txt", false, DIGEST_VARS);
+        this.digestHtml = load("digest.html", true, DIGEST_VARS);
+        this.sectionText = load("digest-section.txt", false, DIGEST_SECTION_VARS);
+        this.sectionHtml = load("digest-section.html", true, DIGEST_SECTION_VARS);
+        this.itemText = load("digest-item.txt", false, DIGEST_ITEM_VARS);
+        this.itemHtml = load("digest-item.html", true, DIGEST_ITEM_VARS);
+    }
+
+    private static MailTemplate load(String name, boolean html, List<String> variables) {
+        try (InputStream in = new ClassPathResource("mail/" + name).getInputStream()) {
+            return MailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8), html, variables);
+        } catch (IOException e) {
+            throw new IllegalStateException("Missing mail template " + name, e);
+        }
+    }
+
+    public final class Announcement {
+        private final MailTemplate text;
+        private final MailTemplate html;
+        private final String subject;
+        private final String[] values;
+
+        private Announcement(MailTemplate text, MailTemplate html, String subject, String[] values) {
+            this.text = text;
+            this.html = html;
+            this.subject = subject;
+            this.values = values;
+        }
+
+        public String getSubject() { return subject; }
+
+        public NotificationMail render(NotificationRecipient recipient) {
+            String[] v = values.clone();
+            v[0] = safe(recipient.getFirstName(), "").trim();
+            return mail(recipient.getEmail(), subject, text.render(v), html.render(v));
+        }
+    }
+
+    public Announcement product(Long organizerId, Proizvod product) {
+        String title = safe(product.getOpisProizvod(), "Novi proizvod").trim();
+        String[] values = new String[ANNOUNCEMENT_VARS.size()];
+        values[1] = organizerDisplayName(organizerId);
+        values[2] = title;
+        values[3] = safe(product.getKategorijaProizvod(), "").trim();
+        values[4] = product.getCijenaProizvod() != null ? product.getCijenaProizvod().toString() : null;
+        return new Announcement(productText, productHtml, "Novi proizvod u trgovini: " + title, values);
+    }
+
+    public Announcement workshop(Long organizerId, Radionica workshop) {
+        String title = safe(workshop.getNazivRadionica(), "Nova radionica");
+        String[] values = new String[ANNOUNCEMENT_VARS.size()];
+        values[1] = organizerDisplayName(organizerId);
+        values[2] = title;
+        values[5] = when(workshop);
+        values[6] = safe(workshop.getLokacijaRadionica(), "").trim();
+        values[7] = safe(workshop.getOpisRadionica(), "").trim();
+        return new Announcement(workshopText, workshopHtml, "Nova radionica: " + title, values);
+    }
+
+    // one organizer's part of a digest, rendered once and pasted into every recipient's email
+    public final class DigestSection {
+        private final String organizer;
+        private final StringBuilder textItems = new StringBuilder();
+        private final StringBuilder htmlItems = new StringBuilder();
+        private int count;
+        private String text;
+        private String html;
+
+        private DigestSection(String organizer) {
+            this.organizer = organizer;
+        }
+
+        public DigestSection add(Proizvod p) {
+            String category = safe(p.getKategorijaProizvod(), "").trim();
+            String price = p.getCijenaProizvod() != null ? p.getCijenaProizvod() + " €" : "";
+            return item("Novi proizvod", safe(p.getOpisProizvod(), "Novi proizvod").trim(), join(category, price));
+        }
+
+        public DigestSection add(Radionica r) {
+            return item("Nova radionica", safe(r.getNazivRadionica(), "Nova radionica"),
+                    join(when(r), safe(r.getLokacijaRadionica(), "").trim()));
+        }
+
+        private DigestSection item(String kind, String title, String details) {
+            String[] v = {kind, title, details};
+            itemText.renderTo(v, textItems);
+            itemHtml.renderTo(v, htmlItems);
+            count++;
+            text = null;
+            html = null;
+            return this;
+        }
+
+        public int getCount() { return count; }
+
+        public String text() {
+            if (text == null) render();
+            return text;
+        }
+
+        public String html() {
+            if (html == null) render();
+            return html;
+        }
+
+        private void render() {
+            text = sectionText.render(new String[]{organizer, textItems.toString()});
+            html = sectionHtml.render(new String[]{organizer, htmlItems.toString()});
+        }
+    }
+
+    public DigestSection digestSection(Long organizerId) {
+        return new DigestSection(organizerDisplayName(organizerId));
+    }
+
+    public NotificationMail digest(DigestSubscription recipient, String sectionsText, String sectionsHtml, int count) {
+        String firstName = safe(recipient.getFirstName(), "").trim();
+        String subject = "ClayPlay novosti: " + count + (count == 1 ? " nova objava" : " novih objava");
+        return mail(recipient.getEmail(), subject,
+                digestText.render(new String[]{firstName, sectionsText}),
+                digestHtml.render(new String[]{firstName, sectionsHtml}));
+    }
+
+    private NotificationMail mail(String to, String subject, String text, String html) {
+        NotificationMail msg = new NotificationMail();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            msg.setFrom(fromAddress);
+        }
+        msg.setTo(to);
+        msg.setSubject(subject);
+        msg.setText(text);
+        msg.setHtml(html);
+        return msg;
+    }
+
+    private static String when(Radionica r) {
+        try {
+            if (r.getDatVrRadionica() != null) return r.getDatVrRadionica().toLocalDateTime().format(WHEN);
+        } catch (Exception ignored) {
+        }
+        return "";
+    }
+
+    private static String join(String a, String b) {
+        if (a.isBlank()) return b;
+        if (b.isBlank()) return a;
+        return a + ", " + b;
+    }
+
+    public String organizerDisplayName(Long organizerId) {
+        try {
+            Organizator org = organizatorRepository.findById(organizerId).orElse(null);
+            if (org != null) {
+                if (org.getImeStudija() != null && !org.getImeStudija().isBlank()) return org.getImeStudija();
+                Korisnik k = org.getKorisnik();
+                if (k != null) {
+                    String full = (safe(k.getIme(), "") + " " + safe(k.getPrezime(), "")).trim();
+                    if (!full.isBlank()) return full;
+                    String email = safe(k.getEmail(), "").trim();
+                    if (!email.isBlank()) return email;
+                }
+            }
+        } catch (Exception ignored) {
+        }
+        return "organizator";
+    }
+
+    public static String safe(String v, String fallback) {
+        if (v == null) return fallback;
+        return v.isBlank() ? fallback : v;
+    }
+}
@@ -0,0 +1,11 @@
+package com.clayplay.service;
+
+import java.util.Map;
+
+public interface OutboxHandler {
+
+    String type();
+
+    // throwing schedules a retry; returning normally deletes the outbox row
+    void handle(Map<String, Object> payload) throws Exception;
+}
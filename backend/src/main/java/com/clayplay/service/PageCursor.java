@@ -0,0 +1,54 @@
+package com.clayplay.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+public final class PageCursor {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final OffsetDateTime at;
+    private final Long id;
+
+    private PageCursor(OffsetDateTime at, Long id) {
+        this.at = at;
+        this.id = id;
+    }
+
+    public OffsetDateTime getAt() { return at; }
+    public Long getId() { return id; }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    public static String encode(Long id) {
+        return encodeRaw(String.valueOf(id));
+    }
+
+    public static String encode(OffsetDateTime at, Long id) {
+        return encodeRaw(at.toInstant().toString() + "|" + id);
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) return new PageCursor(null, Long.valueOf(raw));
+            OffsetDateTime at = OffsetDateTime.ofInstant(Instant.parse(raw.substring(0, sep)), ZoneOffset.UTC);
+            return new PageCursor(at, Long.valueOf(raw.substring(sep + 1)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.PageResponse;
+import com.clayplay.dto.ProductResponse;
+import com.clayplay.model.Proizvod;
+import com.clayplay.repository.IdBatches;
+import com.clayplay.repository.ProizvodRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class ProductCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private final ProizvodRepository proizvodRepository;
+    private final ProductResponseAssembler assembler;
+    private final long epoch = System.currentTimeMillis();
+
+    private volatile Snapshot current;
+
+    public ProductCatalog(ProizvodRepository proizvodRepository, ProductResponseAssembler assembler) {
+        this.proizvodRepository = proizvodRepository;
+        this.assembler = assembler;
+    }
+
+    public static final class Snapshot {
+        private final long version;
+        private final String etag;
+        private final List<ProductResponse> items;
+
+        Snapshot(long epoch, long version, List<ProductResponse> items) {
+            this.version = version;
+            this.etag = "\"catalog-" + epoch + "-" + version + "\"";
+            this.items = Collections.unmodifiableList(items);
+        }
+
+        public long getVersion() { return version; }
+        public String getEtag() { return etag; }
+        public List<ProductResponse> getItems() { return items; }
+
+        public PageResponse<ProductResponse> page(Long afterId, int size) {
+            int from = 0;
+            if (afterId != null) {
+                int lo = 0, hi = items.size();
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (items.get(mid).proizvodId >= afterId) lo = mid + 1;
+                    else hi = mid;
+                }
+                from = lo;
+            }
+            int to = Math.min(items.size(), from + size);
+            List<ProductResponse> slice = items.subList(from, to);
+            String next = to < items.size() && !slice.isEmpty()
+                    ? PageCursor.encode(slice.get(slice.size() - 1).proizvodId)
+                    : null;
+            return new PageResponse<>(slice, next);
+        }
+    }
+
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+            Snapshot s = current;
+            long available = proizvodRepository.countByKupljenFalse();
+            if (available != s.getItems().size()) {
+                log.warn("Product catalog out of sync after load (memory={}, db={}), reloading", s.getItems().size(), available);
+                reload();
+            }
+            log.info("Product catalog loaded. version={}, products={}", current.getVersion(), current.getItems().size());
+        } catch (Exception e) {
+            current = null;
+            log.warn("Product catalog could not be loaded, serving products from the database: {}", e.getMessage());
+        }
+    }
+
+    // only ever called on this bean, so it runs in the caller's transaction: onChange's read-only one, or
+    // none at startup, where each keyset batch and assembler query commits on its own and no persistence
+    // context grows with the whole catalog
+    public synchronized void reload() {
+        // keyset batches keep each assembler round inside the IN-list bound and off one giant entity list
+        List<ProductResponse> items = new ArrayList<>();
+        PageRequest batch = PageRequest.of(0, IdBatches.SIZE);
+        List<Proizvod> page = proizvodRepository.findByKupljenFalseOrderByProizvodIdDesc(batch);
+        while (!page.isEmpty()) {
+            items.addAll(assembler.toDtos(page));
+            if (page.size() < IdBatches.SIZE) break;
+            Long last = page.get(page.size() - 1).getProizvodId();
+            page = proizvodRepository.findByKupljenFalseAndProizvodIdLessThanOrderByProizvodIdDesc(last, batch);
+        }
+        long version = current == null ? 1 : current.getVersion() + 1;
+        current = new Snapshot(epoch, version, items);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onChange(ProductCatalogChangedEvent event) {
+        Snapshot base = current;
+        if (base == null) return;
+        try {
+            if (event.isEverything()) {
+                reload();
+                return;
+            }
+            Set<Long> ids = new HashSet<>(event.getProductIds());
+            if (event.getSellerId() != null) {
+                for (ProductResponse r : base.getItems()) {
+                    if (event.getSellerId().equals(r.idKorisnik)) ids.add(r.proizvodId);
+                }
+            }
+            if (ids.isEmpty()) return;
+
+            TreeMap<Long, ProductResponse> byId = new TreeMap<>(Comparator.reverseOrder());
+            for (ProductResponse r : base.getItems()) byId.put(r.proizvodId, r);
+            byId.keySet().removeAll(ids);
+
+            List<Proizvod> fresh = new ArrayList<>();
+            for (Proizvod p : proizvodRepository.findAllById(ids)) {
+                if (!Boolean.TRUE.equals(p.getKupljen())) fresh.add(p);
+            }
+            for (ProductResponse r : assembler.toDtos(fresh)) byId.put(r.proizvodId, r);
+
+            current = new Snapshot(epoch, base.getVersion() + 1, new ArrayList<>(byId.values()));
+        } catch (Exception e) {
+            log.warn("Incremental catalog update failed, reloading: {}", e.getMessage());
+            try {
+                reload();
+            } catch (Exception reloadError) {
+                current = null;
+                log.error("Product catalog reload failed, serving products from the database", reloadError);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.clayplay.service;
+
+import java.util.Collection;
+import java.util.List;
+
+public class ProductCatalogChangedEvent {
+
+    private final List<Long> productIds;
+    private final Long sellerId;
+    private final boolean everything;
+
+    private ProductCatalogChangedEvent(List<Long> productIds, Long sellerId, boolean everything) {
+        this.productIds = productIds;
+        this.sellerId = sellerId;
+        this.everything = everything;
+    }
+
+    public static ProductCatalogChangedEvent everything() {
+        return new ProductCatalogChangedEvent(List.of(), null, true);
+    }
+
+    public static ProductCatalogChangedEvent ofProducts(Collection<Long> productIds) {
+        return new ProductCatalogChangedEvent(productIds == null ? List.of() : List.copyOf(productIds), null, false);
+    }
+
+    public static ProductCatalogChangedEvent ofSeller(Long sellerId) {
+        return new ProductCatalogChangedEvent(List.of(), sellerId, false);
+    }
+
+    public List<Long> getProductIds() { return productIds; }
+    public Long getSellerId() { return sellerId; }
+    public boolean isEverything() { return everything; }
+}
@@ -1,153 +1,110 @@
 package com.clayplay.service;
 
-import com.clayplay.model.Korisnik;
-import com.clayplay.model.Organizator;
-import com.clayplay.model.Polaznik;
+import com.clayplay.dto.NotificationRecipient;
 import com.clayplay.model.Proizvod;
-import com.clayplay.repository.KorisnikRepository;
-import com.clayplay.repository.OrganizatorRepository;
-import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.ProizvodRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
-public class ProductNotificationEmailService {
+public class ProductNotificationEmailService implements OutboxHandler {
+
+    public static final String OUTBOX_TYPE = "PRODUCT_CREATED";
 
     private static final Logger log = LoggerFactory.getLogger(ProductNotificationEmailService.class);
 
-    private final JavaMailSender mailSender;
-    private final PolaznikRepository polaznikRepository;
-    private final KorisnikRepository korisnikRepository;
-    private final OrganizatorRepository organizatorRepository;
-    private final String fromAddress;
+    private final BatchedMailTransport mailTransport;
+    private final NotificationAudience audience;
+    private final ProizvodRepository proizvodRepository;
+    private final NotificationOutbox outbox;
+    private final NotificationDigestService digest;
 
     public ProductNotificationEmailService(
-            JavaMailSender mailSender,
-            PolaznikRepository polaznikRepository,
-            KorisnikRepository korisnikRepository,
-            OrganizatorRepository organizatorRepository,
-            @Qualifier("mailFromAddress") String fromAddress
+            BatchedMailTransport mailTransport,
+            NotificationAudience audience,
+            ProizvodRepository proizvodRepository,
+            NotificationOutbox outbox,
+            NotificationDigestService digest
     ) {
-        this.mailSender = mailSender;
-        this.polaznikRepository = polaznikRepository;
-        this.korisnikRepository = korisnikRepository;
-        this.organizatorRepository = organizatorRepository;
-        this.fromAddress = fromAddress;
+        this.mailTransport = mailTransport;
+        this.audience = audience;
+        this.proizvodRepository = proizvodRepository;
+        this.outbox = outbox;
+        this.digest = digest;
+    }
+
+    public static Map<String, Object> payload(Long organizerId, Long productId) {
+        return Map.of("organizerId", organizerId, "productId", productId);
+    }
+
+    @Override
+    public String type() {
+        return OUTBOX_TYPE;
     }
 
-    @Transactional(readOnly = true)
+    @Override
+    @Transactional
+    public void handle(Map<String, Object> payload) {
+        Long id = ((Number) payload.get("productId")).longValue();
+        Long organizerId = ((Number) payload.get("organizerId")).longValue();
+        proizvodRepository.findById(id).ifPresent(target -> {
+            notifyAllSubscribedPolaznici(organizerId, target);
+            digest.record(NotificationDigestService.PRODUCT, id, organizerId);
+        });
+    }
+
+    // splits the audience into ANNOUNCEMENT_BATCH outbox rows, one per transport batch; they commit together
+    // with this handler, so a retry never leaves half the audience queued twice. Nothing is sent from here
+    @Transactional
     public void notifyAllSubscribedPolaznici(Long organizerId, Proizvod product) {
         if (organizerId == null || product == null) return;
 
-        String organizerName = resolveOrganizerDisplayName(organizerId);
-        String productTitle = safe(product.getOpisProizvod(), "Novi proizvod").trim();
-        String category = safe(product.getKategorijaProizvod(), "").trim();
-        BigDecimal price = product.getCijenaProizvod();
-
-        List<Polaznik> polaznici = polaznikRepository.findAll();
         int eligible = 0;
-        int sent = 0;
+        int batches = 0;
         int skipped = 0;
-
-        for (Polaznik p : polaznici) {
-            try {
-                if (p == null || !p.isZeliObavijesti()) continue;
-                eligible++;
-
-                Korisnik k = p.getKorisnik();
-                if (k == null) {
-                    k = korisnikRepository.findById(p.getIdKorisnik()).orElse(null);
-                }
-                if (k == null) {
-                    skipped++;
-                    continue;
-                }
-
-                if ("BLOCKED".equalsIgnoreCase(String.valueOf(k.getStatus()))) {
-                    skipped++;
-                    continue;
-                }
-
-                String to = safe(k.getEmail(), "").trim();
-                if (to.isBlank()) {
+        int batchSize = mailTransport.getBatchSize();
+        List<NotificationRecipient> batch = new ArrayList<>();
+
+        try (Stream<NotificationRecipient> recipients = audience.recipients(organizerId)) {
+            Iterator<NotificationRecipient> it = recipients.iterator();
+            while (it.hasNext()) {
+                NotificationRecipient recipient = it.next();
+                if (recipient == null || recipient.getEmail() == null || recipient.getEmail().isBlank()) {
                     skipped++;
                     continue;
                 }
-
-                String firstName = safe(k.getIme(), "").trim();
-                String greetingName = firstName.isBlank() ? "" : (" " + firstName);
-
-                StringBuilder text = new StringBuilder();
-                text.append("Pozdrav").append(greetingName).append("!\n\n");
-                text.append("Organizator ").append(organizerName)
-                        .append(" je upravo dodao novi proizvod u trgovinu: \"")
-                        .append(productTitle)
-                        .append("\".\n\n");
-
-                if (!category.isBlank()) {
-                    text.append("Kategorija: ").append(category).append("\n");
-                }
-                if (price != null) {
-                    text.append("Cijena: ").append(price).append(" €\n");
-                }
-
-                text.append("\nProvjerite ponudu u aplikaciji.\n");
-                text.append("\nLijep pozdrav,\nClayPlay\n");
-
-                SimpleMailMessage msg = new SimpleMailMessage();
-                if (fromAddress != null && !fromAddress.isBlank()) {
-                    msg.setFrom(fromAddress);
+                eligible++;
+                batch.add(recipient);
+                if (batch.size() >= batchSize) {
+                    enqueue(organizerId, product.getProizvodId(), batch);
+                    batches++;
                 }
-                msg.setTo(to);
-                msg.setSubject("Novi proizvod u trgovini: " + productTitle);
-                msg.setText(text.toString());
-
-                mailSender.send(msg);
-                sent++;
-            } catch (Exception e) {
-                log.warn("Failed to send product notification email", e);
             }
         }
+        if (!batch.isEmpty()) {
+            enqueue(organizerId, product.getProizvodId(), batch);
+            batches++;
+        }
 
-        log.info("Product notifications finished. eligible={}, sent={}, skipped={}, organizerId={}, proizvodId={}",
-                eligible, sent, skipped, organizerId, product.getProizvodId());
+        log.info("Product notifications queued. eligible={}, batches={}, skipped={}, organizerId={}, proizvodId={}",
+                eligible, batches, skipped, organizerId, product.getProizvodId());
 
         if (eligible == 0) {
-            log.warn("No subscribed polaznici found (POLAZNIK.zeliobavijesti=true). No emails attempted.");
-        } else if (sent == 0) {
-            log.warn("Subscribed polaznici exist but no emails were sent. Check KORISNIK.status, missing emails, and mail.from configuration.");
-        }
-    }
-
-    private String resolveOrganizerDisplayName(Long organizerId) {
-        try {
-            Organizator org = organizatorRepository.findById(organizerId).orElse(null);
-            if (org != null) {
-                if (org.getImeStudija() != null && !org.getImeStudija().isBlank()) return org.getImeStudija();
-                Korisnik k = org.getKorisnik();
-                if (k != null) {
-                    String full = (safe(k.getIme(), "") + " " + safe(k.getPrezime(), "")).trim();
-                    if (!full.isBlank()) return full;
-                    String email = safe(k.getEmail(), "").trim();
-                    if (!email.isBlank()) return email;
-                }
-            }
-        } catch (Exception ignored) {
+            log.warn("No recipients found (audience={}, organizerId={}). No emails attempted.", audience.mode(), organizerId);
         }
-        return "organizator";
     }
 
-    private static String safe(String v, String fallback) {
-        if (v == null) return fallback;
-        String s = String.valueOf(v);
-        return s.isBlank() ? fallback : s;
+    private void enqueue(Long organizerId, Long productId, List<NotificationRecipient> batch) {
+        outbox.enqueue(AnnouncementBatchHandler.TYPE,
+                AnnouncementBatchHandler.payload(NotificationDigestService.PRODUCT, organizerId, productId, batch));
+        batch.clear();
     }
 }
@@ -0,0 +1,119 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductResponse;
+import com.clayplay.model.Proizvod;
+import com.clayplay.repository.FotoProizvodRepository;
+import com.clayplay.repository.IdBatches;
+import com.clayplay.repository.OcjenaProdavacaRepository;
+import com.clayplay.repository.RecenzijaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class ProductResponseAssembler {
+
+    private final FotoProizvodRepository fotoProizvodRepository;
+    private final RecenzijaRepository recenzijaRepository;
+    private final OcjenaProdavacaRepository ocjenaProdavacaRepository;
+
+    public ProductResponseAssembler(FotoProizvodRepository fotoProizvodRepository,
+                                    RecenzijaRepository recenzijaRepository,
+                                    OcjenaProdavacaRepository ocjenaProdavacaRepository) {
+        this.fotoProizvodRepository = fotoProizvodRepository;
+        this.recenzijaRepository = recenzijaRepository;
+        this.ocjenaProdavacaRepository = ocjenaProdavacaRepository;
+    }
+
+    public ProductResponse toDto(Proizvod p) {
+        return toDtos(List.of(p)).get(0);
+    }
+
+    public List<ProductResponse> toDtos(List<Proizvod> products) {
+        if (products == null || products.isEmpty()) return List.of();
+
+        Set<Long> sellerIds = new HashSet<>();
+        List<Long> productIds = new ArrayList<>();
+        for (Proizvod p : products) {
+            if (p.getIdKorisnik() != null) sellerIds.add(p.getIdKorisnik());
+            if (p.getProizvodId() != null) productIds.add(p.getProizvodId());
+        }
+
+        Map<Long, OcjenaProdavacaRepository.Totals> sellerTotals = Map.of();
+        Map<Long, OcjenaProdavacaRepository.Totals> productTotals = Map.of();
+        Map<Long, SellerComments> commentsBySeller = new HashMap<>();
+        boolean reviewsLoaded = false;
+        if (!sellerIds.isEmpty()) {
+            try {
+                sellerTotals = ocjenaProdavacaRepository.findSellerTotals(sellerIds);
+                productTotals = ocjenaProdavacaRepository.findProductTotals(productIds);
+                // a seller's comments all come from one batch, so their newest-first order holds
+                for (List<Long> batch : IdBatches.of(sellerIds)) {
+                    for (Object[] row : recenzijaRepository.commentTextsForSellers(batch)) {
+                        commentsBySeller.computeIfAbsent(((Number) row[0]).longValue(), k -> new SellerComments())
+                                .add(((Number) row[1]).longValue(), (String) row[2]);
+                    }
+                }
+                reviewsLoaded = true;
+            } catch (Exception ignored) {}
+        }
+
+        Map<Long, String> images = fotoProizvodRepository.findFirstImageUrls(productIds);
+
+        List<ProductResponse> out = new ArrayList<>(products.size());
+        for (Proizvod p : products) {
+            ProductResponse r = new ProductResponse();
+            r.proizvodId = p.getProizvodId();
+            r.opisProizvod = p.getOpisProizvod();
+            r.cijenaProizvod = p.getCijenaProizvod();
+            r.kategorijaProizvod = p.getKategorijaProizvod();
+            r.idKorisnik = p.getIdKorisnik();
+            r.kupljen = p.getKupljen();
+            Long sellerId = p.getIdKorisnik();
+            Long productId = p.getProizvodId();
+            if (reviewsLoaded && sellerId != null && productId != null) {
+                OcjenaProdavacaRepository.Totals seller = sellerTotals.get(sellerId);
+                OcjenaProdavacaRepository.Totals own = productTotals.get(productId);
+                long sum = (seller == null ? 0 : seller.sum) - (own == null ? 0 : own.sum);
+                long count = (seller == null ? 0 : seller.count) - (own == null ? 0 : own.count);
+                r.organizerAvgRating = count <= 0 ? null : (double) sum / count;
+                r.organizerReviewCount = Math.max(0, count);
+                r.organizerReviewComments = commentsBySeller.getOrDefault(sellerId, SellerComments.EMPTY).excluding(productId);
+            }
+            r.imageUrl = productId == null ? null : images.get(productId);
+            r.nazivProizvod = p.getOpisProizvod();
+            r.title = p.getOpisProizvod();
+            out.add(r);
+        }
+        return out;
+    }
+
+    private static final class SellerComments {
+        static final SellerComments EMPTY = new SellerComments();
+
+        private final List<String> texts = new ArrayList<>();
+        private final List<Long> productIds = new ArrayList<>();
+        private final Set<Long> commentedProducts = new HashSet<>();
+
+        void add(Long productId, String text) {
+            texts.add(text);
+            productIds.add(productId);
+            commentedProducts.add(productId);
+        }
+
+        List<String> excluding(Long productId) {
+            if (!commentedProducts.contains(productId)) return Collections.unmodifiableList(texts);
+            List<String> out = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                if (!productId.equals(productIds.get(i))) out.add(texts.get(i));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductResponse;
+import com.clayplay.dto.ProductSearchResponse;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+public final class ProductSearchIndex {
+
+    private final List<ProductResponse> docs;
+    private final long[] ids;
+    private final double[] prices;
+    private final int[] categoryOf;
+    private final String[] categoryKeys;
+    private final String[] categoryLabels;
+    private final String[] terms;
+    private final int[][] postings;
+
+    private ProductSearchIndex(List<ProductResponse> docs, long[] ids, double[] prices, int[] categoryOf,
+                               String[] categoryKeys, String[] categoryLabels, String[] terms, int[][] postings) {
+        this.docs = docs;
+        this.ids = ids;
+        this.prices = prices;
+        this.categoryOf = categoryOf;
+        this.categoryKeys = categoryKeys;
+        this.categoryLabels = categoryLabels;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    // docs must be ordered by proizvodId descending, as the catalog snapshot is
+    public static ProductSearchIndex build(List<ProductResponse> docs) {
+        int n = docs.size();
+        long[] ids = new long[n];
+        double[] prices = new double[n];
+        int[] categoryOf = new int[n];
+        Map<String, Integer> categories = new HashMap<>();
+        List<String> categoryKeys = new ArrayList<>();
+        List<String> categoryLabels = new ArrayList<>();
+        Map<String, IntList> byTerm = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            ProductResponse p = docs.get(i);
+            ids[i] = p.proizvodId == null ? 0L : p.proizvodId;
+            prices[i] = p.cijenaProizvod == null ? Double.NaN : p.cijenaProizvod.doubleValue();
+
+            String label = p.kategorijaProizvod == null ? "" : p.kategorijaProizvod.trim();
+            String key = fold(label);
+            Integer c = categories.get(key);
+            if (c == null) {
+                c = categoryKeys.size();
+                categories.put(key, c);
+                categoryKeys.add(key);
+                categoryLabels.add(label);
+            }
+            categoryOf[i] = c;
+
+            for (String t : tokenize(Objects.toString(p.opisProizvod, "") + " " + label)) {
+                IntList list = byTerm.computeIfAbsent(t, k -> new IntList());
+                if (list.size == 0 || list.last() != i) list.add(i);
+            }
+        }
+
+        String[] terms = byTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[][] postings = new int[terms.length][];
+        for (int t = 0; t < terms.length; t++) postings[t] = byTerm.get(terms[t]).toArray();
+
+        return new ProductSearchIndex(docs, ids, prices, categoryOf,
+                categoryKeys.toArray(new String[0]), categoryLabels.toArray(new String[0]), terms, postings);
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public ProductSearchResponse search(String query, BigDecimal minPrice, BigDecimal maxPrice,
+                                        String category, Long afterId, int limit) {
+        int n = docs.size();
+        BitSet matches = new BitSet(n);
+        matches.set(0, n);
+
+        for (String token : tokenize(query)) {
+            matches.and(prefixMatches(token));
+            if (matches.isEmpty()) break;
+        }
+
+        if (minPrice != null || maxPrice != null) {
+            double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice.doubleValue();
+            double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice.doubleValue();
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                double price = prices[i];
+                if (Double.isNaN(price) || price < min || price > max) matches.clear(i);
+            }
+        }
+
+        // facets count every category that survives the text and price filters
+        long[] counts = new long[categoryKeys.length];
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) counts[categoryOf[i]]++;
+
+        String categoryKey = category == null || category.isBlank() ? null : fold(category.trim());
+        long total = 0;
+        if (categoryKey == null) {
+            total = matches.cardinality();
+        } else {
+            int wanted = -1;
+            for (int c = 0; c < categoryKeys.length; c++) {
+                if (categoryKeys[c].equals(categoryKey)) wanted = c;
+            }
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (categoryOf[i] != wanted) matches.clear(i);
+            }
+            total = wanted < 0 ? 0 : counts[wanted];
+        }
+
+        int from = 0;
+        if (afterId != null) {
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ids[mid] >= afterId) lo = mid + 1;
+                else hi = mid;
+            }
+            from = lo;
+        }
+
+        List<ProductResponse> items = new ArrayList<>(Math.min(limit, 32));
+        int i = matches.nextSetBit(from);
+        while (i >= 0 && items.size() < limit) {
+            items.add(docs.get(i));
+            i = matches.nextSetBit(i + 1);
+        }
+        String next = i >= 0 && !items.isEmpty()
+                ? PageCursor.encode(items.get(items.size() - 1).proizvodId)
+                : null;
+
+        return new ProductSearchResponse(items, next, total, facets(counts));
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet bits = new BitSet(docs.size());
+        int start = Arrays.binarySearch(terms, prefix);
+        if (start < 0) start = -start - 1;
+        for (int t = start; t < terms.length && terms[t].startsWith(prefix); t++) {
+            for (int doc : postings[t]) bits.set(doc);
+        }
+        return bits;
+    }
+
+    private Map<String, Long> facets(long[] counts) {
+        Integer[] order = new Integer[counts.length];
+        for (int c = 0; c < order.length; c++) order[c] = c;
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b]
+                ? Long.compare(counts[b], counts[a])
+                : categoryLabels[a].compareToIgnoreCase(categoryLabels[b]));
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (int c : order) {
+            if (counts[c] > 0) out.put(categoryLabels[c], counts[c]);
+        }
+        return out;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isBlank()) return out;
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                out.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    // č, ć -> c, š -> s, ž -> z and đ -> d, so "cupa" finds "Šalica i čupa"
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        boolean ascii = true;
+        for (int i = 0; i < lower.length() && ascii; i++) ascii = lower.charAt(i) < 128;
+        if (ascii) return lower;
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char ch = decomposed.charAt(i);
+            if (Character.getType(ch) != Character.NON_SPACING_MARK) sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int last() {
+            return data[size - 1];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
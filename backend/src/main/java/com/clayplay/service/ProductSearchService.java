@@ -0,0 +1,117 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductSearchResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// keeps one search index per catalog snapshot. A new snapshot is indexed on a background thread and
+// swapped in when done; until then searches keep answering from the previous index
+@Service
+public class ProductSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+    // without a catalog snapshot the index is built from the database and refreshed at most this often
+    private static final long FALLBACK_MAX_AGE_MS = 30_000;
+
+    private final ProductService products;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "product-search-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile IndexedVersion indexed;
+
+    public ProductSearchService(ProductService products) {
+        this.products = products;
+    }
+
+    private static final class IndexedVersion {
+        final ProductCatalog.Snapshot snapshot;
+        final ProductSearchIndex index;
+        final long builtAt = System.currentTimeMillis();
+
+        IndexedVersion(ProductCatalog.Snapshot snapshot, ProductSearchIndex index) {
+            this.snapshot = snapshot;
+            this.index = index;
+        }
+    }
+
+    public ProductSearchResponse search(String query, BigDecimal minPrice, BigDecimal maxPrice,
+                                        String category, String cursor, Integer limit) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+        }
+        int size = PageCursor.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        return index().search(query, minPrice, maxPrice, category, after == null ? null : after.getId(), size);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(ProductCatalogChangedEvent event) {
+        if (indexed != null) scheduleRebuild();
+    }
+
+    ProductSearchIndex index() {
+        IndexedVersion current = indexed;
+        if (current == null) return firstBuild();
+        if (isStale(current)) scheduleRebuild();
+        return current.index;
+    }
+
+    private boolean isStale(IndexedVersion v) {
+        ProductCatalog.Snapshot snapshot = products.catalogSnapshot();
+        if (snapshot != null) return v.snapshot != snapshot;
+        return v.snapshot != null || System.currentTimeMillis() - v.builtAt > FALLBACK_MAX_AGE_MS;
+    }
+
+    // only the very first search waits for an index
+    private synchronized ProductSearchIndex firstBuild() {
+        if (indexed == null) indexed = build();
+        return indexed.index;
+    }
+
+    private IndexedVersion build() {
+        ProductCatalog.Snapshot snapshot = products.catalogSnapshot();
+        return new IndexedVersion(snapshot,
+                ProductSearchIndex.build(snapshot != null ? snapshot.getItems() : products.listAll()));
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) return;
+        try {
+            rebuilder.execute(() -> {
+                try {
+                    IndexedVersion fresh = build();
+                    indexed = fresh;
+                    // the catalog may have moved on while this one was being built
+                    if (isStale(fresh)) {
+                        rebuilding.set(false);
+                        scheduleRebuild();
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Product search index rebuild failed, keeping the previous one: {}", e.getMessage());
+                }
+                rebuilding.set(false);
+            });
+        } catch (RejectedExecutionException e) {
+            rebuilding.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
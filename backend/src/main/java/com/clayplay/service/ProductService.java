@@ -1,5 +1,6 @@
 package com.clayplay.service;
 
+import com.clayplay.dto.PageResponse;
 import com.clayplay.dto.ProductResponse;
 import com.clayplay.model.Fotografija;
 import com.clayplay.model.Kupovina;
@@ -8,13 +9,14 @@ import com.clayplay.repository.FotoProizvodRepository;
 import com.clayplay.repository.FotografijaRepository;
 import com.clayplay.repository.KupovinaRepository;
 import com.clayplay.repository.ProizvodRepository;
-import com.clayplay.repository.RecenzijaRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -23,45 +25,71 @@ public class ProductService {
     private final FotografijaRepository fotografijaRepository;
     private final FotoProizvodRepository fotoProizvodRepository;
     private final KupovinaRepository kupovinaRepository;
-    private final RecenzijaRepository recenzijaRepository;
+    private final ProductResponseAssembler assembler;
+    private final ProductCatalog catalog;
+    private final ApplicationEventPublisher events;
     private final FileStorageService storage;
-    private final ProductNotificationEmailService productNotificationEmailService;
+    private final NotificationOutbox outbox;
 
     public ProductService(ProizvodRepository proizvodRepository,
                           FotografijaRepository fotografijaRepository,
                           FotoProizvodRepository fotoProizvodRepository,
                           KupovinaRepository kupovinaRepository,
-                          RecenzijaRepository recenzijaRepository,
+                          ProductResponseAssembler assembler,
+                          ProductCatalog catalog,
+                          ApplicationEventPublisher events,
                           FileStorageService storage,
-                          ProductNotificationEmailService productNotificationEmailService) {
+                          NotificationOutbox outbox) {
         this.proizvodRepository = proizvodRepository;
         this.fotografijaRepository = fotografijaRepository;
         this.fotoProizvodRepository = fotoProizvodRepository;
         this.kupovinaRepository = kupovinaRepository;
-        this.recenzijaRepository = recenzijaRepository;
+        this.assembler = assembler;
+        this.catalog = catalog;
+        this.events = events;
         this.storage = storage;
-        this.productNotificationEmailService = productNotificationEmailService;
+        this.outbox = outbox;
     }
 
     public List<ProductResponse> listAll() {
-        return proizvodRepository.findByKupljenFalseOrderByProizvodIdDesc()
-                .stream()
-                .map(p -> toDto(p))
-                .collect(Collectors.toList());
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+        if (snapshot != null) return snapshot.getItems();
+        return assembler.toDtos(proizvodRepository.findByKupljenFalseOrderByProizvodIdDesc());
+    }
+
+    public ProductCatalog.Snapshot catalogSnapshot() {
+        return catalog.snapshot();
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<ProductResponse> listPage(String cursor, Integer limit) {
+        int size = PageCursor.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+        if (snapshot != null) return snapshot.page(after == null ? null : after.getId(), size);
+
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Proizvod> rows = after == null
+                ? proizvodRepository.findByKupljenFalseOrderByProizvodIdDesc(page)
+                : proizvodRepository.findByKupljenFalseAndProizvodIdLessThanOrderByProizvodIdDesc(after.getId(), page);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            next = PageCursor.encode(rows.get(size - 1).getProizvodId());
+        }
+        return new PageResponse<>(assembler.toDtos(rows), next);
     }
 
     @Transactional(readOnly = true)
     public List<ProductResponse> listBySeller(Long sellerId) {
         if (sellerId == null) return List.of();
-        return proizvodRepository.findByIdKorisnikOrderByProizvodIdDesc(sellerId)
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return assembler.toDtos(proizvodRepository.findByIdKorisnikOrderByProizvodIdDesc(sellerId));
     }
 
     public ProductResponse getById(Long id) {
         Proizvod p = proizvodRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Not found"));
-        return toDto(p);
+        return assembler.toDto(p);
     }
 
     @Transactional
@@ -83,11 +111,12 @@ public class ProductService {
         k.setProizvodId(id);
         kupovinaRepository.save(k);
 
-        return toDto(saved);
+        events.publishEvent(ProductCatalogChangedEvent.ofProducts(List.of(id)));
+        return assembler.toDto(saved);
     }
 
     @Transactional
-    public Long create(Long idKorisnik, String opis, BigDecimal cijena, String kategorija, byte[] imageBytes, String contentType) {
+    public Long create(Long idKorisnik, String opis, BigDecimal cijena, String kategorija, MultipartFile image) {
         Proizvod p = new Proizvod();
         p.setIdKorisnik(idKorisnik);
         p.setOpisProizvod(opis);
@@ -95,45 +124,17 @@ public class ProductService {
         p.setKategorijaProizvod(kategorija);
         Proizvod saved = proizvodRepository.save(p);
 
-        if (imageBytes != null && imageBytes.length > 0) {
-            String publicUrl = storage.save(imageBytes, contentType);
-            Fotografija f = new Fotografija();
-            f.setFotoURL(publicUrl);
-            Fotografija sf = fotografijaRepository.save(f);
+        if (image != null && !image.isEmpty()) {
+            String publicUrl = storage.save(image);
+            Fotografija sf = fotografijaRepository.findOrCreate(publicUrl);
             fotoProizvodRepository.link(saved.getProizvodId(), sf.getFotoId());
         }
 
-        try {
-            productNotificationEmailService.notifyAllSubscribedPolaznici(idKorisnik, saved);
-        } catch (Exception ignored) {
-        }
+        events.publishEvent(ProductCatalogChangedEvent.ofProducts(List.of(saved.getProizvodId())));
 
-        return saved.getProizvodId();
-    }
+        outbox.enqueue(ProductNotificationEmailService.OUTBOX_TYPE,
+                ProductNotificationEmailService.payload(idKorisnik, saved.getProizvodId()));
 
-    private ProductResponse toDto(Proizvod p) {
-        ProductResponse r = new ProductResponse();
-        r.proizvodId = p.getProizvodId();
-        r.opisProizvod = p.getOpisProizvod();
-        r.cijenaProizvod = p.getCijenaProizvod();
-        r.kategorijaProizvod = p.getKategorijaProizvod();
-        r.idKorisnik = p.getIdKorisnik();
-        r.kupljen = p.getKupljen();
-        try {
-            Long sellerId = p.getIdKorisnik();
-            Long productId = p.getProizvodId();
-            if (sellerId != null && productId != null) {
-                r.organizerAvgRating = recenzijaRepository.avgRatingForSellerExcluding(sellerId, productId);
-                r.organizerReviewCount = recenzijaRepository.countReviewsForSellerExcluding(sellerId, productId);
-                r.organizerReviewComments = recenzijaRepository.commentTextsForSellerExcluding(sellerId, productId);
-            }
-        } catch (Exception ignored) {}
-        try {
-            String url = fotoProizvodRepository.findFirstImageUrl(p.getProizvodId());
-            r.imageUrl = url;
-        } catch (Exception ignored) {}
-        r.nazivProizvod = p.getOpisProizvod();
-        r.title = p.getOpisProizvod();
-        return r;
+        return saved.getProizvodId();
     }
 }
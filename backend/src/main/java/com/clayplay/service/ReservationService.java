@@ -1,9 +1,16 @@
 package com.clayplay.service;
 
 import com.clayplay.model.Rezervacija;
+import com.clayplay.repository.CheckoutBatchRepository;
+import com.clayplay.repository.ListaCekanjaRepository;
 import com.clayplay.repository.RezervacijaRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,32 +18,38 @@ import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
+    private static final int MAX_PROMOTION_ATTEMPTS = 5;
+
     private final RezervacijaRepository rezervacijaRepository;
+    private final SeatInventory seatInventory;
+    private final ListaCekanjaRepository listaCekanjaRepository;
+    private final CheckoutBatchRepository checkoutBatchRepository;
+    private final NotificationOutbox outbox;
+    private final ApplicationEventPublisher events;
 
-    public ReservationService(RezervacijaRepository rezervacijaRepository) {
+    public ReservationService(RezervacijaRepository rezervacijaRepository,
+                              SeatInventory seatInventory,
+                              ListaCekanjaRepository listaCekanjaRepository,
+                              CheckoutBatchRepository checkoutBatchRepository,
+                              NotificationOutbox outbox,
+                              ApplicationEventPublisher events) {
         this.rezervacijaRepository = rezervacijaRepository;
+        this.seatInventory = seatInventory;
+        this.listaCekanjaRepository = listaCekanjaRepository;
+        this.checkoutBatchRepository = checkoutBatchRepository;
+        this.outbox = outbox;
+        this.events = events;
     }
 
-    @Transactional
+    // admission happens on SeatInventory's counter; the write is batched with other applicants
     public Long apply(Long userId, Long workshopId) {
         if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
 
         Optional<Rezervacija> existing = rezervacijaRepository.findByIdKorisnikAndIdRadionica(userId, workshopId);
-        if (existing.isPresent()) {
-            Rezervacija r = existing.get();
-            if ("reserved".equalsIgnoreCase(r.getStatusRez())) {
-                throw new IllegalArgumentException("Već ste prijavljeni na radionicu.");
-            }
-            r.setStatusRez("reserved"); 
-            return rezervacijaRepository.save(r).getIdRezervacija();
+        if (existing.isPresent() && "reserved".equalsIgnoreCase(existing.get().getStatusRez())) {
+            throw new IllegalArgumentException("Već ste prijavljeni na radionicu.");
         }
-
-        Rezervacija r = new Rezervacija();
-        r.setIdKorisnik(userId);
-        r.setIdRadionica(workshopId);
-        r.setStatusRez("reserved");
-        Rezervacija saved = rezervacijaRepository.save(r);
-        return saved.getIdRezervacija();
+        return seatInventory.reserve(userId, workshopId);
     }
 
     @Transactional
@@ -47,9 +60,112 @@ public class ReservationService {
                 .orElseThrow(() -> new IllegalArgumentException("Niste prijavljeni na radionicu."));
 
         if (!"canceled".equalsIgnoreCase(r.getStatusRez())) {
+            boolean freesSeat = "reserved".equalsIgnoreCase(r.getStatusRez());
             r.setStatusRez("canceled");
-            rezervacijaRepository.save(r);
+            rezervacijaRepository.saveAndFlush(r);
+            if (freesSeat) promoteFromWaitlist(workshopId);
+            events.publishEvent(new WorkshopSeatsChangedEvent(List.of(workshopId)));
+        }
+    }
+
+    // the freed seat goes to the head of the queue while the cancel still holds the RADIONICA row lock
+    private void promoteFromWaitlist(Long workshopId) {
+        for (int attempt = 0; attempt < MAX_PROMOTION_ATTEMPTS; attempt++) {
+            Long next = listaCekanjaRepository.popHead(workshopId);
+            if (next == null) return;
+            if (!checkoutBatchRepository.reserve(next, List.of(workshopId)).isEmpty()) {
+                outbox.enqueue(WaitlistNotificationEmailService.OUTBOX_TYPE,
+                        WaitlistNotificationEmailService.payload(next, workshopId));
+                return;
+            }
+        }
+    }
+
+    // every other way a seat comes free (an expired or dropped cart hold, a failed checkout, a request
+    // that gave up, a resync) goes through the SeatInventory counter. The seat is taken off the counter
+    // before the head is popped, so a walk-in applicant cannot win the same seat; a failed write rolls
+    // the pop back and the counter is resynced
+    @Async
+    @EventListener
+    @Transactional
+    public void onSeatsFreed(WorkshopSeatsFreedEvent event) {
+        Long workshopId = event.getWorkshopId();
+        for (int attempt = 0; attempt < MAX_PROMOTION_ATTEMPTS; attempt++) {
+            if (!listaCekanjaRepository.hasWaiting(workshopId)) return;
+            if (!seatInventory.hold(workshopId)) return;
+            Long next = listaCekanjaRepository.popHead(workshopId);
+            if (next == null) {
+                seatInventory.releaseHold(workshopId);
+                return;
+            }
+            if (checkoutBatchRepository.reserve(next, List.of(workshopId)).isEmpty()) {
+                // already has a seat; the next one in line gets it
+                seatInventory.releaseHold(workshopId);
+                continue;
+            }
+            outbox.enqueue(WaitlistNotificationEmailService.OUTBOX_TYPE,
+                    WaitlistNotificationEmailService.payload(next, workshopId));
+            settleOnCompletion(workshopId);
+        }
+    }
+
+    private void settleOnCompletion(Long workshopId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            seatInventory.commitHold(workshopId);
+            return;
+        }
+        // on rollback too the counter is rebuilt from the database rather than handed the seat back, so a
+        // write the database keeps refusing does not announce the same seat again and again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                seatInventory.commitHold(workshopId);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    @Transactional
+    public long joinWaitlist(Long userId, Long workshopId) {
+        if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
+        Optional<Rezervacija> existing = rezervacijaRepository.findByIdKorisnikAndIdRadionica(userId, workshopId);
+        if (existing.isPresent() && "reserved".equalsIgnoreCase(existing.get().getStatusRez())) {
+            throw new IllegalArgumentException("Već ste prijavljeni na radionicu.");
+        }
+        // the counter already leaves out seats held in carts and writes still in flight
+        if (seatInventory.freeSeats(workshopId) > 0) {
+            throw new IllegalArgumentException("Radionica još ima slobodnih mjesta.");
         }
+        listaCekanjaRepository.join(userId, workshopId);
+        // a seat freed between the check and the insert found nobody to promote; retry once the join is visible
+        if (seatInventory.freeSeats(workshopId) > 0) afterCommit(() -> events.publishEvent(new WorkshopSeatsFreedEvent(workshopId)));
+        return listaCekanjaRepository.position(userId, workshopId);
+    }
+
+    @Transactional
+    public void leaveWaitlist(Long userId, Long workshopId) {
+        if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
+        if (!listaCekanjaRepository.leave(userId, workshopId)) {
+            throw new IllegalArgumentException("Niste na listi čekanja.");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long waitlistPosition(Long userId, Long workshopId) {
+        if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
+        return listaCekanjaRepository.position(userId, workshopId);
     }
 
     @Transactional(readOnly = true)
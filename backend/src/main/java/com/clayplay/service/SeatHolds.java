@@ -0,0 +1,236 @@
+package com.clayplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// a workshop in the cart keeps its seats off the SeatInventory counter until checkout, removal or expiry
+@Service
+public class SeatHolds {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatHolds.class);
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int LEVELS = 3;
+
+    private static final class Key {
+        final Long userId;
+        final Long workshopId;
+
+        Key(Long userId, Long workshopId) {
+            this.userId = userId;
+            this.workshopId = workshopId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return userId.equals(k.userId) && workshopId.equals(k.workshopId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, workshopId);
+        }
+    }
+
+    private static final class Hold {
+        // one seat per unit of quantity across the user's cart lines for this workshop
+        final int seats;
+        final long deadline;
+        volatile TimingWheel.Timeout timeout;
+
+        Hold(int seats, long deadline) {
+            this.seats = seats;
+            this.deadline = deadline;
+        }
+
+        boolean cancel() {
+            TimingWheel.Timeout t = timeout;
+            return t != null && t.cancel();
+        }
+    }
+
+    private final SeatInventory inventory;
+    private final Duration ttl;
+    private final Duration checkoutTtl;
+    private final LongSupplier clock;
+    private final TimingWheel wheel;
+    private final Map<Key, Hold> holds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SeatHolds(SeatInventory inventory,
+                     @Value("${seats.hold-ttl-minutes:15}") long ttlMinutes,
+                     @Value("${checkout.ttl-minutes:60}") long checkoutTtlMinutes) {
+        this(inventory, Duration.ofMinutes(Math.max(1, ttlMinutes)),
+                Duration.ofMinutes(Math.max(1, checkoutTtlMinutes)), System::currentTimeMillis);
+    }
+
+    public SeatHolds(SeatInventory inventory, Duration ttl, LongSupplier clock) {
+        this(inventory, ttl, CheckoutStore.DEFAULT_TTL, clock);
+    }
+
+    public SeatHolds(SeatInventory inventory, Duration ttl, Duration checkoutTtl, LongSupplier clock) {
+        this.inventory = inventory;
+        this.ttl = ttl;
+        this.checkoutTtl = checkoutTtl.compareTo(ttl) > 0 ? checkoutTtl : ttl;
+        this.clock = clock;
+        this.wheel = new TimingWheel(TICK_MS, WHEEL_SIZE, LEVELS, clock.getAsLong());
+    }
+
+    public boolean hold(Long userId, Long workshopId) {
+        return hold(userId, workshopId, 1);
+    }
+
+    // sets how many seats the user's cart keeps for the workshop and restarts the TTL; only the
+    // difference to the current hold touches the counter. false leaves the previous hold as it was
+    public boolean hold(Long userId, Long workshopId, int seats) {
+        if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
+        if (seats <= 0) {
+            release(userId, workshopId);
+            return true;
+        }
+        boolean[] ok = {true};
+        holds.compute(new Key(userId, workshopId), (key, previous) -> {
+            int had = previous == null ? 0 : previous.seats;
+            int taken = 0;
+            while (had + taken < seats && inventory.hold(workshopId)) taken++;
+            if (had + taken < seats) {
+                releaseSeats(workshopId, taken);
+                ok[0] = false;
+                return previous;
+            }
+            releaseSeats(workshopId, had - seats);
+            // a replaced hold that fires anyway finds itself gone from the map and releases nothing
+            if (previous != null) previous.cancel();
+            return schedule(key, seats, clock.getAsLong() + ttl.toMillis());
+        });
+        return ok[0];
+    }
+
+    public void release(Long userId, Long workshopId) {
+        if (userId == null || workshopId == null) return;
+        Hold hold = holds.remove(new Key(userId, workshopId));
+        if (hold != null) {
+            hold.cancel();
+            releaseSeats(workshopId, hold.seats);
+        }
+    }
+
+    // drops the hold down to at most this many seats without taking new ones or touching the TTL
+    public void releaseTo(Long userId, Long workshopId, int seats) {
+        if (userId == null || workshopId == null) return;
+        if (seats <= 0) {
+            release(userId, workshopId);
+            return;
+        }
+        holds.computeIfPresent(new Key(userId, workshopId), (key, previous) -> {
+            if (previous.seats <= seats) return previous;
+            releaseSeats(workshopId, previous.seats - seats);
+            previous.cancel();
+            return schedule(key, seats, previous.deadline);
+        });
+    }
+
+    public void releaseAll(Long userId) {
+        if (userId == null) return;
+        for (Key key : new ArrayList<>(holds.keySet())) {
+            if (userId.equals(key.userId)) release(key.userId, key.workshopId);
+        }
+    }
+
+    // checkout has started: the user's holds now last as long as the checkout itself, so a slow payment
+    // does not lose the seat between charging the card and finalizing
+    public void pin(Long userId) {
+        if (userId == null) return;
+        for (Key key : new ArrayList<>(holds.keySet())) {
+            if (!userId.equals(key.userId)) continue;
+            holds.computeIfPresent(key, (k, previous) -> {
+                previous.cancel();
+                return schedule(k, previous.seats, clock.getAsLong() + checkoutTtl.toMillis());
+            });
+        }
+    }
+
+    // turns cart holds into checkout seats; seats without a live hold are taken now or the checkout fails.
+    // A reservation is one seat per user and workshop, so seats held beyond that go back
+    public void claim(Long userId, Collection<Long> workshopIds) {
+        if (userId == null || workshopIds == null || workshopIds.isEmpty()) return;
+        List<Long> claimed = new ArrayList<>();
+        try {
+            for (Long wid : workshopIds) {
+                Hold hold = holds.remove(new Key(userId, wid));
+                if (hold != null) {
+                    hold.cancel();
+                    releaseSeats(wid, hold.seats - 1);
+                }
+                if (hold == null && !inventory.hold(wid)) {
+                    throw new IllegalArgumentException("Radionica nema slobodnih mjesta: " + wid);
+                }
+                claimed.add(wid);
+            }
+        } catch (RuntimeException e) {
+            claimed.forEach(inventory::releaseHold);
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            claimed.forEach(inventory::commitHold);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) claimed.forEach(inventory::commitHold);
+                else claimed.forEach(inventory::releaseHold);
+            }
+        });
+    }
+
+    public int activeHolds(Long workshopId) {
+        return workshopId == null ? 0 : inventory.held(workshopId);
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${seats.hold-tick-ms:1000}")
+    public void tick() {
+        try {
+            wheel.advance(clock.getAsLong());
+        } catch (Exception e) {
+            log.warn("SeatHolds tick failed: {}", e.getMessage());
+        }
+    }
+
+    private Hold schedule(Key key, int seats, long deadline) {
+        Hold hold = new Hold(seats, deadline);
+        hold.timeout = wheel.schedule(deadline, () -> expire(key, hold));
+        return hold;
+    }
+
+    private void expire(Key key, Hold hold) {
+        if (holds.remove(key, hold)) releaseSeats(key.workshopId, hold.seats);
+    }
+
+    private void releaseSeats(Long workshopId, int seats) {
+        for (int i = 0; i < seats; i++) inventory.releaseHold(workshopId);
+    }
+}
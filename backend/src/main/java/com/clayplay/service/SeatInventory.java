@@ -0,0 +1,330 @@
+package com.clayplay.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// admission runs on in-memory counters; one writer persists whatever has queued up in a single transaction.
+// the counter only ever errs on the low side and trig_broj_slobodnih_mjesta remains the final check
+@Service
+public class SeatInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatInventory.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+
+    private static final class Seats {
+        final AtomicInteger available;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger held = new AtomicInteger();
+
+        Seats(int available) {
+            this.available = new AtomicInteger(Math.max(0, available));
+        }
+    }
+
+    private static final int QUEUED = 0;
+    private static final int WRITING = 1;
+    private static final int ABANDONED = 2;
+
+    private static final class Pending {
+        final SeatInventoryStore.Request request;
+        final Seats seats;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+        // whoever moves it out of QUEUED first decides: the writer persists it, a caller giving up drops it
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Pending(SeatInventoryStore.Request request, Seats seats) {
+            this.request = request;
+            this.seats = seats;
+        }
+    }
+
+    private final SeatInventoryStore store;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, Seats> seats = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Autowired
+    public SeatInventory(SeatInventoryStore store, @Value("${seats.batch-size:64}") int batchSize) {
+        this.store = store;
+        this.batchSize = Math.max(1, batchSize);
+        this.writer = new Thread(this::drain, "seat-inventory-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public SeatInventory(SeatInventoryStore store) {
+        this(store, DEFAULT_BATCH_SIZE);
+    }
+
+    public Long reserve(Long userId, Long workshopId) {
+        if (userId == null || workshopId == null) throw new IllegalArgumentException("Missing userId or workshopId");
+        Seats s = seatsFor(workshopId);
+        if (!tryAcquire(s, s.pending)) {
+            rejected.increment();
+            throw new IllegalArgumentException("Nema slobodnih mjesta za ovu radionicu.");
+        }
+        Pending p = new Pending(new SeatInventoryStore.Request(userId, workshopId), s);
+        queue.add(p);
+        try {
+            Long id = p.result.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            accepted.increment();
+            return id;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Rezervacija nije uspjela.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return abandon(p);
+        } catch (TimeoutException e) {
+            return abandon(p);
+        }
+    }
+
+    // a request still in the queue is withdrawn and its seat goes back; once the writer has it, the
+    // outcome is whatever the write decides, so the caller never gets an error for a seat it holds
+    private Long abandon(Pending p) {
+        if (p.state.compareAndSet(QUEUED, ABANDONED)) {
+            queue.remove(p);
+            p.seats.available.incrementAndGet();
+            p.seats.pending.decrementAndGet();
+            freed(p.request.getWorkshopId());
+            throw new IllegalStateException("Rezervacija nije potvrđena.");
+        }
+        try {
+            Long id = p.result.join();
+            accepted.increment();
+            return id;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Rezervacija nije uspjela.", e.getCause());
+        }
+    }
+
+    public int available(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        return s == null ? -1 : s.available.get();
+    }
+
+    public int freeSeats(Long workshopId) {
+        if (workshopId == null) throw new IllegalArgumentException("Missing workshopId");
+        return seatsFor(workshopId).available.get();
+    }
+
+    // a held seat is off the counter but not yet in the database
+    public boolean hold(Long workshopId) {
+        if (workshopId == null) throw new IllegalArgumentException("Missing workshopId");
+        Seats s = seatsFor(workshopId);
+        return tryAcquire(s, s.held);
+    }
+
+    public void releaseHold(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        if (s != null && s.held.getAndUpdate(h -> h > 0 ? h - 1 : h) > 0) {
+            s.available.incrementAndGet();
+            freed(workshopId);
+        }
+    }
+
+    // called once the held seat's reservation has committed
+    public void commitHold(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        if (s == null || s.held.getAndUpdate(h -> h > 0 ? h - 1 : h) == 0) return;
+        try {
+            resync(workshopId);
+        } catch (RuntimeException e) {
+            log.warn("SeatInventory resync failed for workshop {}: {}", workshopId, e.getMessage());
+        }
+    }
+
+    public int held(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        return s == null ? 0 : s.held.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(WorkshopSeatsChangedEvent event) {
+        for (Long id : event.getWorkshopIds()) {
+            try {
+                resync(id);
+            } catch (Exception e) {
+                seats.remove(id);
+                log.warn("SeatInventory resync failed for workshop {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    // counters are rebuilt lazily from brSlobMjesta after a restart; this catches drift from other instances
+    @Scheduled(fixedDelayString = "${seats.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        for (Long id : new ArrayList<>(seats.keySet())) {
+            try {
+                resync(id);
+            } catch (Exception e) {
+                log.warn("SeatInventory reconcile failed for workshop {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put("accepted", accepted.sum());
+        out.put("rejected", rejected.sum());
+        out.put("batches", batches.sum());
+        out.put("queued", (long) queue.size());
+        out.put("workshops", (long) seats.size());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Seats seatsFor(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        if (s != null) return s;
+        return seats.computeIfAbsent(workshopId, id -> {
+            Integer free = store.loadAvailable(List.of(id)).get(id);
+            if (free == null) throw new IllegalArgumentException("Radionica ne postoji.");
+            return new Seats(free);
+        });
+    }
+
+    // the claim counter goes up before the seat comes off so a concurrent resync can only undercount
+    private static boolean tryAcquire(Seats s, AtomicInteger claims) {
+        claims.incrementAndGet();
+        while (true) {
+            int free = s.available.get();
+            if (free <= 0) {
+                claims.decrementAndGet();
+                return false;
+            }
+            if (s.available.compareAndSet(free, free - 1)) return true;
+        }
+    }
+
+    private void resync(Long workshopId) {
+        Seats s = seats.get(workshopId);
+        if (s == null) return;
+        Integer free = store.loadAvailable(List.of(workshopId)).get(workshopId);
+        if (free == null) {
+            seats.remove(workshopId, s);
+            return;
+        }
+        while (true) {
+            int current = s.available.get();
+            int target = Math.max(0, free - s.pending.get() - s.held.get());
+            if (s.available.compareAndSet(current, target)) {
+                if (target > current) freed(workshopId);
+                return;
+            }
+        }
+    }
+
+    // waitlist promotion listens for this; it runs elsewhere, so publishing here never blocks the caller
+    private void freed(Long workshopId) {
+        if (events == null) return;
+        try {
+            events.publishEvent(new WorkshopSeatsFreedEvent(workshopId));
+        } catch (RuntimeException e) {
+            log.warn("SeatInventory could not announce a freed seat for workshop {}: {}", workshopId, e.getMessage());
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batch.removeIf(p -> !p.state.compareAndSet(QUEUED, WRITING));
+                if (!batch.isEmpty()) write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("SeatInventory writer error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<SeatInventoryStore.Request> requests = new ArrayList<>(batch.size());
+        for (Pending p : batch) requests.add(p.request);
+        List<Long> ids;
+        try {
+            ids = store.reserveAll(requests);
+            batches.increment();
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // isolate the offending request so one bad seat does not fail its neighbours
+                for (Pending p : batch) write(List.of(p));
+                return;
+            }
+            Pending p = batch.get(0);
+            p.seats.pending.decrementAndGet();
+            try {
+                resync(p.request.getWorkshopId());
+            } catch (RuntimeException ignored) {
+                seats.remove(p.request.getWorkshopId(), p.seats);
+            }
+            log.warn("Reservation write failed for userId={}, workshopId={}: {}",
+                    p.request.getUserId(), p.request.getWorkshopId(), e.getMessage());
+            p.result.completeExceptionally(new IllegalArgumentException("Nema slobodnih mjesta za ovu radionicu."));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i);
+            Long id = i < ids.size() ? ids.get(i) : null;
+            p.seats.pending.decrementAndGet();
+            if (id == null) {
+                p.seats.available.incrementAndGet();
+                freed(p.request.getWorkshopId());
+                p.result.completeExceptionally(new IllegalArgumentException("Već ste prijavljeni na radionicu."));
+            } else {
+                p.result.complete(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.clayplay.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface SeatInventoryStore {
+
+    Map<Long, Integer> loadAvailable(Collection<Long> workshopIds);
+
+    // one transaction for the whole batch; a null id means the user already held that seat
+    List<Long> reserveAll(List<Request> requests);
+
+    final class Request {
+        private final Long userId;
+        private final Long workshopId;
+
+        public Request(Long userId, Long workshopId) {
+            this.userId = userId;
+            this.workshopId = workshopId;
+        }
+
+        public Long getUserId() { return userId; }
+        public Long getWorkshopId() { return workshopId; }
+    }
+}
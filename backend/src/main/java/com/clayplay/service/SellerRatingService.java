@@ -0,0 +1,53 @@
+package com.clayplay.service;
+
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Recenzija;
+import com.clayplay.repository.OcjenaProdavacaRepository;
+import com.clayplay.repository.ProizvodRepository;
+import com.clayplay.repository.RecenzijaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class SellerRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(SellerRatingService.class);
+
+    private final RecenzijaRepository recenzijaRepository;
+    private final ProizvodRepository proizvodRepository;
+    private final OcjenaProdavacaRepository ocjenaProdavacaRepository;
+    private final ApplicationEventPublisher events;
+
+    public SellerRatingService(RecenzijaRepository recenzijaRepository,
+                               ProizvodRepository proizvodRepository,
+                               OcjenaProdavacaRepository ocjenaProdavacaRepository,
+                               ApplicationEventPublisher events) {
+        this.recenzijaRepository = recenzijaRepository;
+        this.proizvodRepository = proizvodRepository;
+        this.ocjenaProdavacaRepository = ocjenaProdavacaRepository;
+        this.events = events;
+    }
+
+    @Transactional
+    public Recenzija saveReview(Recenzija r) {
+        if (r == null) throw new IllegalArgumentException("Missing review");
+        Long sellerId = proizvodRepository.findById(r.getProizvodId())
+                .map(Proizvod::getIdKorisnik)
+                .orElseThrow(() -> new IllegalArgumentException("Not found"));
+        Recenzija saved = recenzijaRepository.save(r);
+        ocjenaProdavacaRepository.addReview(sellerId, saved.getProizvodId(), saved.getOcjena());
+        events.publishEvent(ProductCatalogChangedEvent.ofSeller(sellerId));
+        return saved;
+    }
+
+    @Transactional
+    public int rebuild() {
+        int sellers = ocjenaProdavacaRepository.rebuildFromReviews();
+        log.info("Seller rating aggregates rebuilt. sellers={}", sellers);
+        events.publishEvent(ProductCatalogChangedEvent.everything());
+        return sellers;
+    }
+}
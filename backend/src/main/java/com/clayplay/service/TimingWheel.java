@@ -0,0 +1,137 @@
+package com.clayplay.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// hierarchical hashed timing wheel: O(1) schedule and cancel, advance only touches the buckets it passes.
+// a timeout sits in the coarsest level it fits and cascades down as its slot comes round
+public class TimingWheel {
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long tick;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (bucket == null) return false;
+                bucket.unlink(this);
+                pending--;
+                return true;
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+
+        void link(Timeout t) {
+            t.bucket = this;
+            t.prev = null;
+            t.next = head;
+            if (head != null) head.prev = t;
+            head = t;
+        }
+
+        void unlink(Timeout t) {
+            if (t.prev != null) t.prev.next = t.next;
+            else head = t.next;
+            if (t.next != null) t.next.prev = t.prev;
+            t.bucket = null;
+            t.prev = null;
+            t.next = null;
+        }
+
+        Timeout takeAll() {
+            Timeout all = head;
+            head = null;
+            return all;
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long origin;
+    private final Bucket[][] levels;
+    private final long[] spans;
+    private long currentTick;
+    private int pending;
+
+    public TimingWheel(long tickMs, int wheelSize, int levelCount, long nowMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount < 1) throw new IllegalArgumentException("Invalid timing wheel shape");
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.origin = nowMs;
+        this.levels = new Bucket[levelCount][wheelSize];
+        this.spans = new long[levelCount];
+        long span = 1;
+        for (int l = 0; l < levelCount; l++) {
+            for (int i = 0; i < wheelSize; i++) levels[l][i] = new Bucket();
+            spans[l] = span;
+            span *= wheelSize;
+        }
+    }
+
+    public synchronized Timeout schedule(long deadlineMs, Runnable task) {
+        long tick = Math.max(currentTick + 1, Math.floorDiv(deadlineMs - origin + tickMs - 1, tickMs));
+        Timeout t = new Timeout(task, tick);
+        place(t);
+        pending++;
+        return t;
+    }
+
+    public synchronized int size() {
+        return pending;
+    }
+
+    // runs expired tasks on the calling thread, outside the lock
+    public void advance(long nowMs) {
+        List<Runnable> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = Math.floorDiv(nowMs - origin, tickMs);
+            while (currentTick < target) {
+                currentTick++;
+                for (int l = levels.length - 1; l > 0; l--) {
+                    if (currentTick % spans[l] != 0) continue;
+                    Timeout t = levels[l][(int) ((currentTick / spans[l]) % wheelSize)].takeAll();
+                    while (t != null) {
+                        Timeout next = t.next;
+                        place(t);
+                        t = next;
+                    }
+                }
+                Timeout t = levels[0][(int) (currentTick % wheelSize)].takeAll();
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.bucket = null;
+                    t.prev = null;
+                    t.next = null;
+                    pending--;
+                    expired.add(t.task);
+                    t = next;
+                }
+            }
+        }
+        for (Runnable task : expired) task.run();
+    }
+
+    private void place(Timeout t) {
+        long delta = t.tick - currentTick;
+        int top = levels.length - 1;
+        for (int l = 0; l <= top; l++) {
+            if (delta < spans[l] * wheelSize) {
+                levels[l][(int) ((t.tick / spans[l]) % wheelSize)].link(t);
+                return;
+            }
+        }
+        // beyond the top level: park in the slot that cascades last and re-place from there
+        levels[top][(int) ((currentTick / spans[top] + wheelSize) % wheelSize)].link(t);
+    }
+}
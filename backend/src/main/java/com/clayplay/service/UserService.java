@@ -15,6 +15,7 @@ import com.clayplay.repository.PolaznikRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -75,11 +76,11 @@ public class UserService {
 
     @Transactional
     public Korisnik register(RegistrationRequest req) {
-        return register(req, null, null);
+        return register(req, null);
     }
 
     @Transactional
-    public Korisnik register(RegistrationRequest req, byte[] imageBytes, String contentType) {
+    public Korisnik register(RegistrationRequest req, MultipartFile image) {
         if (req == null) throw new IllegalArgumentException("Invalid registration data");
 
         if (!isValidName(req.firstName)) throw new IllegalArgumentException("Invalid first name");
@@ -102,7 +103,7 @@ public class UserService {
         }
 
         boolean isOrg = "organizator".equalsIgnoreCase(req.userType);
-        if (isOrg && (imageBytes == null || imageBytes.length == 0)) {
+        if (isOrg && (image == null || image.isEmpty())) {
             throw new IllegalArgumentException("Image is required for organizator");
         }
 
@@ -114,11 +115,9 @@ public class UserService {
         k.setEmail(req.email);
         k.setPassword(passwordEncoder.encode(req.password));
 
-        if (imageBytes != null && imageBytes.length > 0) {
-            String publicUrl = fileStorageService.save(imageBytes, contentType);
-            Fotografija f = new Fotografija();
-            f.setFotoURL(publicUrl);
-            Fotografija savedFoto = fotografijaRepository.save(f);
+        if (image != null && !image.isEmpty()) {
+            String publicUrl = fileStorageService.save(image);
+            Fotografija savedFoto = fotografijaRepository.findOrCreate(publicUrl);
             k.setFotoId(savedFoto.getFotoId());
         }
 
@@ -219,17 +218,15 @@ public class UserService {
     }
 
     @Transactional
-    public Korisnik updateProfileImage(Long idKorisnik, byte[] imageBytes, String contentType) {
+    public Korisnik updateProfileImage(Long idKorisnik, MultipartFile image) {
         if (idKorisnik == null) throw new IllegalArgumentException("Missing user id");
-        if (imageBytes == null || imageBytes.length == 0) throw new IllegalArgumentException("Empty image");
+        if (image == null || image.isEmpty()) throw new IllegalArgumentException("Empty image");
 
         Korisnik u = korisnikRepository.findById(idKorisnik)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        String publicUrl = fileStorageService.save(imageBytes, contentType);
-        Fotografija f = new Fotografija();
-        f.setFotoURL(publicUrl);
-        Fotografija savedFoto = fotografijaRepository.save(f);
+        String publicUrl = fileStorageService.save(image);
+        Fotografija savedFoto = fotografijaRepository.findOrCreate(publicUrl);
         u.setFotoId(savedFoto.getFotoId());
         u.setFotografija(savedFoto);
 
@@ -264,4 +261,19 @@ public class UserService {
         polaznikRepository.save(p);
         return p.isZeliObavijesti();
     }
+
+    // INSTANT: one email per announcement; DIGEST: one combined email per notifications.digest.window-ms
+    @Transactional
+    public String setPolaznikNacinObavijesti(Long idKorisnik, String mode) {
+        if (idKorisnik == null) throw new IllegalArgumentException("Missing user id");
+        String normalized = mode == null ? "" : mode.trim().toUpperCase();
+        if (!normalized.equals("INSTANT") && !normalized.equals("DIGEST")) {
+            throw new IllegalArgumentException("Invalid notification mode");
+        }
+        Polaznik p = polaznikRepository.findByIdKorisnik(idKorisnik)
+                .orElseThrow(() -> new IllegalArgumentException("Polaznik not found"));
+        p.setNacinObavijesti(normalized);
+        polaznikRepository.save(p);
+        return p.getNacinObavijesti();
+    }
 }
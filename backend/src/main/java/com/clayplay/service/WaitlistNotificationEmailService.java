@@ -0,0 +1,99 @@
+package com.clayplay.service;
+
+import com.clayplay.model.Korisnik;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.KorisnikRepository;
+import com.clayplay.repository.RadionicaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+// the promotion enqueues its email in the same transaction, so a rolled-back promotion sends nothing
+// and a committed one is retried by the outbox until the mail server takes it
+@Service
+public class WaitlistNotificationEmailService implements OutboxHandler {
+
+    public static final String OUTBOX_TYPE = "WAITLIST_PROMOTED";
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistNotificationEmailService.class);
+
+    private final BatchedMailTransport mailTransport;
+    private final KorisnikRepository korisnikRepository;
+    private final RadionicaRepository radionicaRepository;
+    private final String fromAddress;
+
+    public WaitlistNotificationEmailService(
+            BatchedMailTransport mailTransport,
+            KorisnikRepository korisnikRepository,
+            RadionicaRepository radionicaRepository,
+            @Qualifier("mailFromAddress") String fromAddress
+    ) {
+        this.mailTransport = mailTransport;
+        this.korisnikRepository = korisnikRepository;
+        this.radionicaRepository = radionicaRepository;
+        this.fromAddress = fromAddress;
+    }
+
+    public static Map<String, Object> payload(Long userId, Long workshopId) {
+        return Map.of("userId", userId, "workshopId", workshopId);
+    }
+
+    @Override
+    public String type() {
+        return OUTBOX_TYPE;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void handle(Map<String, Object> payload) {
+        Long userId = ((Number) payload.get("userId")).longValue();
+        Long workshopId = ((Number) payload.get("workshopId")).longValue();
+        Korisnik k = korisnikRepository.findById(userId).orElse(null);
+        Radionica r = radionicaRepository.findById(workshopId).orElse(null);
+        if (k == null || r == null || k.getEmail() == null || k.getEmail().isBlank()) return;
+
+        String title = r.getNazivRadionica() == null ? "radionica" : r.getNazivRadionica();
+        StringBuilder text = new StringBuilder();
+        text.append("Pozdrav");
+        if (k.getIme() != null && !k.getIme().isBlank()) text.append(" ").append(k.getIme().trim());
+        text.append("!\n\n");
+        text.append("Oslobodilo se mjesto na radionici \"").append(title)
+                .append("\" i s liste čekanja ste upravo prijavljeni.\n\n");
+        if (r.getDatVrRadionica() != null) {
+            text.append("Vrijeme: ")
+                    .append(r.getDatVrRadionica().toLocalDateTime().format(DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm")))
+                    .append("\n");
+        }
+        if (r.getLokacijaRadionica() != null && !r.getLokacijaRadionica().isBlank()) {
+            text.append("Lokacija: ").append(r.getLokacijaRadionica()).append("\n");
+        }
+        text.append("\nAko ne možete doći, otkažite prijavu kako bi mjesto dobio sljedeći na listi.\n");
+        text.append("ClayPlay\n");
+
+        NotificationMail msg = new NotificationMail();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            msg.setFrom(fromAddress);
+        }
+        msg.setTo(k.getEmail().trim());
+        msg.setSubject("Dobili ste mjesto: " + title);
+        msg.setText(text.toString());
+
+        BatchedMailTransport.Result result = mailTransport.send(List.of(msg));
+        Exception deferred = result.getDeferred().get(msg);
+        if (deferred != null) {
+            throw new MailSendException(deferred.getMessage(), deferred);
+        }
+        Exception refused = result.getFailed().get(msg);
+        if (refused != null) {
+            log.warn("Waitlist promotion email to userId={} for workshopId={} refused: {}",
+                    userId, workshopId, refused.getMessage());
+        }
+    }
+}
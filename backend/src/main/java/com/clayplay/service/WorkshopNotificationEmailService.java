@@ -1,175 +1,116 @@
 package com.clayplay.service;
 
-import com.clayplay.model.Korisnik;
-import com.clayplay.model.Organizator;
-import com.clayplay.model.Polaznik;
+import com.clayplay.dto.NotificationRecipient;
 import com.clayplay.model.Radionica;
-import com.clayplay.repository.KorisnikRepository;
-import com.clayplay.repository.OrganizatorRepository;
-import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.RadionicaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
-public class WorkshopNotificationEmailService {
+public class WorkshopNotificationEmailService implements OutboxHandler {
+
+    public static final String OUTBOX_TYPE = "WORKSHOP_CREATED";
 
     private static final Logger log = LoggerFactory.getLogger(WorkshopNotificationEmailService.class);
 
-    private final JavaMailSender mailSender;
-    private final PolaznikRepository polaznikRepository;
-    private final KorisnikRepository korisnikRepository;
-    private final OrganizatorRepository organizatorRepository;
-    private final String fromAddress;
+    private final BatchedMailTransport mailTransport;
+    private final NotificationAudience audience;
+    private final RadionicaRepository radionicaRepository;
+    private final NotificationOutbox outbox;
+    private final NotificationDigestService digest;
 
     public WorkshopNotificationEmailService(
-            JavaMailSender mailSender,
-            PolaznikRepository polaznikRepository,
-            KorisnikRepository korisnikRepository,
-            OrganizatorRepository organizatorRepository,
-            @Qualifier("mailFromAddress") String fromAddress
+            BatchedMailTransport mailTransport,
+            NotificationAudience audience,
+            RadionicaRepository radionicaRepository,
+            NotificationOutbox outbox,
+            NotificationDigestService digest
     ) {
-        this.mailSender = mailSender;
-        this.polaznikRepository = polaznikRepository;
-        this.korisnikRepository = korisnikRepository;
-        this.organizatorRepository = organizatorRepository;
-        this.fromAddress = fromAddress;
+        this.mailTransport = mailTransport;
+        this.audience = audience;
+        this.radionicaRepository = radionicaRepository;
+        this.outbox = outbox;
+        this.digest = digest;
+    }
+
+    public static Map<String, Object> payload(Long organizerId, Long workshopId) {
+        return Map.of("organizerId", organizerId, "workshopId", workshopId);
+    }
+
+    @Override
+    public String type() {
+        return OUTBOX_TYPE;
     }
 
-    @Transactional(readOnly = true)
+    @Override
+    @Transactional
+    public void handle(Map<String, Object> payload) {
+        Long id = ((Number) payload.get("workshopId")).longValue();
+        Long organizerId = ((Number) payload.get("organizerId")).longValue();
+        radionicaRepository.findById(id).ifPresent(target -> {
+            notifyAllSubscribedPolaznici(organizerId, target);
+            digest.record(NotificationDigestService.WORKSHOP, id, organizerId);
+        });
+    }
+
+    // splits the audience into ANNOUNCEMENT_BATCH outbox rows, one per transport batch; they commit together
+    // with this handler, so a retry never leaves half the audience queued twice. Nothing is sent from here
+    @Transactional
     public void notifyAllSubscribedPolaznici(Long organizerId, Radionica workshop) {
         if (organizerId == null || workshop == null) return;
 
-        String organizerName = resolveOrganizerDisplayName(organizerId);
-        String workshopTitle = safe(workshop.getNazivRadionica(), "Nova radionica");
-        String description = safe(workshop.getOpisRadionica(), "").trim();
-        String location = safe(workshop.getLokacijaRadionica(), "").trim();
-
-        String when = "";
-        try {
-            if (workshop.getDatVrRadionica() != null) {
-                when = workshop.getDatVrRadionica()
-                        .toLocalDateTime()
-                        .format(DateTimeFormatter.ofPattern("dd.MM.yyyy. HH:mm"));
-            }
-        } catch (Exception ignored) {
-        }
-
-        List<Polaznik> polaznici = polaznikRepository.findAll();
         int eligible = 0;
-        int sent = 0;
+        int batches = 0;
         int skipped = 0;
+        int batchSize = mailTransport.getBatchSize();
+        List<NotificationRecipient> batch = new ArrayList<>();
         boolean loggedOne = false;
 
-        for (Polaznik p : polaznici) {
-            try {
-                if (p == null || !p.isZeliObavijesti()) {
-                    continue;
-                }
-                eligible++;
-
-                Korisnik k = p.getKorisnik();
-                if (k == null) {
-                    k = korisnikRepository.findById(p.getIdKorisnik()).orElse(null);
-                }
-                if (k == null) {
+        try (Stream<NotificationRecipient> recipients = audience.recipients(organizerId)) {
+            Iterator<NotificationRecipient> it = recipients.iterator();
+            while (it.hasNext()) {
+                NotificationRecipient recipient = it.next();
+                if (recipient == null || recipient.getEmail() == null || recipient.getEmail().isBlank()) {
                     skipped++;
                     continue;
                 }
-
-                if ("BLOCKED".equalsIgnoreCase(String.valueOf(k.getStatus()))) {
-                    skipped++;
-                    continue;
-                }
-
-                String to = safe(k.getEmail(), "").trim();
-                if (to.isBlank()) {
-                    skipped++;
-                    continue;
-                }
-
+                eligible++;
                 if (!loggedOne) {
                     loggedOne = true;
-                    log.info("Workshop notification candidate: polaznikId={}, email={}, zeliObavijesti={}, from={}",
-                            p.getIdKorisnik(), to, p.isZeliObavijesti(), fromAddress);
-                }
-
-                String firstName = safe(k.getIme(), "").trim();
-                String greetingName = firstName.isBlank() ? "" : (" " + firstName);
-
-                StringBuilder text = new StringBuilder();
-                text.append("Pozdrav").append(greetingName).append("!\n\n");
-                text.append("Organizator ").append(organizerName)
-                        .append(" je upravo otvorio novu radionicu \"")
-                        .append(workshopTitle)
-                        .append("\".\n\n");
-
-                if (!when.isBlank()) {
-                    text.append("Vrijeme: ").append(when).append("\n");
-                }
-                if (!location.isBlank()) {
-                    text.append("Lokacija: ").append(location).append("\n");
+                    log.info("Workshop notification candidate: polaznikId={}, email={}",
+                            recipient.getUserId(), recipient.getEmail());
                 }
-                if (!description.isBlank()) {
-                    text.append("\nOpis radionice:\n").append(description).append("\n");
+                batch.add(recipient);
+                if (batch.size() >= batchSize) {
+                    enqueue(organizerId, workshop.getIdRadionica(), batch);
+                    batches++;
                 }
-
-                text.append("\nVidimo se!\n");
-                text.append("ClayPlay\n");
-
-                SimpleMailMessage msg = new SimpleMailMessage();
-                if (fromAddress != null && !fromAddress.isBlank()) {
-                    msg.setFrom(fromAddress);
-                }
-                msg.setTo(to);
-                msg.setSubject("Nova radionica: " + workshopTitle);
-                msg.setText(text.toString());
-
-                mailSender.send(msg);
-                sent++;
-            } catch (Exception e) {
-                log.warn("Failed to send workshop notification email", e);
             }
         }
+        if (!batch.isEmpty()) {
+            enqueue(organizerId, workshop.getIdRadionica(), batch);
+            batches++;
+        }
 
-        log.info("Workshop notifications finished. eligible={}, sent={}, skipped={}, organizerId={}, workshopId={}",
-                eligible, sent, skipped, organizerId, workshop.getIdRadionica());
+        log.info("Workshop notifications queued. eligible={}, batches={}, skipped={}, organizerId={}, workshopId={}",
+                eligible, batches, skipped, organizerId, workshop.getIdRadionica());
 
         if (eligible == 0) {
-            log.warn("No subscribed polaznici found (POLAZNIK.zeliobavijesti=true). No emails attempted.");
-        } else if (sent == 0) {
-            log.warn("Subscribed polaznici exist but no emails were sent. Check KORISNIK.status, missing emails, and mail.from configuration.");
-        }
-    }
-
-    private String resolveOrganizerDisplayName(Long organizerId) {
-        try {
-            Organizator org = organizatorRepository.findById(organizerId).orElse(null);
-            if (org != null) {
-                if (org.getImeStudija() != null && !org.getImeStudija().isBlank()) return org.getImeStudija();
-                Korisnik k = org.getKorisnik();
-                if (k != null) {
-                    String full = (safe(k.getIme(), "") + " " + safe(k.getPrezime(), "")).trim();
-                    if (!full.isBlank()) return full;
-                    String email = safe(k.getEmail(), "").trim();
-                    if (!email.isBlank()) return email;
-                }
-            }
-        } catch (Exception ignored) {
+            log.warn("No recipients found (audience={}, organizerId={}). No emails attempted.", audience.mode(), organizerId);
         }
-        return "organizator";
     }
 
-    private static String safe(String v, String fallback) {
-        if (v == null) return fallback;
-        String s = String.valueOf(v);
-        return s.isBlank() ? fallback : s;
+    private void enqueue(Long organizerId, Long workshopId, List<NotificationRecipient> batch) {
+        outbox.enqueue(AnnouncementBatchHandler.TYPE,
+                AnnouncementBatchHandler.payload(NotificationDigestService.WORKSHOP, organizerId, workshopId, batch));
+        batch.clear();
     }
 }
@@ -0,0 +1,15 @@
+package com.clayplay.service;
+
+import java.util.Collection;
+import java.util.List;
+
+public class WorkshopSeatsChangedEvent {
+
+    private final List<Long> workshopIds;
+
+    public WorkshopSeatsChangedEvent(Collection<Long> workshopIds) {
+        this.workshopIds = workshopIds == null ? List.of() : List.copyOf(workshopIds);
+    }
+
+    public List<Long> getWorkshopIds() { return workshopIds; }
+}
@@ -0,0 +1,14 @@
+package com.clayplay.service;
+
+// a seat went back on the SeatInventory counter: a hold expired or was dropped, a queued request gave
+// up, or a resync found more seats than the counter had
+public class WorkshopSeatsFreedEvent {
+
+    private final Long workshopId;
+
+    public WorkshopSeatsFreedEvent(Long workshopId) {
+        this.workshopId = workshopId;
+    }
+
+    public Long getWorkshopId() { return workshopId; }
+}
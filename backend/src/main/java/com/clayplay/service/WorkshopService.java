@@ -1,5 +1,6 @@
 package com.clayplay.service;
 
+import com.clayplay.dto.PageResponse;
 import com.clayplay.dto.WorkshopRequest;
 import com.clayplay.dto.WorkshopResponse;
 import com.clayplay.model.Fotografija;
@@ -17,7 +18,9 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,7 +32,8 @@ public class WorkshopService {
     private final FotografijaRepository fotografijaRepository;
     private final FotoRadRepository fotoRadRepository;
     private final FileStorageService fileStorageService;
-    private final WorkshopNotificationEmailService workshopNotificationEmailService;
+    private final NotificationOutbox outbox;
+    private final SeatHolds seatHolds;
 
     public WorkshopService(RadionicaRepository radionicaRepository,
                            OrganizatorRepository organizatorRepository,
@@ -37,14 +41,16 @@ public class WorkshopService {
                            FotografijaRepository fotografijaRepository,
                            FotoRadRepository fotoRadRepository,
                            FileStorageService fileStorageService,
-                           WorkshopNotificationEmailService workshopNotificationEmailService) {
+                           NotificationOutbox outbox,
+                           SeatHolds seatHolds) {
         this.radionicaRepository = radionicaRepository;
         this.organizatorRepository = organizatorRepository;
         this.placaRepository = placaRepository;
         this.fotografijaRepository = fotografijaRepository;
         this.fotoRadRepository = fotoRadRepository;
         this.fileStorageService = fileStorageService;
-        this.workshopNotificationEmailService = workshopNotificationEmailService;
+        this.outbox = outbox;
+        this.seatHolds = seatHolds;
     }
 
     @Transactional
@@ -77,33 +83,66 @@ public class WorkshopService {
 
         Radionica saved = radionicaRepository.save(r);
 
-        try {
-            workshopNotificationEmailService.notifyAllSubscribedPolaznici(req.getOrganizerId(), saved);
-        } catch (Exception ignored) { }
+        outbox.enqueue(WorkshopNotificationEmailService.OUTBOX_TYPE,
+                WorkshopNotificationEmailService.payload(req.getOrganizerId(), saved.getIdRadionica()));
 
         return saved.getIdRadionica();
     }
 
     @Transactional(readOnly = true)
     public List<WorkshopResponse> listRecent(int limit) {
-        return radionicaRepository
-            .findAllByOrderByDatVrRadionicaAsc(PageRequest.of(0, Math.max(1, limit)))
-                .stream()
-                .map(r -> new WorkshopResponse(
-                        r.getIdRadionica(),
-                        r.getNazivRadionica(),
-                        r.getOpisRadionica(),
-                        r.getTrajanje() == null ? null : (int) r.getTrajanje().toMinutes(),
-                        r.getDatVrRadionica(),
-                        r.getLokacijaRadionica(),
-                        r.getBrSlobMjesta(),
-                        r.getCijenaRadionica() == null ? null : r.getCijenaRadionica().doubleValue(),
-                        r.getIdKorisnik(),
-                        fotografijaRepository.findUrlsByRadionicaId(r.getIdRadionica())
-                ))
+        return toDtos(radionicaRepository.findAllByOrderByDatVrRadionicaAsc(PageRequest.of(0, Math.max(1, limit))));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<WorkshopResponse> listPage(String cursor, Integer limit) {
+        int size = PageCursor.clampLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        if (after != null && after.getAt() == null) throw new IllegalArgumentException("Invalid cursor");
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Radionica> rows = after == null
+                ? radionicaRepository.findAllByOrderByDatVrRadionicaAscIdRadionicaAsc(page)
+                : radionicaRepository.findPageAfter(after.getAt(), after.getId(), page);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Radionica last = rows.get(size - 1);
+            next = PageCursor.encode(last.getDatVrRadionica(), last.getIdRadionica());
+        }
+        return new PageResponse<>(toDtos(rows), next);
+    }
+
+    private List<WorkshopResponse> toDtos(List<Radionica> rows) {
+        if (rows == null || rows.isEmpty()) return new ArrayList<>();
+        List<Long> ids = rows.stream().map(Radionica::getIdRadionica).collect(Collectors.toList());
+        Map<Long, List<String>> photos = fotoRadRepository.findUrlsByRadionicaIds(ids);
+        return rows.stream()
+                .map(r -> toDto(r, photos.getOrDefault(r.getIdRadionica(), List.of())))
                 .collect(Collectors.toList());
     }
 
+    private WorkshopResponse toDto(Radionica r, List<String> photoUrls) {
+        return new WorkshopResponse(
+                r.getIdRadionica(),
+                r.getNazivRadionica(),
+                r.getOpisRadionica(),
+                r.getTrajanje() == null ? null : (int) r.getTrajanje().toMinutes(),
+                r.getDatVrRadionica(),
+                r.getLokacijaRadionica(),
+                freeSeats(r),
+                r.getCijenaRadionica() == null ? null : r.getCijenaRadionica().doubleValue(),
+                r.getIdKorisnik(),
+                photoUrls
+        );
+    }
+
+    // seats sitting in other users' carts are not on offer
+    private Integer freeSeats(Radionica r) {
+        if (r.getBrSlobMjesta() == null) return null;
+        return Math.max(0, r.getBrSlobMjesta() - seatHolds.activeHolds(r.getIdRadionica()));
+    }
+
     @Transactional
     public List<String> addPhotos(Long workshopId, List<MultipartFile> images) {
         if (workshopId == null) throw new IllegalArgumentException("Missing workshop id");
@@ -112,20 +151,11 @@ public class WorkshopService {
         Radionica r = radionicaRepository.findById(workshopId)
                 .orElseThrow(() -> new IllegalArgumentException("Workshop not found"));
 
-        java.util.ArrayList<String> urls = new java.util.ArrayList<>();
+        ArrayList<String> urls = new ArrayList<>();
         for (MultipartFile image : images) {
             if (image == null || image.isEmpty()) continue;
-            byte[] bytes;
-            try {
-                bytes = image.getBytes();
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Invalid image");
-            }
-            String contentType = image.getContentType();
-            String publicUrl = fileStorageService.save(bytes, contentType);
-            Fotografija f = new Fotografija();
-            f.setFotoURL(publicUrl);
-            Fotografija savedFoto = fotografijaRepository.save(f);
+            String publicUrl = fileStorageService.save(image);
+            Fotografija savedFoto = fotografijaRepository.findOrCreate(publicUrl);
             fotoRadRepository.insertLink(savedFoto.getFotoId(), r.getIdRadionica());
             urls.add(publicUrl);
         }
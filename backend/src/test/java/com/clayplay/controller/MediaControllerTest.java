@@ -0,0 +1,113 @@
+package com.clayplay.controller;
+
+import com.clayplay.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.upload-dir=target/media-controller-test")
+class MediaControllerTest {
+
+    @LocalServerPort int port;
+    @Autowired FileStorageService storage;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private String store(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        // a JPEG magic number so the stored name and content type are realistic
+        data[0] = (byte) 0xFF; data[1] = (byte) 0xD8; data[2] = (byte) 0xFF; data[3] = (byte) 0xE0;
+        return storage.save(data, "image/jpeg");
+    }
+
+    private HttpResponse<byte[]> send(String url, String... headers) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://localhost:" + port + url));
+        if (headers.length > 0) b.headers(headers);
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void MediaController_Get_AnswersConditionalAndRangeRequests() throws Exception {
+        String url = store(200_000);
+        byte[] bytes = Files.readAllBytes(storage.locate(url.substring("/media/".length())));
+
+        HttpResponse<byte[]> full = send(url);
+        assertEquals(200, full.statusCode());
+        assertArrayEquals(bytes, full.body());
+        assertEquals("image/jpeg", full.headers().firstValue("Content-Type").orElse(null));
+        assertEquals("bytes", full.headers().firstValue("Accept-Ranges").orElse(null));
+        String etag = full.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("\"") && etag.length() == 66, "ETag mora biti jaki hash sadržaja");
+
+        HttpResponse<byte[]> notModified = send(url, "If-None-Match", etag);
+        assertEquals(304, notModified.statusCode());
+        assertEquals(0, notModified.body().length);
+        assertEquals(304, send(url, "If-None-Match", "\"x\", W/" + etag).statusCode());
+
+        HttpResponse<byte[]> part = send(url, "Range", "bytes=1000-1999");
+        assertEquals(206, part.statusCode());
+        assertEquals("bytes 1000-1999/200000", part.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 2000), part.body());
+
+        HttpResponse<byte[]> tail = send(url, "Range", "bytes=-500");
+        assertEquals(206, tail.statusCode());
+        assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 500, bytes.length), tail.body());
+
+        HttpResponse<byte[]> staleRange = send(url, "Range", "bytes=0-9", "If-Range", "\"old\"");
+        assertEquals(200, staleRange.statusCode(), "Zastarjeli If-Range traži cijelu datoteku");
+        assertEquals(bytes.length, staleRange.body().length);
+
+        HttpResponse<byte[]> outside = send(url, "Range", "bytes=300000-");
+        assertEquals(416, outside.statusCode());
+        assertEquals("bytes */200000", outside.headers().firstValue("Content-Range").orElse(null));
+
+        assertEquals(404, send("/media/nema.jpg").statusCode());
+        assertNotEquals(200, send("/media/..%2F..%2Fpom.xml").statusCode(), "Izlaz iz mape s medijima nije dopušten");
+    }
+
+    @Test
+    void MediaController_GetWithWidth_ServesOriginalUntilTheVariantIsBuilt() throws Exception {
+        BufferedImage img = new BufferedImage(900, 600, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 900; x++) img.setRGB(x, y, (x * 255 / 900) << 16 | (y * 255 / 600) << 8 | (x ^ y) & 0xFF);
+        }
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpeg", jpeg);
+        String url = storage.save(jpeg.toByteArray(), "image/jpeg");
+        byte[] original = Files.readAllBytes(storage.locate(url.substring("/media/".length())));
+
+        HttpResponse<byte[]> wide = send(url + "?w=2000");
+        assertArrayEquals(original, wide.body(), "Šire od najveće varijante ide original");
+        assertEquals("public, max-age=31536000, immutable", wide.headers().firstValue("Cache-Control").orElse(null));
+
+        HttpResponse<byte[]> small = send(url + "?w=200");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Arrays.equals(original, small.body()) && System.currentTimeMillis() < deadline) {
+            assertEquals("public, max-age=60", small.headers().firstValue("Cache-Control").orElse(null),
+                    "Original umjesto varijante se ne smije dugo keširati");
+            Thread.sleep(20);
+            small = send(url + "?w=200");
+        }
+
+        assertEquals(200, ImageIO.read(new ByteArrayInputStream(small.body())).getWidth(), "Varijanta mora nastati u pozadini");
+        assertEquals("public, max-age=31536000, immutable", small.headers().firstValue("Cache-Control").orElse(null));
+        assertNotEquals(send(url).headers().firstValue("ETag"), small.headers().firstValue("ETag"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.clayplay.repository;
+
+import com.clayplay.model.Fotografija;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fotografija;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FotografijaRepositoryTest {
+
+    @Autowired FotografijaRepository repository;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void schema() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS FOTOGRAFIJA (fotoid BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "fotourl VARCHAR(255) NOT NULL UNIQUE)");
+        jdbc.execute("DELETE FROM FOTOGRAFIJA");
+    }
+
+    @Test
+    void FotografijaRepository_FindOrCreate_ConcurrentUploadsOfOneImageShareOneRow() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String url = "/media/" + "%064x".formatted(round) + ".jpg";
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Long> first = pool.submit(() -> {
+                    start.await();
+                    return tx.execute(s -> repository.findOrCreate(url).getFotoId());
+                });
+                Future<Long> second = pool.submit(() -> {
+                    start.await();
+                    return tx.execute(s -> repository.findOrCreate(url).getFotoId());
+                });
+
+                Long a = first.get();
+                Long b = second.get();
+                assertNotNull(a);
+                assertEquals(a, b, "Isti URL mora dati isti redak, bez greške jedinstvenosti");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(20, repository.count());
+        Fotografija existing = repository.findOrCreate("/media/" + "%064x".formatted(3) + ".jpg");
+        assertEquals(20, repository.count(), "Postojeći URL se ne umeće ponovno");
+        assertNotNull(existing.getFotoId());
+    }
+}
@@ -0,0 +1,42 @@
+package com.clayplay.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IzlozeniRepositoryTest {
+
+    @Test
+    void IzlozeniRepository_FindImageUrls_ChunksIdsAndPropagatesQueryErrors() {
+        EntityManager em = mock(EntityManager.class);
+        Query query = mock(Query.class);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(
+                List.<Object[]>of(new Object[]{1L, "/media/a.jpg"}, new Object[]{1L, "/media/b.jpg"}),
+                List.of(),
+                List.<Object[]>of(new Object[]{2500L, "/media/c.jpg"}));
+        IzlozeniRepository repository = new IzlozeniRepository();
+        ReflectionTestUtils.setField(repository, "em", em);
+
+        Map<Long, List<String>> urls = repository.findImageUrls(LongStream.rangeClosed(1, 2500).boxed().toList());
+
+        verify(query, times(3)).setParameter(eq("eids"), argThat((List<Long> ids) -> ids.size() <= IdBatches.SIZE));
+        assertEquals(List.of("/media/a.jpg", "/media/b.jpg"), urls.get(1L));
+        assertEquals(List.of("/media/c.jpg"), urls.get(2500L));
+
+        when(query.getResultList()).thenThrow(new PersistenceException("bind limit"));
+        assertThrows(PersistenceException.class, () -> repository.findImageUrls(List.of(1L)),
+                "Greška upita ne smije nestati kao prazan popis slika");
+    }
+}
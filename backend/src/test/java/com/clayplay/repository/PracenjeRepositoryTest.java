@@ -0,0 +1,55 @@
+package com.clayplay.repository;
+
+import com.clayplay.dto.DigestSubscription;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PracenjeRepositoryTest {
+
+    @Test
+    void PracenjeRepository_StreamDigestFollowers_ChunksOrganizersAndKeepsRecipientsGrouped() {
+        EntityManager em = mock(EntityManager.class);
+        AtomicInteger closed = new AtomicInteger();
+        Query first = query(closed, new Object[]{1L, "a@example.com", "Ana", 5L}, new Object[]{3L, "c@example.com", null, 7L});
+        Query second = query(closed, new Object[]{1L, "a@example.com", "Ana", 1500L}, new Object[]{2L, "b@example.com", "Ivo", 1200L},
+                new Object[]{3L, "c@example.com", null, 1100L});
+        when(em.createNativeQuery(contains("zeliobavijesti = true"))).thenReturn(first, second);
+        PracenjeRepository repository = new PracenjeRepository();
+        ReflectionTestUtils.setField(repository, "em", em);
+
+        List<DigestSubscription> rows;
+        try (Stream<DigestSubscription> s = repository.streamDigestFollowers(
+                LongStream.rangeClosed(1, 1500).boxed().toList())) {
+            rows = s.toList();
+        }
+
+        verify(em, times(2)).createNativeQuery(anyString());
+        verify(first).setParameter(eq("oids"), argThat((List<Long> ids) -> ids.size() == IdBatches.SIZE));
+        verify(second).setParameter(eq("oids"), argThat((List<Long> ids) -> ids.size() == 500));
+        List<Long> users = new ArrayList<>();
+        for (DigestSubscription r : rows) users.add(r.getUserId());
+        assertEquals(List.of(1L, 1L, 2L, 3L, 3L), users, "Redovi istog primatelja moraju biti zajedno");
+        assertEquals(2, closed.get(), "Zatvaranje spojenog toka zatvara svaki upit");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Query query(AtomicInteger closed, Object[]... rows) {
+        Query q = mock(Query.class);
+        when(q.setParameter(anyString(), any())).thenReturn(q);
+        when(q.setHint(anyString(), any())).thenReturn(q);
+        when(q.getResultStream()).thenReturn(Stream.of(rows).onClose(closed::incrementAndGet));
+        return q;
+    }
+}
@@ -0,0 +1,139 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchedMailTransportTest {
+
+    private LocalSmtpServer smtp;
+    private JavaMailSenderImpl sender;
+
+    @BeforeEach
+    void start() throws Exception {
+        smtp = new LocalSmtpServer();
+        sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtp.port());
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "5000");
+        sender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        smtp.close();
+    }
+
+    private static List<SimpleMailMessage> messages(int n) {
+        List<SimpleMailMessage> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            SimpleMailMessage msg = new SimpleMailMessage();
+            msg.setFrom("noreply@clayplay.hr");
+            msg.setTo("polaznik" + i + "@example.com");
+            msg.setSubject("Nova radionica: Lončarstvo");
+            msg.setText("Pozdrav!\n\nOrganizator je upravo otvorio novu radionicu.\n");
+            out.add(msg);
+        }
+        return out;
+    }
+
+    @Test
+    void BatchedMailTransport_Send_ReusesPooledConnectionAcrossFanOuts() {
+        BatchedMailTransport transport = new BatchedMailTransport(sender, MailRateLimiter.unlimited(), 20, 2, 30_000);
+        try {
+            BatchedMailTransport.Result first = transport.send(messages(100));
+            BatchedMailTransport.Result second = transport.send(messages(30));
+
+            assertEquals(100, first.getSent());
+            assertEquals(30, second.getSent());
+            assertTrue(first.getDeferred().isEmpty() && second.getDeferred().isEmpty());
+            assertEquals(130, smtp.messages.get());
+            assertEquals(1, smtp.connections.get(), "Sekvencijalno slanje mora koristiti jednu otvorenu vezu");
+            assertEquals(1L, transport.stats().get("connectionsOpened"));
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void BatchedMailTransport_Send_ReconnectsAfterDropAndReportsRefusedRecipients() {
+        smtp.dropAfter = 25;
+        smtp.rejected.add("polaznik7@example.com");
+        BatchedMailTransport transport = new BatchedMailTransport(sender, MailRateLimiter.unlimited(), 50, 1, 30_000);
+        try {
+            List<SimpleMailMessage> batch = messages(100);
+            BatchedMailTransport.Result result = transport.send(batch);
+
+            assertEquals(99, result.getSent());
+            assertTrue(result.getDeferred().isEmpty());
+            assertEquals(1, result.getFailed().size());
+            assertTrue(result.getFailed().containsKey(batch.get(7)), "Odbijeni primatelj se vraća pozivatelju");
+            assertEquals(99, smtp.messages.get(), "Nijedna poruka se ne smije izgubiti na prekinutoj vezi");
+            assertEquals(4, smtp.connections.get());
+            assertEquals(3L, transport.stats().get("reconnects"));
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void BatchedMailTransport_Send_ReusesPooledConnectionsInsteadOfOnePerMessage() {
+        int n = 300;
+
+        for (SimpleMailMessage msg : messages(n)) sender.send(msg);
+        assertEquals(n, smtp.connections.getAndSet(0), "Bez poola svaka poruka otvara svoju vezu");
+        smtp.messages.set(0);
+
+        BatchedMailTransport transport = new BatchedMailTransport(sender, MailRateLimiter.unlimited(), 50, 2, 30_000);
+        try {
+            BatchedMailTransport.Result result = transport.send(messages(n));
+
+            assertEquals(n, result.getSent());
+            assertEquals(n, smtp.messages.get(), "Sve poruke moraju stići");
+            assertTrue(smtp.connections.get() <= 2, "Serija smije otvoriti najviše onoliko veza koliko ih ima u poolu");
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void BatchedMailTransport_Throttling_BacksOffAndDefersInsteadOfDropping() {
+        smtp.maxPerSecond = 40;
+        int n = 120;
+
+        BatchedMailTransport unthrottled = new BatchedMailTransport(sender, MailRateLimiter.unlimited(), 50, 1, 30_000);
+        BatchedMailTransport.Result burst;
+        try {
+            burst = unthrottled.send(messages(n));
+        } finally {
+            unthrottled.shutdown();
+        }
+
+        MailRateLimiter limiter = new MailRateLimiter(200, 5, 200, 5, 2, 5000);
+        BatchedMailTransport adaptive = new BatchedMailTransport(sender, limiter, 50, 1, 30_000);
+        try {
+            BatchedMailTransport.Result result = adaptive.send(messages(n));
+
+            assertEquals(n, burst.getSent() + burst.getDeferred().size(), "4xx odgovori se odgađaju, ne gube");
+            assertEquals(n, result.getSent() + result.getDeferred().size());
+            assertTrue(result.getFailed().isEmpty());
+            assertTrue(limiter.currentRate() < 200, "Brzina se mora smanjiti nakon 4xx odgovora");
+            assertTrue(result.getDeferred().size() < burst.getDeferred().size(),
+                    "Prilagodljivo slanje mora izazvati manje odgoda od nekontroliranog");
+            Map<String, Object> stats = adaptive.stats();
+            assertEquals((long) result.getSent(), stats.get("sent"));
+            assertEquals((long) result.getDeferred().size(), stats.get("deferred"));
+            assertTrue((Long) stats.get("throttled") > 0);
+        } finally {
+            adaptive.shutdown();
+        }
+    }
+}
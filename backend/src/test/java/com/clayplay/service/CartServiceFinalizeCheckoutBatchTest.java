@@ -0,0 +1,71 @@
+package com.clayplay.service;
+
+import com.clayplay.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceFinalizeCheckoutBatchTest {
+
+    @Mock CartItemRepository cartItemRepository;
+    @Mock ProizvodRepository proizvodRepository;
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock CheckoutBatchRepository checkoutBatchRepository;
+    @Mock SeatHolds seatHolds;
+    @Mock ApplicationEventPublisher events;
+
+    private static Map<String, Object> payload(int products) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (long i = 1; i <= products; i++) items.add(Map.of("productId", i));
+        items.add(Map.of("idRadionica", 77L));
+        return Map.of("userId", 5L, "items", items);
+    }
+
+    @Test
+    void CartService_FinalizeCheckout_UsesSetBasedStatementsAndDetectsConflicts() {
+        CartService service = new CartService(
+                cartItemRepository,
+                proizvodRepository,
+                radionicaRepository,
+                checkoutBatchRepository,
+                seatHolds,
+                events
+        );
+
+        when(checkoutBatchRepository.markSold(anyCollection()))
+                .thenReturn(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L))
+                .thenReturn(List.of(1L, 3L));
+        when(checkoutBatchRepository.reserve(any(), anyCollection())).thenReturn(List.of(77L));
+
+        service.finalizeCheckout("c-1", payload(20));
+
+        verify(checkoutBatchRepository, times(1)).markSold(anyCollection());
+        verify(checkoutBatchRepository, times(1)).insertPurchases(eq(5L), anyCollection());
+        verify(checkoutBatchRepository, times(1)).reserve(5L, Set.of(77L));
+        verify(cartItemRepository, times(1)).deleteByIdKorisnik(5L);
+        verifyNoInteractions(proizvodRepository, radionicaRepository);
+
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class,
+                () -> service.finalizeCheckout("c-2", payload(3))
+        );
+
+        assertEquals("Proizvod je već kupljen: [2]", ex.getMessage());
+        verify(checkoutBatchRepository, times(1)).insertPurchases(eq(5L), anyCollection());
+        verify(checkoutBatchRepository, times(1)).reserve(any(), anyCollection());
+    }
+}
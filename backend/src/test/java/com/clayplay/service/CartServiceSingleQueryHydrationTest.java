@@ -0,0 +1,79 @@
+package com.clayplay.service;
+
+import com.clayplay.model.CartItem;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceSingleQueryHydrationTest {
+
+    @Mock CartItemRepository cartItemRepository;
+    @Mock ProizvodRepository proizvodRepository;
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock CheckoutBatchRepository checkoutBatchRepository;
+    @Mock SeatHolds seatHolds;
+    @Mock ApplicationEventPublisher events;
+
+    @Test
+    void CartService_GetCartAndUpdateQty_UseOneCartQuery() {
+        CartService service = new CartService(
+                cartItemRepository,
+                proizvodRepository,
+                radionicaRepository,
+                checkoutBatchRepository,
+                seatHolds,
+                events
+        );
+
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            CartItem item = new CartItem();
+            item.setIdCartItem(i);
+            item.setIdKorisnik(5L);
+            if (i % 2 == 0) {
+                item.setProductId(100 + i);
+                Proizvod p = new Proizvod();
+                p.setProizvodId(100 + i);
+                p.setOpisProizvod("Vaza " + i);
+                p.setCijenaProizvod(new BigDecimal("12.50"));
+                rows.add(new Object[]{item, p, null});
+            } else {
+                item.setIdRadionica(200 + i);
+                Radionica r = new Radionica();
+                r.setIdRadionica(200 + i);
+                r.setNazivRadionica("Radionica " + i);
+                rows.add(new Object[]{item, null, r});
+            }
+        }
+        when(cartItemRepository.findWithTargetsByIdKorisnik(5L)).thenReturn(rows);
+
+        List<CartItem> cart = service.getCartForUser(5L);
+
+        assertEquals(20, cart.size());
+        assertEquals("Radionica 1", cart.get(0).getTitle());
+        assertEquals(new BigDecimal("0.00"), cart.get(0).getPrice(), "Radionica bez cijene dobiva 0.00");
+        assertEquals("Vaza 2", cart.get(1).getTitle());
+        assertEquals(new BigDecimal("12.50"), cart.get(1).getPrice());
+
+        List<CartItem> updated = service.updateQtyByFriendlyId(5L, "product:104", 3);
+
+        assertEquals(3, updated.get(3).getQty());
+        verify(cartItemRepository, times(2)).findWithTargetsByIdKorisnik(5L);
+        verify(cartItemRepository).updateQty(5L, 4L, 3);
+        verifyNoMoreInteractions(cartItemRepository);
+        verifyNoInteractions(proizvodRepository, radionicaRepository);
+    }
+}
@@ -0,0 +1,105 @@
+package com.clayplay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutStoreConcurrencyTest {
+
+    private static <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> out = new ArrayList<>();
+            for (Future<T> f : futures) out.add(f.get(30, TimeUnit.SECONDS));
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void CheckoutStore_InMemory_ConcurrentRemove_HasSingleWinnerAndStaysBounded() throws Exception {
+        CheckoutStore store = new CheckoutStore(new InMemoryCheckoutStoreBackend(500), Duration.ofMinutes(5), 500);
+
+        ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 250; i++) ids.add(store.save(Map.of("userId", i)));
+            return null;
+        });
+
+        assertEquals(2000, ids.size());
+        assertEquals(500L, store.stats().get("size"), "Store ne smije rasti preko max-entries");
+        assertEquals(1500L, store.stats().get("evictions"));
+
+        List<String> survivors = ids.stream().filter(id -> store.get(id) != null).toList();
+        assertEquals(500, survivors.size());
+
+        AtomicInteger winners = new AtomicInteger();
+        runConcurrently(8, () -> {
+            for (String id : survivors) {
+                if (store.remove(id) != null) winners.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(500, winners.get(), "Svaki checkout smije finalizirati točno jedan pozivatelj");
+        assertEquals(0L, store.stats().get("size"));
+    }
+
+    @Test
+    void CheckoutStore_Jdbc_TwoInstancesShareCheckoutsAndExpireThem() throws Exception {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:checkout_store;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE CHECKOUT_SESSION (idcheckout VARCHAR(64) PRIMARY KEY, payload TEXT NOT NULL, " +
+                "createdat TIMESTAMP WITH TIME ZONE NOT NULL, expiresat TIMESTAMP WITH TIME ZONE NOT NULL)");
+
+        ObjectMapper mapper = new ObjectMapper();
+        CheckoutStore nodeA = new CheckoutStore(new JdbcCheckoutStoreBackend(jdbc, mapper), Duration.ofMinutes(5), 100);
+        CheckoutStore nodeB = new CheckoutStore(new JdbcCheckoutStoreBackend(jdbc, mapper), Duration.ofMinutes(5), 100);
+
+        String id = nodeA.save(Map.of("userId", 5, "total", 30.0, "items", List.of(Map.of("productId", 7))));
+        Map<String, Object> loaded = nodeB.get(id);
+        assertNotNull(loaded, "Drugi backend mora vidjeti checkout");
+        assertEquals(30.0, ((Number) loaded.get("total")).doubleValue());
+
+        List<Boolean> removed = runConcurrently(6, () -> nodeA.remove(id) != null || nodeB.remove(id) != null);
+        assertEquals(1, removed.stream().filter(Boolean::booleanValue).count(), "Samo jedan remove smije dobiti payload");
+
+        CheckoutStore shortLived = new CheckoutStore(new JdbcCheckoutStoreBackend(jdbc, mapper), Duration.ofMillis(1), 2);
+        String expired = shortLived.save(Map.of("userId", 1));
+        Thread.sleep(20);
+        assertNull(shortLived.get(expired));
+        for (int i = 0; i < 5; i++) nodeA.save(Map.of("userId", i));
+        shortLived.purge();
+
+        Map<String, Long> stats = shortLived.stats();
+        assertEquals(2L, stats.get("size"));
+        assertEquals(4L, stats.get("evictions"), "Jedan istekao i tri najstarija preko limita");
+        assertEquals(1L, stats.get("misses"));
+    }
+}
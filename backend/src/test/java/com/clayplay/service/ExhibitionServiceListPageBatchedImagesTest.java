@@ -0,0 +1,64 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ExhibitionResponse;
+import com.clayplay.dto.PageResponse;
+import com.clayplay.model.Izlozba;
+import com.clayplay.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExhibitionServiceListPageBatchedImagesTest {
+
+    @Mock IzlozbaRepository izlozbaRepository;
+    @Mock OrganizatorRepository organizatorRepository;
+    @Mock PlacaRepository placaRepository;
+    @Mock FotografijaRepository fotografijaRepository;
+    @Mock IzlozeniRepository izlozeniRepository;
+    @Mock FileStorageService fileStorageService;
+
+    @Test
+    void ExhibitionService_ListPagePast_UsesConstantNumberOfQueries() {
+        ExhibitionService service = new ExhibitionService(
+                izlozbaRepository,
+                organizatorRepository,
+                placaRepository,
+                fotografijaRepository,
+                izlozeniRepository,
+                fileStorageService
+        );
+
+        List<Izlozba> rows = new ArrayList<>();
+        for (long i = 30; i >= 1; i--) {
+            Izlozba iz = new Izlozba();
+            iz.setIdIzlozba(i);
+            iz.setNazivIzlozba("Izložba " + i);
+            iz.setDatVrIzlozba(OffsetDateTime.now().minusDays(31 - i));
+            rows.add(iz);
+        }
+        when(izlozbaRepository.findPast(any(), any())).thenReturn(rows);
+        when(izlozeniRepository.findImageUrls(anyCollection())).thenReturn(Map.of(30L, List.of("/media/iz.jpg")));
+
+        PageResponse<ExhibitionResponse> page = service.listPage(null, 25, "past");
+
+        assertEquals(25, page.items.size());
+        assertNotNull(page.nextCursor, "Ima još izložbi pa mora postojati kursor");
+        assertEquals(List.of("/media/iz.jpg"), page.items.get(0).imageUrls);
+        assertEquals(List.of(), page.items.get(1).imageUrls);
+        verify(izlozbaRepository, times(1)).findPast(any(), any());
+        verify(izlozeniRepository, times(1)).findImageUrls(anyCollection());
+        verifyNoMoreInteractions(izlozbaRepository, izlozeniRepository);
+    }
+}
@@ -0,0 +1,98 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceStreamingSaveTest {
+
+    @TempDir Path dir;
+
+    private FileStorageService storage() {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        storage.init();
+        return storage;
+    }
+
+    // deterministic bytes generated on the fly, so the test itself never holds the whole upload
+    private static InputStream generated(long size) {
+        return new InputStream() {
+            long pos;
+
+            @Override
+            public int read() {
+                return pos < size ? (int) (pos++ * 31 & 0xFF) : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (pos >= size) return -1;
+                int n = (int) Math.min(len, size - pos);
+                for (int i = 0; i < n; i++) b[off + i] = (byte) (pos++ * 31 & 0xFF);
+                return n;
+            }
+        };
+    }
+
+    @Test
+    void FileStorageService_SaveStream_WritesWholeFileWithSmallFixedHeap() throws IOException {
+        FileStorageService storage = storage();
+        long size = 20L * 1024 * 1024;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        storage.save(generated(1024), "image/png");
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        String url = storage.save(generated(size), "image/png");
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        Path stored = storage.resolve(url.substring("/media/".length()));
+        assertEquals(size, Files.size(stored));
+        try (InputStream expected = generated(size); InputStream actual = Files.newInputStream(stored)) {
+            assertEquals(-1L, mismatch(expected, actual), "Spremljeni sadržaj mora biti identičan");
+        }
+        assertTrue(allocated < 1024 * 1024, "Upload od 20MB ne smije alocirati veličinu datoteke, alocirano " + allocated);
+    }
+
+    @Test
+    void FileStorageService_SaveMultipart_SniffsHeaderAndLeavesNoTempFiles() throws IOException {
+        FileStorageService storage = storage();
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R', 1, 2, 3};
+        MockMultipartFile file = new MockMultipartFile("image", "slika.bin", "application/octet-stream", png);
+
+        String url = storage.save(file);
+
+        assertTrue(url.startsWith("/media/") && url.endsWith(".png"), "Tip se određuje iz zaglavlja datoteke: " + url);
+        assertArrayEquals(png, Files.readAllBytes(storage.resolve(url.substring("/media/".length()))));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count(), "Privremene datoteke se moraju preimenovati ili obrisati");
+        }
+        assertEquals(".jpg", FileStorageService.extension(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, null));
+        assertEquals(".svg", FileStorageService.extension("<svg".getBytes(), "image/svg+xml"));
+        assertThrows(IllegalArgumentException.class, () -> storage.save(InputStream.nullInputStream(), "image/png"));
+    }
+
+    private static long mismatch(InputStream a, InputStream b) throws IOException {
+        byte[] x = new byte[8192];
+        byte[] y = new byte[8192];
+        long pos = 0;
+        while (true) {
+            int n = a.readNBytes(x, 0, x.length);
+            int m = b.readNBytes(y, 0, y.length);
+            if (n != m) return pos + Math.min(n, m);
+            if (n == 0) return -1;
+            for (int i = 0; i < n; i++) if (x[i] != y[i]) return pos + i;
+            pos += n;
+        }
+    }
+}
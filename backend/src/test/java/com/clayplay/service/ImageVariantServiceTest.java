@@ -0,0 +1,146 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir Path dir;
+    private ImageVariantService variants;
+
+    @AfterEach
+    void stop() {
+        if (variants != null) variants.shutdown();
+    }
+
+    private FileStorageService storage() {
+        return storage(null);
+    }
+
+    private FileStorageService storage(String extraVolumes) {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", extraVolumes == null ? dir.toString() : dir.resolve("a").toString());
+        ReflectionTestUtils.setField(storage, "contentAddressed", true);
+        ReflectionTestUtils.setField(storage, "extraVolumes", extraVolumes);
+        storage.init();
+        return storage;
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(32);
+                img.setRGB(x, y, ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | (128 + noise));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, format, out);
+        return out.toByteArray();
+    }
+
+    private static String name(String url) {
+        return url.substring("/media/".length());
+    }
+
+    @Test
+    void ImageVariantService_Generate_WritesEachWidthFromOneDecode() throws IOException {
+        FileStorageService storage = storage();
+        variants = new ImageVariantService(storage, "200,600,1200", 1, 10);
+        String filename = name(storage.save(image(1600, 1000, "jpeg"), "image/jpeg"));
+
+        variants.generate(filename);
+
+        long original = Files.size(storage.resolve(filename));
+        for (int w : new int[]{200, 600, 1200}) {
+            Path variant = storage.variantPath(filename, w);
+            BufferedImage img = ImageIO.read(variant.toFile());
+            assertEquals(w, img.getWidth());
+            assertEquals(Math.round(1000.0 * w / 1600), img.getHeight(), 1, "Omjer stranica se mora sačuvati");
+        }
+        assertTrue(Files.size(storage.variantPath(filename, 200)) * 10 < original,
+                "Sličica za popis mora biti barem 10x manja od originala");
+        assertEquals(storage.variantPath(filename, 600), new MediaIndex(storage).variant(filename, variants.widthFor(filename, 500)).getPath());
+    }
+
+    @Test
+    void ImageVariantService_Generate_SmallImageIsItsOwnVariant() throws IOException {
+        FileStorageService storage = storage();
+        variants = new ImageVariantService(storage, "200,600", 1, 10);
+        byte[] png = image(150, 100, "png");
+        String filename = name(storage.save(png, "image/png"));
+
+        variants.generate(filename);
+
+        assertArrayEquals(png, Files.readAllBytes(storage.variantPath(filename, 200)));
+        assertArrayEquals(png, Files.readAllBytes(storage.variantPath(filename, 600)));
+    }
+
+    @Test
+    void ImageVariantService_Generate_WritesVariantsOnTheOriginalsVolume() throws IOException {
+        FileStorageService storage = storage(dir.resolve("b").toString());
+        variants = new ImageVariantService(storage, "200,2000", 1, 10);
+        String filename = name(storage.save(image(800, 500, "jpeg"), "image/jpeg"));
+        Path primary = storage.resolve(filename);
+        Path other = storage.volumes().get(primary.startsWith(storage.volumes().get(0)) ? 1 : 0);
+        // as if the first-ranked volume had been full when it was uploaded
+        Path spilled = other.resolve(FileStorageService.shard(filename)).resolve(filename);
+        Files.createDirectories(spilled.getParent());
+        Files.move(primary, spilled);
+
+        variants.generate(filename);
+
+        for (int w : new int[]{200, 2000}) {
+            Path variant = storage.variantPath(filename, w);
+            assertTrue(variant.startsWith(other), "Varijanta mora biti na istom disku kao original: " + variant);
+            assertTrue(Files.isRegularFile(variant));
+        }
+        assertTrue(Files.isSameFile(spilled, storage.variantPath(filename, 2000)),
+                "Varijanta šira od originala je poveznica na isti sadržaj");
+    }
+
+    @Test
+    void ImageVariantService_Build_BrokenImageIsServedAsOriginalWithoutRetrying() throws IOException {
+        FileStorageService storage = storage();
+        variants = new ImageVariantService(storage, "200,600", 1, 10);
+        byte[] broken = new byte[4096];
+        new Random(7).nextBytes(broken);
+        broken[0] = (byte) 0xFF; broken[1] = (byte) 0xD8; broken[2] = (byte) 0xFF; broken[3] = (byte) 0xE0;
+        String filename = name(storage.save(broken, "image/jpeg"));
+        assertEquals(200, variants.widthFor(filename, 150));
+
+        variants.build(filename);
+
+        assertNull(variants.widthFor(filename, 150), "Neispravna slika se poslužuje kao original");
+        assertEquals(1L, variants.stats().get("failed"));
+        variants.request(filename);
+        assertEquals(0, variants.stats().get("queued"), "Neispravna slika se više ne stavlja u red");
+        assertEquals(0, variants.stats().get("active"));
+        assertFalse(Files.exists(storage.variantPath(filename, 200)));
+    }
+
+    @Test
+    void ImageVariantService_WidthFor_PicksTheSmallestCoveringVariant() throws IOException {
+        FileStorageService storage = storage();
+        variants = new ImageVariantService(storage, "200,600,1200", 1, 10);
+        String filename = name(storage.save(image(900, 600, "jpeg"), "image/jpeg"));
+
+        assertEquals(200, variants.widthFor(filename, 200));
+        assertEquals(600, variants.widthFor(filename, 201));
+        assertNull(variants.widthFor(filename, 2000), "Šire od najveće varijante ide original");
+        assertNull(variants.widthFor("animacija.gif", 200), "GIF se ne skalira");
+    }
+}
@@ -0,0 +1,141 @@
+package com.clayplay.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// plain SMTP stand-in for offline tests: no TLS or AUTH, counts connections and accepted messages
+class LocalSmtpServer implements AutoCloseable {
+
+    final AtomicInteger connections = new AtomicInteger();
+    final AtomicInteger messages = new AtomicInteger();
+    final List<String> recipients = new CopyOnWriteArrayList<>();
+    // raw DATA of every accepted message, dot-stuffing left as received
+    final List<String> bodies = new CopyOnWriteArrayList<>();
+    final Set<String> rejected = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // simulated cost of the greeting + TLS + AUTH round trips a real relay charges per connection
+    volatile long handshakeMillis;
+    // closes the connection right after the n-th accepted message on it, 0 = never
+    volatile int dropAfter;
+    // messages accepted per wall-clock second before MAIL gets a 451 throttling reply, 0 = unlimited
+    volatile int maxPerSecond;
+    final AtomicInteger throttled = new AtomicInteger();
+
+    private long windowSecond;
+    private int windowCount;
+
+    private final ServerSocket server;
+    private final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "local-smtp");
+        t.setDaemon(true);
+        return t;
+    });
+
+    LocalSmtpServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        pool.submit(this::acceptLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket s = server.accept();
+                connections.incrementAndGet();
+                pool.submit(() -> session(s));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            OutputStream out = socket.getOutputStream();
+            if (handshakeMillis > 0) Thread.sleep(handshakeMillis);
+            reply(out, "220 localhost ESMTP");
+            int accepted = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (cmd) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250 8BITMIME");
+                    case "HELO", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "MAIL" -> {
+                        if (admit()) {
+                            reply(out, "250 OK");
+                        } else {
+                            throttled.incrementAndGet();
+                            reply(out, "451 4.7.1 Too many messages, slow down");
+                        }
+                    }
+                    case "RCPT" -> {
+                        String to = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                        if (rejected.contains(to)) {
+                            reply(out, "550 No such user");
+                        } else {
+                            recipients.add(to);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder body = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            body.append(line).append('\n');
+                        }
+                        bodies.add(body.toString());
+                        messages.incrementAndGet();
+                        reply(out, "250 Queued");
+                        if (dropAfter > 0 && ++accepted >= dropAfter) return;
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Unknown command");
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        }
+    }
+
+    private synchronized boolean admit() {
+        if (maxPerSecond <= 0) return true;
+        long second = System.currentTimeMillis() / 1000;
+        if (second != windowSecond) {
+            windowSecond = second;
+            windowCount = 0;
+        }
+        return ++windowCount <= maxPerSecond;
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        pool.shutdownNow();
+    }
+}
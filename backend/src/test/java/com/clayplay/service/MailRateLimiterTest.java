@@ -0,0 +1,42 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void MailRateLimiter_Throttled_HalvesRateThenRecoversLinearly() {
+        AtomicLong clock = new AtomicLong(0);
+        MailRateLimiter limiter = new MailRateLimiter(20, 2, 40, 2, 1, 2000, clock::get);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 20, limiter.reserve(), "Nakon praska svaka poruka čeka 1/rate");
+        assertEquals(2 * SECOND / 20, limiter.reserve());
+
+        limiter.onThrottled();
+        assertEquals(10.0, limiter.currentRate(), 0.001);
+        limiter.onThrottled();
+        assertEquals(10.0, limiter.currentRate(), 0.001, "Više 4xx odgovora unutar pauze smanjuje brzinu samo jednom");
+        assertEquals(13 * SECOND / 10, limiter.reserve(), "Nakon 4xx slanje čeka pauzu od sekunde uz postojeći dug");
+
+        clock.addAndGet(2 * SECOND);
+        limiter.onThrottled();
+        assertEquals(6.0, limiter.currentRate(), 0.001, "Oporavak +1/s kroz 2 s, zatim prepolovljeno");
+
+        clock.addAndGet(100 * SECOND);
+        assertEquals(40.0, limiter.currentRate(), 0.001, "Brzina se oporavlja najviše do maksimuma");
+
+        MailRateLimiter slow = new MailRateLimiter(1, 1, 1, 1, 0, 1500, clock::get);
+        assertEquals(0, slow.reserve());
+        assertEquals(SECOND, slow.reserve());
+        assertEquals(-1, slow.reserve(), "Čekanje dulje od maksimalnog odgađa poruku");
+    }
+}
@@ -0,0 +1,106 @@
+package com.clayplay.service;
+
+import com.clayplay.repository.FotografijaMergeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDedupeServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R', 7, 7};
+    private static final byte[] JPG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1};
+
+    @TempDir Path dir;
+    @Mock FotografijaMergeRepository mergeRepository;
+    @Mock ApplicationEventPublisher events;
+
+    private FileStorageService storage() {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(storage, "contentAddressed", true);
+        storage.init();
+        return storage;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(Files::isRegularFile).map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static String hashed(byte[] data, String ext) {
+        return HexFormat.of().formatHex(FileStorageService.sha256().digest(data)) + ext;
+    }
+
+    @Test
+    void FileStorageService_Save_SameContentSharesOneBlob() throws IOException {
+        FileStorageService storage = storage();
+
+        String first = storage.save(PNG, "image/png");
+        String second = storage.save(PNG.clone(), "application/octet-stream");
+        String other = storage.save(JPG, "image/jpeg");
+
+        assertEquals("/media/" + hashed(PNG, ".png"), first);
+        assertEquals(first, second, "Isti sadržaj mora dobiti isti URL");
+        assertNotEquals(first, other);
+        assertEquals(List.of(hashed(PNG, ".png"), hashed(JPG, ".jpg")).stream().sorted().toList(), files(),
+                "Duplikat ne smije ostaviti ni drugu datoteku ni privremenu");
+    }
+
+    @Test
+    void MediaDedupeService_Run_RenamesLegacyUploadsAndMergesDuplicates() throws IOException {
+        FileStorageService storage = storage();
+        Files.write(dir.resolve("aaaa.png"), PNG);
+        Files.write(dir.resolve("bbbb.png"), PNG);
+        Files.write(dir.resolve("cccc.jpg"), JPG);
+        String pngUrl = "/media/" + hashed(PNG, ".png");
+        String jpgUrl = "/media/" + hashed(JPG, ".jpg");
+        MediaDedupeService dedupe = new MediaDedupeService(storage, mergeRepository);
+        ReflectionTestUtils.setField(dedupe, "events", events);
+
+        Map<String, Object> plan = dedupe.run(true);
+        assertEquals(3, plan.get("scanned"));
+        assertEquals(2, plan.get("renamed"));
+        assertEquals(1, plan.get("duplicates"));
+        assertEquals((long) PNG.length, plan.get("bytesFreed"));
+        assertEquals(List.of("aaaa.png", "bbbb.png", "cccc.jpg"), files(), "Probni rad ne smije ništa mijenjati");
+        verifyNoInteractions(mergeRepository, events);
+
+        when(mergeRepository.merge(anyString(), anyString()))
+                .thenAnswer(inv -> inv.getArgument(0).equals("/media/bbbb.png") && inv.getArgument(1).equals(pngUrl));
+        Map<String, Object> result = dedupe.run(false);
+
+        assertEquals(2, result.get("renamed"));
+        assertEquals(1, result.get("duplicates"));
+        assertEquals(1, result.get("mergedRows"));
+        assertEquals(0, result.get("errors"));
+        assertEquals(List.of(hashed(PNG, ".png"), hashed(JPG, ".jpg")).stream().sorted().toList(), files());
+        assertArrayEquals(PNG, Files.readAllBytes(storage.resolve(hashed(PNG, ".png"))));
+        verify(mergeRepository).renameUrl("/media/aaaa.png", pngUrl);
+        verify(mergeRepository).renameUrl("/media/cccc.jpg", jpgUrl);
+        verify(mergeRepository, never()).renameUrl(eq("/media/bbbb.png"), anyString());
+        ArgumentCaptor<ProductCatalogChangedEvent> event = ArgumentCaptor.forClass(ProductCatalogChangedEvent.class);
+        verify(events).publishEvent(event.capture());
+        assertTrue(event.getValue().isEverything(), "Katalog mora ponovno učitati promijenjene URL-ove slika");
+
+        assertEquals(0, dedupe.run(false).get("scanned"), "Ponovno pokretanje nema što raditi");
+        verifyNoMoreInteractions(events);
+    }
+}
@@ -0,0 +1,119 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaLayoutMigrationServiceTest {
+
+    @TempDir Path dir;
+
+    private FileStorageService storage(String extraVolumes) {
+        FileStorageService storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.resolve("a").toString());
+        ReflectionTestUtils.setField(storage, "contentAddressed", true);
+        ReflectionTestUtils.setField(storage, "extraVolumes", extraVolumes);
+        storage.init();
+        return storage;
+    }
+
+    private static byte[] png(int i) {
+        return new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R',
+                (byte) i, (byte) (i >> 8), (byte) (i >> 16)};
+    }
+
+    private static String name(String url) {
+        return url.substring("/media/".length());
+    }
+
+    @Test
+    void FileStorageService_Save_FansOutAcrossShardsAndVolumes() throws IOException {
+        FileStorageService storage = storage(dir.resolve("b") + "," + dir.resolve("c"));
+        int[] perVolume = new int[3];
+
+        for (int i = 0; i < 300; i++) {
+            String filename = name(storage.save(png(i), "image/png"));
+            Path path = storage.resolve(filename);
+            Path volume = volumeOf(storage, path);
+            assertTrue(Files.isRegularFile(path), "resolve mora bez pretrage pokazati gdje je datoteka");
+            assertEquals(filename.substring(0, 2) + "/" + filename.substring(2, 4) + "/" + filename,
+                    volume.relativize(path).toString().replace('\\', '/'));
+            perVolume[storage.volumes().indexOf(volume)]++;
+        }
+
+        for (int n : perVolume) {
+            assertTrue(n > 50, "Datoteke se moraju rasporediti po svim diskovima: " + Arrays.toString(perVolume));
+        }
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("../tajna.txt"));
+    }
+
+    @Test
+    void MediaLayoutMigrationService_Run_MovesFlatFilesWithoutAGapForReaders() throws Exception {
+        FileStorageService storage = storage(dir.resolve("b").toString());
+        Path flatRoot = dir.resolve("a");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String filename = "%032x.png".formatted(i * 7919L);
+            Files.write(flatRoot.resolve(filename), png(i));
+            names.add(filename);
+        }
+        Path flatVariant = flatRoot.resolve("variants/200").resolve(names.get(0));
+        Files.createDirectories(flatVariant.getParent());
+        Files.write(flatVariant, png(0));
+        MediaIndex index = new MediaIndex(storage);
+        index.loadOnStartup();
+        MediaLayoutMigrationService migration = new MediaLayoutMigrationService(storage);
+        ReflectionTestUtils.setField(migration, "index", index);
+
+        Map<String, Object> plan = migration.run(true);
+        assertEquals(201, plan.get("scanned"));
+        assertEquals(201, plan.get("moved"));
+        assertTrue(Files.exists(flatRoot.resolve(names.get(5))), "Probni rad ne smije ništa premjestiti");
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (String n : names) {
+                    if (storage.locate(n) == null) misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        Map<String, Object> result = migration.run(false);
+        done.set(true);
+        reader.join();
+
+        assertEquals(0, misses.get(), "Datoteka mora biti dostupna cijelo vrijeme premještanja");
+        assertEquals(201, result.get("moved"));
+        assertEquals(0, result.get("errors"));
+        for (int i = 0; i < names.size(); i++) {
+            String n = names.get(i);
+            assertFalse(Files.exists(flatRoot.resolve(n)));
+            assertArrayEquals(png(i), Files.readAllBytes(storage.resolve(n)));
+            assertEquals(storage.resolve(n), index.original(n).getPath(), "Indeks mora pratiti novu lokaciju");
+        }
+        assertTrue(Files.isRegularFile(storage.variantPath(names.get(0), 200)));
+        assertFalse(Files.exists(flatVariant));
+        assertEquals(0, migration.run(false).get("scanned"), "Ponovno pokretanje nema što raditi");
+    }
+
+    private static Path volumeOf(FileStorageService storage, Path path) {
+        for (Path v : storage.volumes()) {
+            if (path.startsWith(v)) return v;
+        }
+        throw new AssertionError("Izvan svih diskova: " + path);
+    }
+}
@@ -0,0 +1,93 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.OrganizatorRepository;
+import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.PracenjeRepository;
+import com.clayplay.repository.RadionicaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationAudienceFollowersTest {
+
+    @Mock BatchedMailTransport mailTransport;
+    @Mock PracenjeRepository pracenjeRepository;
+    @Mock PolaznikRepository polaznikRepository;
+    @Mock OrganizatorRepository organizatorRepository;
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock NotificationOutbox outbox;
+    @Mock NotificationDigestService digest;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void WorkshopNotificationEmailService_Notify_FansOutOnlyToOrganizerFollowers() {
+        WorkshopNotificationEmailService service = new WorkshopNotificationEmailService(
+                mailTransport,
+                new NotificationAudience(pracenjeRepository, polaznikRepository, NotificationAudience.FOLLOWERS),
+                radionicaRepository,
+                outbox,
+                digest
+        );
+        when(pracenjeRepository.streamFollowerRecipients(9L)).thenReturn(Stream.of(
+                new NotificationRecipient(2L, "ana@example.com", "Ana"),
+                new NotificationRecipient(5L, "ivo@example.com", null)));
+        when(mailTransport.getBatchSize()).thenReturn(50);
+
+        Radionica r = new Radionica();
+        r.setIdRadionica(4L);
+        r.setNazivRadionica("Lončarsko kolo");
+        service.notifyAllSubscribedPolaznici(9L, r);
+
+        verify(outbox, times(1)).enqueue(eq(AnnouncementBatchHandler.TYPE), argThat(m ->
+                NotificationDigestService.WORKSHOP.equals(m.get("kind"))
+                        && List.of("ana@example.com", "ivo@example.com").equals(((List<Map<String, Object>>) m.get("recipients"))
+                                .stream().map(row -> row.get("email")).toList())));
+        verify(mailTransport, never()).send(anyList());
+        verify(polaznikRepository, never()).streamSubscribedRecipients();
+    }
+
+    @Test
+    void NotificationAudience_Mode_FallsBackToGlobalOptIn() {
+        NotificationAudience all = new NotificationAudience(pracenjeRepository, polaznikRepository, " ALL ");
+        when(polaznikRepository.streamSubscribedRecipients()).thenReturn(Stream.empty());
+        try (Stream<NotificationRecipient> s = all.recipients(9L)) {
+            assertEquals(0, s.count());
+        }
+        assertEquals(NotificationAudience.ALL, all.mode());
+        verifyNoInteractions(pracenjeRepository);
+
+        assertEquals(NotificationAudience.FOLLOWERS,
+                new NotificationAudience(pracenjeRepository, polaznikRepository, null).mode(), "Zadani način su pratitelji");
+    }
+
+    @Test
+    void FollowService_Follow_OnlyPolazniciCanFollowExistingOrganizers() {
+        FollowService follows = new FollowService(pracenjeRepository, polaznikRepository, organizatorRepository);
+        when(polaznikRepository.existsByIdKorisnik(2L)).thenReturn(true);
+        when(polaznikRepository.existsByIdKorisnik(3L)).thenReturn(false);
+        when(organizatorRepository.existsById(9L)).thenReturn(true);
+        when(organizatorRepository.existsById(10L)).thenReturn(false);
+
+        follows.follow(2L, 9L);
+        verify(pracenjeRepository).follow(2L, 9L);
+
+        IllegalArgumentException notPolaznik = assertThrows(IllegalArgumentException.class, () -> follows.follow(3L, 9L));
+        assertEquals("Samo polaznici mogu pratiti organizatore.", notPolaznik.getMessage());
+        IllegalArgumentException noOrganizer = assertThrows(IllegalArgumentException.class, () -> follows.follow(2L, 10L));
+        assertEquals("Organizator ne postoji.", noOrganizer.getMessage());
+        verifyNoMoreInteractions(pracenjeRepository);
+    }
+}
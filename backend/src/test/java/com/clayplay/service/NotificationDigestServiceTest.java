@@ -0,0 +1,163 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestEntry;
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.DigestObjavaRepository;
+import com.clayplay.repository.OrganizatorRepository;
+import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.PracenjeRepository;
+import com.clayplay.repository.ProizvodRepository;
+import com.clayplay.repository.RadionicaRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestServiceTest {
+
+    @Mock DigestObjavaRepository digestRepository;
+    @Mock PracenjeRepository pracenjeRepository;
+    @Mock PolaznikRepository polaznikRepository;
+    @Mock ProizvodRepository proizvodRepository;
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock OrganizatorRepository organizatorRepository;
+    @Mock BatchedMailTransport mailTransport;
+    @Mock NotificationOutbox outbox;
+    @Mock PlatformTransactionManager transactionManager;
+
+    private NotificationDigestService service() {
+        return new NotificationDigestService(
+                digestRepository,
+                new NotificationAudience(pracenjeRepository, polaznikRepository, NotificationAudience.FOLLOWERS),
+                mailTransport,
+                outbox
+        );
+    }
+
+    private DigestBatchHandler batchHandler() {
+        return new DigestBatchHandler(mailTransport, proizvodRepository, radionicaRepository, outbox,
+                new NotificationRenderer(organizatorRepository, "noreply@clayplay.hr"), transactionManager);
+    }
+
+    // what the dispatcher hands the handler: the payload after a round trip through the outbox row
+    private static Map<String, Object> stored(Map<String, Object> payload) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.readValue(mapper.writeValueAsString(payload), new TypeReference<Map<String, Object>>() {});
+    }
+
+    private static Proizvod product(long id, String title, long organizerId) {
+        Proizvod p = new Proizvod();
+        p.setProizvodId(id);
+        p.setOpisProizvod(title);
+        p.setCijenaProizvod(new BigDecimal("20.00"));
+        p.setIdKorisnik(organizerId);
+        return p;
+    }
+
+    @Test
+    void NotificationDigestService_Handle_QueuesBatchesThatSendOneEmailPerRecipientForWholeBurst() throws Exception {
+        NotificationDigestService service = service();
+        List<Map<String, Object>> items = List.of(
+                Map.of("type", NotificationDigestService.PRODUCT, "id", 1, "organizerId", 9),
+                Map.of("type", NotificationDigestService.PRODUCT, "id", 2, "organizerId", 9),
+                Map.of("type", NotificationDigestService.PRODUCT, "id", 3, "organizerId", 9),
+                Map.of("type", NotificationDigestService.WORKSHOP, "id", 7, "organizerId", 4));
+        when(pracenjeRepository.streamDigestFollowers(any())).thenReturn(Stream.of(
+                new DigestSubscription(2L, "ana@example.com", "Ana", 4L),
+                new DigestSubscription(2L, "ana@example.com", "Ana", 9L),
+                new DigestSubscription(5L, "ivo@example.com", null, 9L),
+                new DigestSubscription(6L, "eva@example.com", "Eva", 4L)));
+        when(mailTransport.getBatchSize()).thenReturn(2);
+
+        service.handle(Map.of("items", items));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> rows = ArgumentCaptor.forClass(Map.class);
+        verify(outbox, times(2)).enqueue(eq(DigestBatchHandler.TYPE), rows.capture());
+        verifyNoInteractions(proizvodRepository, radionicaRepository);
+        verify(mailTransport, never()).send(anyList());
+        verify(polaznikRepository, never()).streamDigestRecipients();
+
+        when(proizvodRepository.findAllById(any())).thenReturn(List.of(
+                product(1, "Zdjela", 9), product(2, "Vaza", 9), product(3, "Šalica", 9)));
+        Radionica r = new Radionica();
+        r.setIdRadionica(7L);
+        r.setNazivRadionica("Lončarsko kolo");
+        when(radionicaRepository.findAllById(any())).thenReturn(List.of(r));
+        when(organizatorRepository.findById(anyLong())).thenReturn(Optional.empty());
+        List<SimpleMailMessage> sent = new ArrayList<>();
+        when(mailTransport.send(anyList())).thenAnswer(inv -> {
+            sent.addAll(inv.getArgument(0));
+            return new BatchedMailTransport.Result();
+        });
+        DigestBatchHandler handler = batchHandler();
+        for (Map<String, Object> row : rows.getAllValues()) handler.handle(stored(row));
+
+        assertEquals(3, sent.size(), "Četiri objave za tri primatelja moraju biti tri poruke");
+        SimpleMailMessage ana = sent.get(0);
+        assertEquals("ana@example.com", ana.getTo()[0]);
+        assertEquals("ClayPlay novosti: 4 novih objava", ana.getSubject());
+        assertTrue(ana.getText().contains("Zdjela") && ana.getText().contains("Šalica") && ana.getText().contains("Lončarsko kolo"));
+        SimpleMailMessage ivo = sent.get(1);
+        assertEquals("ClayPlay novosti: 3 novih objava", ivo.getSubject());
+        assertFalse(ivo.getText().contains("Lončarsko kolo"), "Primatelj dobiva samo objave organizatora koje prati");
+        assertEquals("ClayPlay novosti: 1 nova objava", sent.get(2).getSubject());
+        verify(mailTransport, times(2)).send(anyList());
+    }
+
+    @Test
+    void DigestBatchHandler_Handle_BrokenRecipientOnlySkipsThatRecipient() {
+        when(proizvodRepository.findAllById(any())).thenReturn(List.of(product(1, "Zdjela", 9)));
+        when(radionicaRepository.findAllById(any())).thenReturn(List.of());
+        when(organizatorRepository.findById(anyLong())).thenReturn(Optional.empty());
+        List<SimpleMailMessage> sent = new ArrayList<>();
+        when(mailTransport.send(anyList())).thenAnswer(inv -> {
+            sent.addAll(inv.getArgument(0));
+            return new BatchedMailTransport.Result();
+        });
+        Map<String, Object> broken = new HashMap<>(Map.of("userId", 3L, "email", "pero@example.com", "organizers", List.of("x")));
+
+        batchHandler().handle(DigestBatchHandler.payload(
+                List.of(Map.of("type", NotificationDigestService.PRODUCT, "id", 1, "organizerId", 9)),
+                List.of(broken, DigestBatchHandler.recipient(new DigestSubscription(5L, "ivo@example.com", null, null), null))));
+
+        assertEquals(1, sent.size());
+        assertEquals("ivo@example.com", sent.get(0).getTo()[0], "Primatelj svih organizatora dobiva sažetak");
+    }
+
+    @Test
+    void NotificationDigestService_CloseWindow_MovesClaimedItemsToOneOutboxJob() {
+        NotificationDigestService service = service();
+        when(digestRepository.claimBefore(any())).thenReturn(List.of(
+                new DigestEntry(NotificationDigestService.PRODUCT, 1L, 9L),
+                new DigestEntry(NotificationDigestService.WORKSHOP, 7L, 4L)), List.of());
+
+        service.closeWindow();
+        service.closeWindow();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(outbox, times(1)).enqueue(eq(NotificationDigestService.OUTBOX_TYPE), payload.capture());
+        assertEquals(2, ((List<?>) payload.getValue().get("items")).size());
+    }
+}
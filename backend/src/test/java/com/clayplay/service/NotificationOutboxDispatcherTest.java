@@ -0,0 +1,114 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.OutboxMessage;
+import com.clayplay.repository.ObavijestOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxDispatcherTest {
+
+    @Mock ObavijestOutboxRepository repository;
+
+    static class SlowHandler implements OutboxHandler {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public String type() {
+            return "TEST";
+        }
+
+        @Override
+        public void handle(Map<String, Object> payload) throws Exception {
+            if (Boolean.TRUE.equals(payload.get("fail"))) throw new IllegalStateException("smtp 451");
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            running.decrementAndGet();
+        }
+    }
+
+    private NotificationOutboxDispatcher dispatcher(SlowHandler handler) {
+        return new NotificationOutboxDispatcher(repository, new ObjectMapper(), List.of(handler),
+                4, 20, 3, 1000, 60_000, 60);
+    }
+
+    @Test
+    void NotificationOutboxDispatcher_Dispatch_DrainsInParallelAndDeletesDelivered() throws Exception {
+        SlowHandler handler = new SlowHandler();
+        NotificationOutboxDispatcher dispatcher = dispatcher(handler);
+        AtomicLong ids = new AtomicLong();
+        when(repository.claim(anyInt(), anyInt())).thenAnswer(inv -> {
+            int n = inv.getArgument(0);
+            List<OutboxMessage> out = new ArrayList<>();
+            for (int i = 0; i < n && ids.get() < 12; i++) out.add(new OutboxMessage(ids.incrementAndGet(), "TEST", "{}", 1));
+            return out;
+        });
+
+        try {
+            while (ids.get() < 12) {
+                dispatcher.dispatch();
+                assertTrue(dispatcher.awaitIdle(5000));
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+
+        verify(repository, times(12)).delete(anyLong());
+        verify(repository, never()).reschedule(anyLong(), any(), any());
+        assertEquals(4, handler.peak.get(), "Sva četiri radnika moraju raditi paralelno");
+        assertEquals(12L, dispatcher.stats().get("delivered"));
+    }
+
+    @Test
+    void NotificationOutboxDispatcher_Process_BacksOffThenDeadLetters() {
+        NotificationOutboxDispatcher dispatcher = dispatcher(new SlowHandler());
+        try {
+            Instant before = Instant.now();
+            dispatcher.process(new OutboxMessage(1L, "TEST", "{\"fail\":true}", 2));
+            ArgumentCaptor<Instant> next = ArgumentCaptor.forClass(Instant.class);
+            verify(repository).reschedule(eq(1L), next.capture(), contains("smtp 451"));
+            long waited = Duration.between(before, next.getValue()).toMillis();
+            assertTrue(waited >= 2000 && waited <= 2000 + 400 + 100, "Drugi pokušaj čeka 2x osnovni backoff uz jitter, bilo je " + waited);
+
+            dispatcher.process(new OutboxMessage(2L, "TEST", "{\"fail\":true}", 3));
+            verify(repository).deadLetter(eq(2L), contains("smtp 451"));
+
+            dispatcher.process(new OutboxMessage(3L, "UNKNOWN", "{}", 1));
+            verify(repository).reschedule(eq(3L), any(), contains("No outbox handler"));
+            verify(repository, never()).delete(anyLong());
+
+            Map<String, Long> stats = dispatcher.stats();
+            assertEquals(2L, stats.get("retried"));
+            assertEquals(1L, stats.get("deadLettered"));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void NotificationOutboxDispatcher_Backoff_DoublesAndCaps() {
+        Duration base = Duration.ofSeconds(30);
+        Duration max = Duration.ofMinutes(10);
+        assertEquals(Duration.ofSeconds(30), NotificationOutboxDispatcher.backoff(1, base, max));
+        assertEquals(Duration.ofSeconds(120), NotificationOutboxDispatcher.backoff(3, base, max));
+        assertEquals(max, NotificationOutboxDispatcher.backoff(6, base, max));
+        assertEquals(max, NotificationOutboxDispatcher.backoff(200, base, max));
+    }
+}
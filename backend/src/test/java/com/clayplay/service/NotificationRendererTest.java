@@ -0,0 +1,156 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.DigestSubscription;
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.model.Organizator;
+import com.clayplay.model.Proizvod;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.OrganizatorRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRendererTest {
+
+    @Mock OrganizatorRepository organizatorRepository;
+
+    private NotificationRenderer renderer() {
+        Organizator org = new Organizator();
+        org.setImeStudija("Studio <Glina> & Co");
+        when(organizatorRepository.findById(9L)).thenReturn(Optional.of(org));
+        return new NotificationRenderer(organizatorRepository, "noreply@clayplay.hr");
+    }
+
+    private static Radionica workshop() {
+        Radionica r = new Radionica();
+        r.setIdRadionica(7L);
+        r.setNazivRadionica("Lončarsko kolo");
+        r.setLokacijaRadionica("Zagreb");
+        r.setOpisRadionica("Prvi red\nDrugi red");
+        r.setDatVrRadionica(OffsetDateTime.of(2026, 3, 14, 18, 0, 0, 0, ZoneOffset.UTC));
+        return r;
+    }
+
+    @Test
+    void NotificationRenderer_Workshop_RendersTextAndEscapedHtml() {
+        NotificationRenderer.Announcement announcement = renderer().workshop(9L, workshop());
+
+        NotificationMail mail = announcement.render(new NotificationRecipient(2L, "ana@example.com", "Ana"));
+
+        assertEquals("noreply@clayplay.hr", mail.getFrom());
+        assertEquals("ana@example.com", mail.getTo()[0]);
+        assertEquals("Nova radionica: Lončarsko kolo", mail.getSubject());
+        assertEquals("""
+                Pozdrav Ana!
+
+                Organizator Studio <Glina> & Co je upravo otvorio novu radionicu "Lončarsko kolo".
+
+                Vrijeme: 14.03.2026. 18:00
+                Lokacija: Zagreb
+
+                Opis radionice:
+                Prvi red
+                Drugi red
+
+                Vidimo se!
+                ClayPlay
+                """, mail.getText());
+        assertTrue(mail.getHtml().contains("<strong>Studio &lt;Glina&gt; &amp; Co</strong>"), "HTML vrijednosti moraju biti escapeane");
+        assertTrue(mail.getHtml().contains("Prvi red<br>Drugi red"));
+        assertFalse(mail.getHtml().contains("<Glina>"));
+    }
+
+    @Test
+    void NotificationRenderer_Product_SkipsBlankSectionsAndGreetingName() {
+        Proizvod p = new Proizvod();
+        p.setOpisProizvod("Zdjela");
+        p.setCijenaProizvod(new BigDecimal("20.00"));
+
+        NotificationMail mail = renderer().product(9L, p).render(new NotificationRecipient(5L, "ivo@example.com", null));
+
+        assertTrue(mail.getText().startsWith("Pozdrav!\n\n"));
+        assertTrue(mail.getText().contains("Cijena: 20.00 €\n"));
+        assertFalse(mail.getText().contains("Kategorija"), "Prazna kategorija se ne prikazuje");
+        assertFalse(mail.getHtml().contains("Kategorija"));
+    }
+
+    @Test
+    void NotificationRenderer_Digest_SharesSectionsAcrossRecipients() {
+        NotificationRenderer renderer = renderer();
+        Proizvod p = new Proizvod();
+        p.setOpisProizvod("Vaza");
+        p.setKategorijaProizvod("Keramika");
+        NotificationRenderer.DigestSection section = renderer.digestSection(9L).add(p).add(workshop());
+
+        NotificationMail mail = renderer.digest(new DigestSubscription(2L, "ana@example.com", "Ana", 9L),
+                section.text(), section.html(), section.getCount());
+
+        assertEquals(2, section.getCount());
+        assertEquals("ClayPlay novosti: 2 novih objava", mail.getSubject());
+        assertTrue(mail.getText().contains("Organizator Studio <Glina> & Co:\n  - Novi proizvod: Vaza, Keramika\n"
+                + "  - Nova radionica: Lončarsko kolo, 14.03.2026. 18:00, Zagreb\n"));
+        assertTrue(mail.getHtml().contains("<h3>Studio &lt;Glina&gt; &amp; Co</h3>"));
+        assertTrue(mail.getHtml().contains("<li>Novi proizvod: <strong>Vaza</strong>, Keramika</li>"));
+    }
+
+    @Test
+    void MailTemplate_Compile_RejectsUnknownVariablesAndUnbalancedSections() {
+        assertThrows(IllegalStateException.class, () -> MailTemplate.compile("{{nepoznato}}", false, List.of("a")));
+        assertThrows(IllegalStateException.class, () -> MailTemplate.compile("{{#a}}x", false, List.of("a")));
+        assertThrows(IllegalStateException.class, () -> MailTemplate.compile("{{#a}}x{{/b}}", false, List.of("a", "b")));
+        assertEquals("x=1;", MailTemplate.compile("x={{a}};{{#b}}b={{b}}{{/b}}", false, List.of("a", "b"))
+                .render(new String[]{"1", " "}));
+    }
+
+    @Test
+    void BatchedMailTransport_Send_DeliversNotificationMailAsMultipartAlternative() throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer()) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(smtp.port());
+            BatchedMailTransport transport = new BatchedMailTransport(sender, MailRateLimiter.unlimited(), 10, 1, 30_000);
+            try {
+                NotificationMail mail = renderer().workshop(9L, workshop())
+                        .render(new NotificationRecipient(2L, "ana@example.com", "Ana"));
+                assertEquals(1, transport.send(List.of(mail)).getSent());
+            } finally {
+                transport.shutdown();
+            }
+            String body = smtp.bodies.get(0);
+            assertTrue(body.contains("multipart/alternative"), "Poruka mora imati tekstualni i HTML dio");
+            assertTrue(body.contains("text/plain") && body.contains("text/html"));
+        }
+    }
+
+    @Test
+    void NotificationRenderer_Workshop_RendersEveryRecipientOfALargeBatchFromOneAnnouncement() {
+        NotificationRenderer.Announcement announcement = renderer().workshop(9L, workshop());
+        List<NotificationRecipient> recipients = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            recipients.add(new NotificationRecipient((long) i, "polaznik" + i + "@example.com", i % 3 == 0 ? null : "Polaznik" + i));
+        }
+        String shared = announcement.render(recipients.get(1)).getText().substring("Pozdrav Polaznik1!".length());
+
+        for (NotificationRecipient r : recipients) {
+            NotificationMail mail = announcement.render(r);
+            String greeting = r.getFirstName() == null ? "Pozdrav!" : "Pozdrav " + r.getFirstName() + "!";
+            assertEquals(r.getEmail(), mail.getTo()[0]);
+            assertEquals(greeting + shared, mail.getText(), "Primatelji se razlikuju samo po pozdravu");
+            assertTrue(mail.getHtml().contains("<strong>Studio &lt;Glina&gt; &amp; Co</strong>"));
+        }
+        verify(organizatorRepository, times(1)).findById(9L);
+    }
+}
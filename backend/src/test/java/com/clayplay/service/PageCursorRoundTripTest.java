@@ -0,0 +1,34 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorRoundTripTest {
+
+    @Test
+    void PageCursor_EncodeDecode_PreservesInstantAndId() {
+        OffsetDateTime at = OffsetDateTime.of(2025, 3, 14, 18, 30, 0, 123456000, ZoneOffset.ofHours(1));
+
+        PageCursor decoded = PageCursor.decode(PageCursor.encode(at, 42L));
+
+        assertNotNull(decoded);
+        assertEquals(42L, decoded.getId());
+        assertTrue(at.isEqual(decoded.getAt()), "Vrijeme mora predstavljati isti trenutak");
+        assertNull(PageCursor.decode(PageCursor.encode(7L)).getAt());
+    }
+
+    @Test
+    void PageCursor_InvalidToken_ThrowsException() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class,
+                () -> PageCursor.decode("%%%")
+        );
+
+        assertEquals("Invalid cursor", ex.getMessage());
+        assertEquals(PageCursor.MAX_LIMIT, PageCursor.clampLimit(10_000));
+    }
+}
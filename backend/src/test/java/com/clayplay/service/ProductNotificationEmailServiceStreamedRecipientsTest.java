@@ -0,0 +1,152 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.NotificationRecipient;
+import com.clayplay.model.Proizvod;
+import com.clayplay.repository.OrganizatorRepository;
+import com.clayplay.repository.PolaznikRepository;
+import com.clayplay.repository.PracenjeRepository;
+import com.clayplay.repository.ProizvodRepository;
+import com.clayplay.repository.RadionicaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductNotificationEmailServiceStreamedRecipientsTest {
+
+    @Mock BatchedMailTransport mailTransport;
+    @Mock PolaznikRepository polaznikRepository;
+    @Mock PracenjeRepository pracenjeRepository;
+    @Mock OrganizatorRepository organizatorRepository;
+    @Mock ProizvodRepository proizvodRepository;
+    @Mock NotificationOutbox outbox;
+    @Mock NotificationDigestService digest;
+
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ProductNotificationEmailService_Notify_StreamsRecipientsIntoBoundedOutboxBatches() {
+        ProductNotificationEmailService service = new ProductNotificationEmailService(
+                mailTransport,
+                new NotificationAudience(pracenjeRepository, polaznikRepository, NotificationAudience.ALL),
+                proizvodRepository,
+                outbox,
+                digest
+        );
+
+        int subscribers = 20_000;
+        AtomicLong produced = new AtomicLong();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<NotificationRecipient> lazy = Stream.iterate(1L, i -> i + 1)
+                .limit(subscribers)
+                .map(i -> {
+                    produced.incrementAndGet();
+                    return new NotificationRecipient(i, "polaznik" + i + "@example.com", i % 2 == 0 ? "Ana" : null);
+                })
+                .onClose(() -> closed.set(true));
+        when(polaznikRepository.streamSubscribedRecipients()).thenReturn(lazy);
+        when(mailTransport.getBatchSize()).thenReturn(50);
+
+        AtomicLong queuedBeforeFullyRead = new AtomicLong(-1);
+        List<Map<String, Object>> queued = new ArrayList<>();
+        doAnswer(inv -> {
+            if (queuedBeforeFullyRead.get() < 0) queuedBeforeFullyRead.set(produced.get());
+            queued.add(inv.getArgument(1));
+            return null;
+        }).when(outbox).enqueue(eq(AnnouncementBatchHandler.TYPE), anyMap());
+
+        Proizvod p = new Proizvod();
+        p.setProizvodId(3L);
+        p.setOpisProizvod("Zdjela");
+        p.setCijenaProizvod(new BigDecimal("25.00"));
+
+        service.notifyAllSubscribedPolaznici(9L, p);
+
+        assertEquals(subscribers / 50, queued.size());
+        for (Map<String, Object> batch : queued) {
+            assertEquals(50, ((List<?>) batch.get("recipients")).size(), "Serija ne smije biti veća od konfigurirane");
+            assertEquals(3L, ((Number) batch.get("targetId")).longValue());
+        }
+        assertEquals(50L, queuedBeforeFullyRead.get(), "Serije se moraju upisivati dok se primatelji još čitaju");
+        assertTrue(closed.get(), "Stream (kursor) mora biti zatvoren");
+        verify(mailTransport, never()).send(anyList());
+        verify(polaznikRepository, never()).findAll();
+
+        // one queued batch is sent on its own; a throttled recipient is retried alone
+        AnnouncementBatchHandler handler = new AnnouncementBatchHandler(mailTransport, proizvodRepository,
+                radionicaRepository, outbox, new NotificationRenderer(organizatorRepository, "noreply@clayplay.hr"),
+                transactionManager);
+        when(proizvodRepository.findById(3L)).thenReturn(Optional.of(p));
+        when(organizatorRepository.findById(9L)).thenReturn(Optional.empty());
+        AtomicLong delivered = new AtomicLong();
+        when(mailTransport.send(anyList())).thenAnswer(inv -> {
+            List<SimpleMailMessage> batch = inv.getArgument(0);
+            assertEquals(50, batch.size());
+            BatchedMailTransport.Result result = new BatchedMailTransport.Result();
+            for (SimpleMailMessage msg : batch) {
+                if ("polaznik7@example.com".equals(msg.getTo()[0])) result.getDeferred().put(msg, new MailSendException("421 try later"));
+                else delivered.incrementAndGet();
+            }
+            return result;
+        });
+
+        handler.handle(queued.get(0));
+
+        assertEquals(49, delivered.get());
+        verify(mailTransport, times(1)).send(anyList());
+        verify(outbox).enqueue(eq(EmailOutboxHandler.TYPE), argThat(m -> "polaznik7@example.com".equals(m.get("to"))));
+    }
+
+    @Test
+    void AnnouncementBatchHandler_Handle_BrokenRecipientOnlySkipsThatRecipient() {
+        AnnouncementBatchHandler handler = new AnnouncementBatchHandler(mailTransport, proizvodRepository,
+                radionicaRepository, outbox, new NotificationRenderer(organizatorRepository, "noreply@clayplay.hr"),
+                transactionManager);
+        Proizvod p = new Proizvod();
+        p.setProizvodId(3L);
+        p.setOpisProizvod("Zdjela");
+        when(proizvodRepository.findById(3L)).thenReturn(Optional.of(p));
+        when(mailTransport.send(anyList())).thenAnswer(inv -> {
+            List<SimpleMailMessage> batch = inv.getArgument(0);
+            assertEquals(List.of("polaznik1@example.com", "polaznik3@example.com"), batch.stream().map(m -> m.getTo()[0]).toList(),
+                    "Neispravan primatelj se preskače, ostali dobivaju email");
+            BatchedMailTransport.Result result = new BatchedMailTransport.Result();
+            result.getDeferred().put(batch.get(0), new MailSendException("421 try later"));
+            result.getDeferred().put(batch.get(1), new MailSendException("421 try later"));
+            return result;
+        });
+        doThrow(new IllegalStateException("outbox nedostupan"))
+                .doNothing()
+                .when(outbox).enqueue(eq(EmailOutboxHandler.TYPE), anyMap());
+
+        handler.handle(Map.of("kind", NotificationDigestService.PRODUCT, "organizerId", 9L, "targetId", 3L,
+                "recipients", List.of(
+                        Map.of("userId", 1L, "email", "polaznik1@example.com"),
+                        Map.of("userId", 2L, "email", 42),
+                        Map.of("userId", 3L, "email", "polaznik3@example.com"))));
+
+        verify(mailTransport).send(anyList());
+        verify(outbox, times(2)).enqueue(eq(EmailOutboxHandler.TYPE), anyMap());
+    }
+}
@@ -0,0 +1,108 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductResponse;
+import com.clayplay.model.Proizvod;
+import com.clayplay.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductResponseAssemblerBatchedQueriesTest {
+
+    @Mock FotoProizvodRepository fotoProizvodRepository;
+    @Mock RecenzijaRepository recenzijaRepository;
+    @Mock OcjenaProdavacaRepository ocjenaProdavacaRepository;
+
+    private static Proizvod product(long id, long sellerId) {
+        Proizvod p = new Proizvod();
+        p.setProizvodId(id);
+        p.setIdKorisnik(sellerId);
+        p.setOpisProizvod("Vaza " + id);
+        p.setCijenaProizvod(new BigDecimal("10.00"));
+        p.setKategorijaProizvod("vaze");
+        return p;
+    }
+
+    @Test
+    void ProductResponseAssembler_ToDtos_UsesConstantNumberOfQueries() {
+        ProductResponseAssembler assembler = new ProductResponseAssembler(
+                fotoProizvodRepository,
+                recenzijaRepository,
+                ocjenaProdavacaRepository
+        );
+
+        List<Proizvod> products = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) products.add(product(i, i % 2 == 0 ? 100L : 200L));
+
+        List<Object[]> comments = new ArrayList<>();
+        comments.add(new Object[]{100L, 900L, "Odlično"});
+        comments.add(new Object[]{100L, 2L, "Lijepo"});
+
+        when(ocjenaProdavacaRepository.findSellerTotals(anyCollection()))
+                .thenReturn(Map.of(100L, new OcjenaProdavacaRepository.Totals(12L, 3L)));
+        when(ocjenaProdavacaRepository.findProductTotals(anyCollection()))
+                .thenReturn(Map.of(2L, new OcjenaProdavacaRepository.Totals(9L, 2L)));
+        when(recenzijaRepository.commentTextsForSellers(anyCollection())).thenReturn(comments);
+        when(fotoProizvodRepository.findFirstImageUrls(anyCollection())).thenReturn(Map.of(1L, "/media/a.jpg"));
+
+        List<ProductResponse> result = assembler.toDtos(products);
+
+        assertEquals(50, result.size(), "Svaki proizvod mora imati DTO");
+
+        verify(ocjenaProdavacaRepository, times(1)).findSellerTotals(anyCollection());
+        verify(ocjenaProdavacaRepository, times(1)).findProductTotals(anyCollection());
+        verify(recenzijaRepository, times(1)).commentTextsForSellers(anyCollection());
+        verify(fotoProizvodRepository, times(1)).findFirstImageUrls(anyCollection());
+        verifyNoMoreInteractions(recenzijaRepository, ocjenaProdavacaRepository, fotoProizvodRepository);
+
+        ProductResponse first = result.get(0);
+        assertEquals("/media/a.jpg", first.imageUrl);
+        assertNull(first.organizerAvgRating, "Prodavač bez recenzija nema prosjek");
+        assertEquals(0L, first.organizerReviewCount);
+
+        ProductResponse second = result.get(1);
+        assertEquals(1L, second.organizerReviewCount, "Recenzije vlastitog proizvoda se ne broje");
+        assertEquals(3.0, second.organizerAvgRating);
+        assertEquals(List.of("Odlično"), second.organizerReviewComments);
+
+        ProductResponse fourth = result.get(3);
+        assertEquals(3L, fourth.organizerReviewCount);
+        assertEquals(4.0, fourth.organizerAvgRating);
+        assertEquals(List.of("Odlično", "Lijepo"), fourth.organizerReviewComments);
+    }
+
+    @Test
+    void ProductResponseAssembler_ToDtos_SplitsLargeCatalogIntoBoundedIdLists() {
+        ProductResponseAssembler assembler = new ProductResponseAssembler(
+                fotoProizvodRepository,
+                recenzijaRepository,
+                ocjenaProdavacaRepository
+        );
+
+        List<Proizvod> products = new ArrayList<>();
+        for (long i = 1; i <= 2_500; i++) products.add(product(i, 10_000L + i));
+        List<Integer> batchSizes = new ArrayList<>();
+        when(recenzijaRepository.commentTextsForSellers(anyCollection())).thenAnswer(inv -> {
+            batchSizes.add(inv.<Collection<?>>getArgument(0).size());
+            return List.of();
+        });
+
+        List<ProductResponse> result = assembler.toDtos(products);
+
+        assertEquals(2_500, result.size());
+        assertEquals(List.of(1_000, 1_000, 500), batchSizes, "Popis id-eva u IN mora ostati ograničen");
+        assertEquals(0L, result.get(0).organizerReviewCount, "Ocjene se i dalje učitavaju");
+    }
+}
@@ -0,0 +1,105 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductResponse;
+import com.clayplay.dto.ProductSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private static final String[] CATEGORIES = {"Šalice", "Vaze", "Tanjuri", "Zdjele", "Ukrasi"};
+    private static final String[] WORDS = {"ručno", "rađena", "glazirana", "čupa", "keramička", "plava", "zemljana",
+            "šalica", "vaza", "tanjur", "zdjela", "đurđica", "motiv", "bijela", "crvena", "mala", "velika"};
+
+    private static ProductResponse product(long id, String opis, String kategorija, String cijena) {
+        ProductResponse p = new ProductResponse();
+        p.proizvodId = id;
+        p.opisProizvod = opis;
+        p.kategorijaProizvod = kategorija;
+        p.cijenaProizvod = new BigDecimal(cijena);
+        return p;
+    }
+
+    @Test
+    void ProductSearchIndex_FoldsDiacriticsAndMatchesPrefixes() {
+        ProductSearchIndex index = ProductSearchIndex.build(List.of(
+                product(4, "Keramička šalica s motivom đurđice", "Šalice", "18.00"),
+                product(3, "Plava vaza", "Vaze", "42.50"),
+                product(2, "Čupa za vodu", "Vaze", "30.00"),
+                product(1, "Šalica za čaj", "Šalice", "9.90")
+        ));
+
+        ProductSearchResponse byPrefix = index.search("sal", null, null, null, null, 20);
+        assertEquals(List.of(4L, 1L), byPrefix.items.stream().map(r -> r.proizvodId).toList());
+
+        ProductSearchResponse folded = index.search("DURD keram", null, null, null, null, 20);
+        assertEquals(1, folded.total);
+        assertEquals(4L, folded.items.get(0).proizvodId);
+
+        ProductSearchResponse byPrice = index.search(null, new BigDecimal("10"), new BigDecimal("40"), null, null, 20);
+        assertEquals(List.of(4L, 2L), byPrice.items.stream().map(r -> r.proizvodId).toList());
+        assertEquals(1L, byPrice.facets.get("Šalice"));
+        assertEquals(1L, byPrice.facets.get("Vaze"));
+
+        ProductSearchResponse inCategory = index.search(null, null, null, "vaze", null, 1);
+        assertEquals(2, inCategory.total);
+        assertEquals(3L, inCategory.items.get(0).proizvodId);
+        assertEquals(2L, inCategory.facets.get("Šalice"), "Fasete ne ovise o odabranoj kategoriji");
+
+        ProductSearchResponse nextPage = index.search(null, null, null, "vaze", PageCursor.decode(inCategory.nextCursor).getId(), 1);
+        assertEquals(2L, nextPage.items.get(0).proizvodId);
+        assertNull(nextPage.nextCursor);
+    }
+
+    @Test
+    void ProductSearchIndex_MissingDescription_IsNotIndexedAsNull() {
+        ProductSearchIndex index = ProductSearchIndex.build(List.of(
+                product(2, null, "Vaze", "12.00"),
+                product(1, "Plava vaza", "Vaze", "42.50")
+        ));
+
+        assertEquals(0, index.search("null", null, null, null, null, 20).total, "Prazan opis se ne smije indeksirati kao \"null\"");
+        assertEquals(2, index.search("vaze", null, null, null, null, 20).total, "Proizvod bez opisa se i dalje nalazi po kategoriji");
+    }
+
+    @Test
+    void ProductSearchIndex_LargeCatalog_MatchesFullScan() {
+        Random random = new Random(42);
+        List<ProductResponse> docs = new ArrayList<>();
+        for (long id = 20_000; id >= 1; id--) {
+            StringBuilder opis = new StringBuilder();
+            for (int w = 0; w < 6; w++) opis.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            String cijena = (1 + random.nextInt(200)) + ".00";
+            docs.add(product(id, opis.toString(), CATEGORIES[random.nextInt(CATEGORIES.length)], cijena));
+        }
+        ProductSearchIndex index = ProductSearchIndex.build(docs);
+
+        String[] queries = {"cupa", "ruc glaz", "d", "plava vaza", "keramicka zdjela bijela", "zemlj"};
+        for (String q : queries) {
+            for (String category : new String[]{null, "Vaze"}) {
+                List<String> tokens = ProductSearchIndex.tokenize(q);
+                List<Long> expected = docs.stream()
+                        .filter(d -> d.cijenaProizvod.compareTo(BigDecimal.TEN) >= 0 && d.cijenaProizvod.compareTo(new BigDecimal("150")) <= 0)
+                        .filter(d -> category == null || d.kategorijaProizvod.equals(category))
+                        .filter(d -> {
+                            List<String> words = ProductSearchIndex.tokenize(d.opisProizvod + " " + d.kategorijaProizvod);
+                            return tokens.stream().allMatch(t -> words.stream().anyMatch(w -> w.startsWith(t)));
+                        })
+                        .map(d -> d.proizvodId)
+                        .toList();
+
+                ProductSearchResponse res = index.search(q, BigDecimal.TEN, new BigDecimal("150"), category, null, 20);
+
+                assertEquals(expected.size(), res.total, "Ukupan broj za upit '" + q + "'");
+                assertEquals(expected.subList(0, Math.min(20, expected.size())),
+                        res.items.stream().map(r -> r.proizvodId).toList(), "Prva stranica za upit '" + q + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.ProductResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchServiceBackgroundRebuildTest {
+
+    @Mock ProductService products;
+    private ProductSearchService search;
+
+    @AfterEach
+    void stop() {
+        if (search != null) search.shutdown();
+    }
+
+    private static ProductCatalog.Snapshot snapshot(long version, long... ids) {
+        List<ProductResponse> items = new ArrayList<>();
+        for (long id : ids) {
+            ProductResponse p = new ProductResponse();
+            p.proizvodId = id;
+            p.opisProizvod = "Vaza " + id;
+            p.kategorijaProizvod = "Vaze";
+            p.cijenaProizvod = BigDecimal.TEN;
+            items.add(p);
+        }
+        return new ProductCatalog.Snapshot(1L, version, items);
+    }
+
+    @Test
+    void ProductSearchService_NewSnapshot_IsIndexedOffTheRequestThread() throws Exception {
+        ProductCatalog.Snapshot first = snapshot(1, 2, 1);
+        ProductCatalog.Snapshot second = snapshot(2, 3, 2, 1);
+        when(products.catalogSnapshot()).thenReturn(first);
+        search = new ProductSearchService(products);
+
+        assertEquals(2, search.search("vaza", null, null, null, null, 20).total);
+
+        when(products.catalogSnapshot()).thenReturn(second);
+        search.onCatalogChange(ProductCatalogChangedEvent.ofProducts(List.of(3L)));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        long total = 0;
+        while (System.currentTimeMillis() < deadline && (total = search.search("vaza", null, null, null, null, 20).total) != 3) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, total, "Novi katalog se mora indeksirati u pozadini");
+        verify(products, never()).listAll();
+    }
+
+    @Test
+    void ProductSearchService_WithoutSnapshot_ReusesTheIndexInsteadOfListingPerSearch() {
+        ProductResponse p = new ProductResponse();
+        p.proizvodId = 1L;
+        p.opisProizvod = "Šalica";
+        p.kategorijaProizvod = "Šalice";
+        p.cijenaProizvod = BigDecimal.ONE;
+        when(products.catalogSnapshot()).thenReturn(null);
+        when(products.listAll()).thenReturn(List.of(p));
+        search = new ProductSearchService(products);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, search.search("sal", null, null, null, null, 20).total);
+        }
+        verify(products, times(1)).listAll();
+    }
+}
@@ -0,0 +1,132 @@
+package com.clayplay.service;
+
+import com.clayplay.model.Rezervacija;
+import com.clayplay.repository.CheckoutBatchRepository;
+import com.clayplay.repository.ListaCekanjaRepository;
+import com.clayplay.repository.RezervacijaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceWaitlistPromotionTest {
+
+    @Mock RezervacijaRepository rezervacijaRepository;
+    @Mock SeatInventory seatInventory;
+    @Mock ListaCekanjaRepository listaCekanjaRepository;
+    @Mock CheckoutBatchRepository checkoutBatchRepository;
+    @Mock NotificationOutbox outbox;
+    @Mock ApplicationEventPublisher events;
+
+    private static Rezervacija reservation(Long userId, Long workshopId, String status) {
+        Rezervacija r = new Rezervacija();
+        r.setIdKorisnik(userId);
+        r.setIdRadionica(workshopId);
+        r.setStatusRez(status);
+        return r;
+    }
+
+    @Test
+    void ReservationService_Cancel_PromotesHeadOfWaitlistInSameTransaction() {
+        ReservationService service = new ReservationService(
+                rezervacijaRepository,
+                seatInventory,
+                listaCekanjaRepository,
+                checkoutBatchRepository,
+                outbox,
+                events
+        );
+
+        Rezervacija mine = reservation(1L, 7L, "reserved");
+        when(rezervacijaRepository.findByIdKorisnikAndIdRadionica(1L, 7L)).thenReturn(Optional.of(mine));
+        when(listaCekanjaRepository.popHead(7L)).thenReturn(2L, 3L);
+        when(checkoutBatchRepository.reserve(2L, List.of(7L))).thenReturn(List.of());
+        when(checkoutBatchRepository.reserve(3L, List.of(7L))).thenReturn(List.of(7L));
+
+        service.cancel(1L, 7L);
+
+        assertEquals("canceled", mine.getStatusRez());
+        InOrder order = inOrder(rezervacijaRepository, listaCekanjaRepository, checkoutBatchRepository);
+        order.verify(rezervacijaRepository).saveAndFlush(mine);
+        order.verify(listaCekanjaRepository).popHead(7L);
+        order.verify(checkoutBatchRepository).reserve(2L, List.of(7L));
+        order.verify(listaCekanjaRepository).popHead(7L);
+        order.verify(checkoutBatchRepository).reserve(3L, List.of(7L));
+
+        verify(outbox).enqueue(WaitlistNotificationEmailService.OUTBOX_TYPE, WaitlistNotificationEmailService.payload(3L, 7L));
+        verify(outbox, never()).enqueue(any(), eq(WaitlistNotificationEmailService.payload(2L, 7L)));
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(events).publishEvent(published.capture());
+        assertInstanceOf(WorkshopSeatsChangedEvent.class, published.getValue());
+
+        clearInvocations(listaCekanjaRepository, events);
+        service.cancel(1L, 7L);
+        verify(listaCekanjaRepository, never()).popHead(any());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void ReservationService_OnSeatsFreed_PromotesThroughTheSeatCounter() {
+        ReservationService service = new ReservationService(
+                rezervacijaRepository,
+                seatInventory,
+                listaCekanjaRepository,
+                checkoutBatchRepository,
+                outbox,
+                events
+        );
+
+        when(listaCekanjaRepository.hasWaiting(7L)).thenReturn(true, true, true, false);
+        when(seatInventory.hold(7L)).thenReturn(true, true, false);
+        when(listaCekanjaRepository.popHead(7L)).thenReturn(2L, 3L);
+        when(checkoutBatchRepository.reserve(2L, List.of(7L))).thenReturn(List.of());
+        when(checkoutBatchRepository.reserve(3L, List.of(7L))).thenReturn(List.of(7L));
+
+        service.onSeatsFreed(new WorkshopSeatsFreedEvent(7L));
+
+        verify(seatInventory).releaseHold(7L);
+        verify(seatInventory).commitHold(7L);
+        verify(outbox).enqueue(WaitlistNotificationEmailService.OUTBOX_TYPE, WaitlistNotificationEmailService.payload(3L, 7L));
+        verify(listaCekanjaRepository, times(2)).popHead(7L);
+
+        clearInvocations(seatInventory, listaCekanjaRepository);
+        when(listaCekanjaRepository.hasWaiting(7L)).thenReturn(false);
+        service.onSeatsFreed(new WorkshopSeatsFreedEvent(7L));
+        verify(seatInventory, never()).hold(any());
+        verify(listaCekanjaRepository, never()).popHead(any());
+    }
+
+    @Test
+    void ReservationService_JoinWaitlist_OnlyWhenWorkshopIsFull() {
+        ReservationService service = new ReservationService(
+                rezervacijaRepository,
+                seatInventory,
+                listaCekanjaRepository,
+                checkoutBatchRepository,
+                outbox,
+                events
+        );
+
+        when(rezervacijaRepository.findByIdKorisnikAndIdRadionica(any(), any())).thenReturn(Optional.empty());
+        when(seatInventory.freeSeats(7L)).thenReturn(2, 0);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.joinWaitlist(4L, 7L));
+        assertEquals("Radionica još ima slobodnih mjesta.", ex.getMessage());
+
+        when(listaCekanjaRepository.position(4L, 7L)).thenReturn(3L);
+        assertEquals(3L, service.joinWaitlist(4L, 7L));
+        verify(listaCekanjaRepository, times(1)).join(4L, 7L);
+    }
+}
@@ -0,0 +1,154 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatHoldsTimingWheelTest {
+
+    private static final long WORKSHOP = 4L;
+
+    @Test
+    void TimingWheel_Advance_FiresEachTimeoutOnItsOwnTickAcrossLevels() {
+        TimingWheel wheel = new TimingWheel(10, 8, 3, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> due = new HashMap<>();
+        Map<Integer, Long> fired = new HashMap<>();
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        long[] now = {0};
+
+        for (int i = 0; i < 5000; i++) {
+            final int id = i;
+            long deadline = 1 + random.nextInt(20_000);
+            due.put(id, deadline);
+            timeouts.add(wheel.schedule(deadline, () -> fired.put(id, now[0])));
+        }
+        int cancelled = 0;
+        for (int i = 0; i < timeouts.size(); i += 7) {
+            assertTrue(timeouts.get(i).cancel());
+            assertFalse(timeouts.get(i).cancel(), "Drugi cancel ne smije uspjeti");
+            due.remove(i);
+            cancelled++;
+        }
+        assertEquals(5000 - cancelled, wheel.size());
+
+        while (now[0] < 21_000) {
+            now[0] += 1 + random.nextInt(40);
+            wheel.advance(now[0]);
+        }
+
+        assertEquals(due.keySet(), fired.keySet(), "Otkazani se ne smiju okinuti, ostali moraju");
+        for (Map.Entry<Integer, Long> e : due.entrySet()) {
+            long at = fired.get(e.getKey());
+            assertTrue(at >= e.getValue(), "Timeout ne smije isteći prije roka");
+            assertTrue(at < e.getValue() + 10 + 40, "Timeout mora isteći unutar jednog koraka nakon roka");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    static class FixedStore implements SeatInventoryStore {
+        volatile int free;
+
+        FixedStore(int free) {
+            this.free = free;
+        }
+
+        @Override
+        public Map<Long, Integer> loadAvailable(Collection<Long> workshopIds) {
+            return Map.of(WORKSHOP, free);
+        }
+
+        @Override
+        public List<Long> reserveAll(List<Request> requests) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    void SeatHolds_Expiry_ReleasesSeatsAndCheckoutConsumesThem() {
+        FixedStore store = new FixedStore(2);
+        SeatInventory inventory = new SeatInventory(store);
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SeatHolds holds = new SeatHolds(inventory, Duration.ofMinutes(15), clock::get);
+        try {
+            assertTrue(holds.hold(1L, WORKSHOP));
+            assertTrue(holds.hold(1L, WORKSHOP), "Ponovno dodavanje samo produžuje hold");
+            assertTrue(holds.hold(2L, WORKSHOP));
+            assertFalse(holds.hold(3L, WORKSHOP), "Sva mjesta su u košaricama");
+            assertEquals(2, holds.activeHolds(WORKSHOP));
+            assertEquals(0, inventory.available(WORKSHOP));
+
+            holds.release(2L, WORKSHOP);
+            assertEquals(1, holds.activeHolds(WORKSHOP));
+            assertTrue(holds.hold(3L, WORKSHOP));
+
+            clock.addAndGet(Duration.ofMinutes(10).toMillis());
+            holds.tick();
+            assertEquals(2, holds.size(), "Hold ne smije isteći prije TTL-a");
+
+            store.free = 1;
+            holds.claim(1L, List.of(WORKSHOP));
+            assertEquals(1, holds.size());
+            assertEquals(1, holds.activeHolds(WORKSHOP));
+            assertEquals(0, inventory.available(WORKSHOP));
+
+            clock.addAndGet(Duration.ofMinutes(6).toMillis());
+            holds.tick();
+            assertEquals(0, holds.size(), "Istekli hold vraća mjesto");
+            assertEquals(0, holds.activeHolds(WORKSHOP));
+            assertEquals(1, inventory.available(WORKSHOP));
+
+            assertThrows(IllegalArgumentException.class, () -> holds.claim(4L, List.of(WORKSHOP, 99L)));
+            assertEquals(1, inventory.available(WORKSHOP), "Neuspjeli checkout vraća sva uzeta mjesta");
+        } finally {
+            inventory.shutdown();
+        }
+    }
+
+    @Test
+    void SeatHolds_Hold_CountsQuantityAndSurvivesCheckout() {
+        FixedStore store = new FixedStore(5);
+        SeatInventory inventory = new SeatInventory(store);
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SeatHolds holds = new SeatHolds(inventory, Duration.ofMinutes(15), Duration.ofMinutes(60), clock::get);
+        try {
+            assertTrue(holds.hold(1L, WORKSHOP, 1));
+            assertTrue(holds.hold(1L, WORKSHOP, 3), "Druga stavka iste radionice drži još dva mjesta");
+            assertEquals(3, holds.activeHolds(WORKSHOP));
+            assertFalse(holds.hold(2L, WORKSHOP, 3), "Nema dovoljno mjesta za cijelu količinu");
+            assertEquals(2, inventory.available(WORKSHOP), "Neuspjeli hold ne smije zadržati dio mjesta");
+
+            holds.releaseTo(1L, WORKSHOP, 1);
+            assertEquals(1, holds.activeHolds(WORKSHOP), "Uklanjanje jedne stavke ostavlja mjesto preostaloj");
+            assertEquals(4, inventory.available(WORKSHOP));
+
+            holds.pin(1L);
+            clock.addAndGet(Duration.ofMinutes(30).toMillis());
+            holds.tick();
+            assertEquals(1, holds.activeHolds(WORKSHOP), "Hold se ne smije izgubiti dok checkout traje");
+
+            store.free = 4;
+            holds.claim(1L, List.of(WORKSHOP));
+            assertEquals(0, holds.size());
+            assertEquals(4, inventory.available(WORKSHOP));
+
+            assertTrue(holds.hold(2L, WORKSHOP, 2));
+            holds.pin(2L);
+            clock.addAndGet(Duration.ofMinutes(61).toMillis());
+            holds.tick();
+            assertEquals(0, holds.size(), "Napušteni checkout na kraju ipak vraća mjesta");
+            assertEquals(4, inventory.available(WORKSHOP));
+        } finally {
+            inventory.shutdown();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.clayplay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatInventoryLoadTest {
+
+    private static final long WORKSHOP = 9L;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    // mimics trig_broj_slobodnih_mjesta: every transaction holds the RADIONICA row lock while it commits
+    static class LockedRowStore implements SeatInventoryStore {
+        final Object rowLock = new Object();
+        final Set<Long> holders = new HashSet<>();
+        final AtomicInteger transactions = new AtomicInteger();
+        final AtomicLong nextId = new AtomicLong();
+        volatile int free;
+
+        LockedRowStore(int free) {
+            this.free = free;
+        }
+
+        @Override
+        public Map<Long, Integer> loadAvailable(Collection<Long> workshopIds) {
+            Map<Long, Integer> out = new HashMap<>();
+            synchronized (rowLock) {
+                if (workshopIds.contains(WORKSHOP)) out.put(WORKSHOP, free);
+            }
+            return out;
+        }
+
+        @Override
+        public List<Long> reserveAll(List<Request> requests) {
+            synchronized (rowLock) {
+                transactions.incrementAndGet();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                int left = free;
+                Set<Long> added = new HashSet<>();
+                List<Long> ids = new ArrayList<>();
+                for (Request r : requests) {
+                    if (holders.contains(r.getUserId()) || !added.add(r.getUserId())) {
+                        ids.add(null);
+                        continue;
+                    }
+                    if (left <= 0) throw new IllegalStateException("Nema slobodnih mjesta");
+                    left--;
+                    ids.add(nextId.incrementAndGet());
+                }
+                free = left;
+                holders.addAll(added);
+                return ids;
+            }
+        }
+    }
+
+    private interface Attempt {
+        boolean reserve(long userId);
+    }
+
+    private static void runLoad(Attempt attempt, AtomicInteger ok) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (attempt.reserve(thread * 1000L + i)) ok.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void SeatInventory_UnderLoad_NeverOversellsAndBatchesWrites() throws Exception {
+        int capacity = 400;
+
+        LockedRowStore baselineStore = new LockedRowStore(capacity);
+        AtomicInteger baselineOk = new AtomicInteger();
+        runLoad(userId -> {
+            try {
+                return baselineStore.reserveAll(List.of(new SeatInventoryStore.Request(userId, WORKSHOP))).get(0) != null;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }, baselineOk);
+
+        LockedRowStore store = new LockedRowStore(capacity);
+        SeatInventory inventory = new SeatInventory(store);
+        AtomicInteger inventoryOk = new AtomicInteger();
+        try {
+            runLoad(userId -> {
+                try {
+                    return inventory.reserve(userId, WORKSHOP) != null;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }, inventoryOk);
+        } finally {
+            inventory.shutdown();
+        }
+
+        assertEquals(capacity, baselineOk.get());
+        assertEquals(capacity, inventoryOk.get(), "Prodano mora biti točno onoliko mjesta koliko ih ima");
+        assertEquals(capacity, store.holders.size());
+        assertEquals(0, store.free, "Brojač u bazi ne smije otići ispod nule");
+        assertEquals(0, inventory.available(WORKSHOP));
+        assertTrue(store.transactions.get() < capacity / 4, "Upisi se moraju grupirati u batcheve");
+    }
+
+    @Test
+    void SeatInventory_WhenDatabaseHasFewerSeats_FailsSafelyAndResyncs() {
+        LockedRowStore store = new LockedRowStore(3);
+        SeatInventory inventory = new SeatInventory(store);
+        try {
+            assertNotNull(inventory.reserve(1L, WORKSHOP));
+            IllegalArgumentException dup = assertThrows(IllegalArgumentException.class, () -> inventory.reserve(1L, WORKSHOP));
+            assertEquals("Već ste prijavljeni na radionicu.", dup.getMessage());
+            assertEquals(2, inventory.available(WORKSHOP), "Odbijeni duplikat vraća mjesto");
+
+            store.free = 0;
+            assertThrows(IllegalArgumentException.class, () -> inventory.reserve(2L, WORKSHOP));
+            assertEquals(0, inventory.available(WORKSHOP), "Nakon odbijanja baze brojač se usklađuje s bazom");
+
+            store.free = 2;
+            inventory.onSeatsChanged(new WorkshopSeatsChangedEvent(List.of(WORKSHOP)));
+            assertEquals(2, inventory.available(WORKSHOP));
+            assertNotNull(inventory.reserve(3L, WORKSHOP));
+            assertEquals(1, store.free);
+        } finally {
+            inventory.shutdown();
+        }
+    }
+
+    @Test
+    void SeatInventory_Reserve_AbandonedRequestIsNeverWritten() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        LockedRowStore store = new LockedRowStore(5) {
+            @Override
+            public List<Long> reserveAll(List<Request> requests) {
+                writing.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.reserveAll(requests);
+            }
+        };
+        SeatInventory inventory = new SeatInventory(store, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> inFlight = pool.submit(() -> inventory.reserve(1L, WORKSHOP));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            Future<Long> queued = pool.submit(() -> inventory.reserve(2L, WORKSHOP));
+            while (inventory.stats().get("queued") == 0) Thread.sleep(1);
+
+            queued.cancel(true);
+            pool.shutdown();
+            while (inventory.stats().get("queued") != 0) Thread.sleep(1);
+            assertEquals(4, inventory.available(WORKSHOP), "Napušteni zahtjev vraća mjesto");
+
+            inFlight.cancel(true);
+            proceed.countDown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            inventory.shutdown();
+
+            assertEquals(Set.of(1L), store.holders, "Upisuje se samo zahtjev koji je pisac već preuzeo");
+            assertEquals(4, store.free);
+            assertEquals(4, inventory.available(WORKSHOP));
+        } finally {
+            proceed.countDown();
+            pool.shutdownNow();
+            inventory.shutdown();
+        }
+    }
+}
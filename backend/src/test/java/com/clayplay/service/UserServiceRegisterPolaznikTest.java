@@ -72,6 +72,6 @@ class UserServiceRegisterPolaznikTest {
         verify(polaznikRepository, times(1)).save(any(Polaznik.class));
         verify(organizatorRepository, never()).save(any());
         verify(fotografijaRepository, never()).save(any());
-        verify(fileStorageService, never()).save(any(), any());
+        verifyNoInteractions(fileStorageService);
     }
 }
@@ -0,0 +1,83 @@
+package com.clayplay.service;
+
+import com.clayplay.dto.WorkshopResponse;
+import com.clayplay.model.Radionica;
+import com.clayplay.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkshopServiceListRecentBatchedPhotosTest {
+
+    @Mock RadionicaRepository radionicaRepository;
+    @Mock OrganizatorRepository organizatorRepository;
+    @Mock PlacaRepository placaRepository;
+    @Mock FotografijaRepository fotografijaRepository;
+    @Mock FotoRadRepository fotoRadRepository;
+    @Mock FileStorageService fileStorageService;
+    @Mock NotificationOutbox outbox;
+    @Mock SeatHolds seatHolds;
+
+    private static Radionica workshop(long id) {
+        Radionica r = new Radionica();
+        r.setIdRadionica(id);
+        r.setNazivRadionica("Radionica " + id);
+        r.setOpisRadionica("Opis");
+        r.setTrajanje(Duration.ofMinutes(90));
+        r.setDatVrRadionica(OffsetDateTime.now().plusDays(id));
+        r.setLokacijaRadionica("Zagreb");
+        r.setBrSlobMjesta(10);
+        r.setCijenaRadionica(new BigDecimal("25.00"));
+        r.setIdKorisnik(7L);
+        return r;
+    }
+
+    @Test
+    void WorkshopService_ListRecent_LoadsPhotosInOneQuery() {
+        WorkshopService service = new WorkshopService(
+                radionicaRepository,
+                organizatorRepository,
+                placaRepository,
+                fotografijaRepository,
+                fotoRadRepository,
+                fileStorageService,
+                outbox,
+                seatHolds
+        );
+
+        for (int count : new int[]{10, 50, 100}) {
+            clearInvocations(radionicaRepository, fotoRadRepository);
+            List<Radionica> rows = new ArrayList<>();
+            for (long i = 1; i <= count; i++) rows.add(workshop(i));
+
+            when(radionicaRepository.findAllByOrderByDatVrRadionicaAsc(any())).thenReturn(rows);
+            when(fotoRadRepository.findUrlsByRadionicaIds(anyCollection()))
+                    .thenReturn(Map.of(1L, List.of("/media/a.jpg", "/media/b.jpg")));
+
+            List<WorkshopResponse> result = service.listRecent(count);
+
+            assertEquals(count, result.size());
+            assertEquals(List.of("/media/a.jpg", "/media/b.jpg"), result.get(0).getImages());
+            assertEquals(List.of(), result.get(1).getImages());
+            verify(radionicaRepository, times(1)).findAllByOrderByDatVrRadionicaAsc(any());
+            verify(fotoRadRepository, times(1)).findUrlsByRadionicaIds(anyCollection());
+            verifyNoMoreInteractions(fotoRadRepository);
+        }
+
+        verifyNoInteractions(fotografijaRepository);
+    }
+}
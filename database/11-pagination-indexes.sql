@@ -0,0 +1,9 @@
+CREATE INDEX IF NOT EXISTS idx_proizvod_dostupni
+ON PROIZVOD (proizvodid DESC)
+WHERE kupljen = FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_radionica_datvr
+ON RADIONICA (datvrradionica, idradionica);
+
+CREATE INDEX IF NOT EXISTS idx_izlozba_datvr
+ON IZLOZBA (datvrizlozba, idizlozba);
@@ -0,0 +1,36 @@
+CREATE TABLE IF NOT EXISTS OCJENA_PRODAVACA
+(
+  idkorisnik BIGINT NOT NULL,
+  zbrojocjena BIGINT NOT NULL DEFAULT 0,
+  brojrecenzija BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (idkorisnik),
+  FOREIGN KEY (idkorisnik) REFERENCES ORGANIZATOR(idkorisnik) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS OCJENA_PROIZVODA
+(
+  proizvodid BIGINT NOT NULL,
+  idkorisnik BIGINT NOT NULL,
+  zbrojocjena BIGINT NOT NULL DEFAULT 0,
+  brojrecenzija BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (proizvodid),
+  FOREIGN KEY (proizvodid) REFERENCES PROIZVOD(proizvodid) ON DELETE CASCADE,
+  FOREIGN KEY (idkorisnik) REFERENCES ORGANIZATOR(idkorisnik) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_ocjena_proizvoda_korisnik
+ON OCJENA_PROIZVODA (idkorisnik);
+
+INSERT INTO OCJENA_PROIZVODA (proizvodid, idkorisnik, zbrojocjena, brojrecenzija)
+SELECT r.proizvodid, p.idkorisnik, SUM(r.ocjena), COUNT(*)
+FROM RECENZIJA r
+JOIN PROIZVOD p ON p.proizvodid = r.proizvodid
+WHERE p.kupljen = TRUE
+GROUP BY r.proizvodid, p.idkorisnik
+ON CONFLICT (proizvodid) DO NOTHING;
+
+INSERT INTO OCJENA_PRODAVACA (idkorisnik, zbrojocjena, brojrecenzija)
+SELECT idkorisnik, SUM(zbrojocjena), SUM(brojrecenzija)
+FROM OCJENA_PROIZVODA
+GROUP BY idkorisnik
+ON CONFLICT (idkorisnik) DO NOTHING;
@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_izlozeni_izlozba
+ON izlozeni (idizlozba, fotoid);
+
+CREATE INDEX IF NOT EXISTS idx_fotorad_radionica
+ON fotoRad (idradionica, fotoid);
@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS CHECKOUT_SESSION
+(
+  idcheckout VARCHAR(64) NOT NULL,
+  payload TEXT NOT NULL,
+  createdat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  expiresat TIMESTAMPTZ NOT NULL,
+  PRIMARY KEY (idcheckout)
+);
+
+CREATE INDEX IF NOT EXISTS idx_checkout_session_expiresat
+ON CHECKOUT_SESSION (expiresat);
+
+CREATE INDEX IF NOT EXISTS idx_checkout_session_createdat
+ON CHECKOUT_SESSION (createdat);
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS LISTA_CEKANJA
+(
+  idcekanja BIGSERIAL NOT NULL,
+  idradionica BIGINT NOT NULL,
+  idkorisnik BIGINT NOT NULL,
+  createdat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (idcekanja),
+  UNIQUE (idradionica, idkorisnik),
+  FOREIGN KEY (idradionica) REFERENCES RADIONICA(idradionica) ON DELETE CASCADE,
+  FOREIGN KEY (idkorisnik) REFERENCES KORISNIK(idkorisnik) ON DELETE CASCADE
+);
+
+-- head of each workshop's queue is the first entry of this index
+CREATE INDEX IF NOT EXISTS idx_lista_cekanja_radionica_red
+ON LISTA_CEKANJA (idradionica, idcekanja);
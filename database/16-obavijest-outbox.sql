@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS OBAVIJEST_OUTBOX
+(
+  idobavijest BIGSERIAL NOT NULL,
+  tip VARCHAR(40) NOT NULL,
+  payload TEXT NOT NULL,
+  status VARCHAR(12) NOT NULL DEFAULT 'PENDING',
+  pokusaji INT NOT NULL DEFAULT 0,
+  sljedecipokusaj TIMESTAMPTZ NOT NULL DEFAULT now(),
+  zakljucanodo TIMESTAMPTZ,
+  greska VARCHAR(1000),
+  createdat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updatedat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (idobavijest),
+  CHECK (status IN ('PENDING', 'PROCESSING', 'DEAD'))
+);
+
+-- delivered rows are deleted, so this index only ever covers work still to do and the dead letters
+CREATE INDEX IF NOT EXISTS idx_obavijest_outbox_status_sljedeci
+ON OBAVIJEST_OUTBOX (status, sljedecipokusaj);
@@ -0,0 +1,3 @@
+-- subscriber fan-out scans only opted-in polaznici, in idkorisnik order
+CREATE INDEX IF NOT EXISTS idx_polaznik_zeliobavijesti
+ON POLAZNIK (idkorisnik) WHERE zeliobavijesti = TRUE;
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS PRACENJE
+(
+  idorganizator BIGINT NOT NULL,
+  idkorisnik BIGINT NOT NULL,
+  createdat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (idorganizator, idkorisnik),
+  FOREIGN KEY (idorganizator) REFERENCES ORGANIZATOR(idkorisnik) ON DELETE CASCADE,
+  FOREIGN KEY (idkorisnik) REFERENCES POLAZNIK(idkorisnik) ON DELETE CASCADE
+);
+
+-- an organizer's followers are a range of the primary key; this one serves "who do I follow"
+CREATE INDEX IF NOT EXISTS idx_pracenje_korisnik
+ON PRACENJE (idkorisnik);
@@ -0,0 +1,18 @@
+ALTER TABLE POLAZNIK
+ADD COLUMN IF NOT EXISTS nacinobavijesti VARCHAR(10) NOT NULL DEFAULT 'INSTANT';
+
+ALTER TABLE POLAZNIK DROP CONSTRAINT IF EXISTS chk_nacinobavijesti;
+ALTER TABLE POLAZNIK
+ADD CONSTRAINT chk_nacinobavijesti CHECK (nacinobavijesti IN ('INSTANT', 'DIGEST'));
+
+-- announcements waiting for the next digest window; one row per published item, not per recipient
+CREATE TABLE IF NOT EXISTS DIGEST_OBJAVA
+(
+  idobjava BIGSERIAL NOT NULL,
+  tip VARCHAR(20) NOT NULL,
+  idobjekt BIGINT NOT NULL,
+  idorganizator BIGINT NOT NULL,
+  createdat TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (idobjava),
+  UNIQUE (tip, idobjekt)
+);